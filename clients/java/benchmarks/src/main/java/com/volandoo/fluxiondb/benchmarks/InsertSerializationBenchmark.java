@@ -0,0 +1,109 @@
+package com.volandoo.fluxiondb.benchmarks;
+
+import com.volandoo.fluxiondb.connection.MessageSender;
+import com.volandoo.fluxiondb.model.requests.InsertMessageRequest;
+import com.volandoo.fluxiondb.operations.TimeSeriesOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TimeSeriesOperations#insertMultipleRecords} against a transport that acknowledges every
+ * request immediately, so the cost measured is serializing the batch and splitting it by
+ * partition. The serialized size is kept so the JIT cannot drop the work.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InsertSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int records;
+
+    @Param({"1", "4"})
+    public int partitions;
+
+    private List<InsertMessageRequest> batch;
+    private AcknowledgingTransport transport;
+    private TimeSeriesOperations operations;
+
+    @Setup
+    public void setUp() {
+        batch = Payloads.insertBatch(records, 64);
+        transport = new AcknowledgingTransport(partitions);
+        operations = new TimeSeriesOperations(transport);
+    }
+
+    @Benchmark
+    public long insertMultipleRecords() {
+        operations.insertMultipleRecords(batch).join();
+        return transport.chars;
+    }
+
+    /**
+     * Transport that completes every send at once, routing by document like the connection pool.
+     */
+    static final class AcknowledgingTransport implements MessageSender {
+
+        private static final CompletableFuture<String> ACK = CompletableFuture.completedFuture("{}");
+
+        private final int partitions;
+        long chars;
+
+        AcknowledgingTransport(int partitions) {
+            this.partitions = partitions;
+        }
+
+        @Override
+        public CompletableFuture<String> send(String type, String data) {
+            chars += data.length();
+            return ACK;
+        }
+
+        @Override
+        public CompletableFuture<String> send(String type, String data, long timeoutMs) {
+            return send(type, data);
+        }
+
+        @Override
+        public CompletableFuture<String> send(int partition, String type, String data) {
+            return send(type, data);
+        }
+
+        @Override
+        public CompletableFuture<String> send(int partition, String type, String data, long timeoutMs) {
+            return send(type, data);
+        }
+
+        @Override
+        public int partitionCount() {
+            return partitions;
+        }
+
+        @Override
+        public int partitionFor(String col, String doc) {
+            return Math.floorMod(doc.hashCode(), partitions);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.volandoo.fluxiondb.benchmarks;
+
+import com.volandoo.fluxiondb.json.JsonBuilder;
+import com.volandoo.fluxiondb.json.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request encoding: building a request object with the map-backed {@link JsonBuilder} and the
+ * streaming {@link JsonWriter}, escaping string values and serializing arrays.
+ * Escaping is measured through {@link JsonWriter#appendString}, which JsonBuilder also uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBuilderBenchmark {
+
+    /**
+     * plain: nothing to escape; quoted: the escaped record data a "qry" response carries.
+     */
+    @Param({"plain", "quoted"})
+    public String text;
+
+    private String value;
+    private List<String> keys;
+    private final StringBuilder reused = new StringBuilder(4096);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        value = "plain".equals(text) ? "device-000042/site-7/temperature-sensor-b" : Payloads.readings(random);
+        keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add(Payloads.documentId(i));
+        }
+    }
+
+    @Benchmark
+    public String buildFetchRequest() {
+        return new JsonBuilder()
+                .add("col", "sensors")
+                .add("doc", value)
+                .add("from", Payloads.BASE_TS)
+                .add("to", Payloads.BASE_TS + 86_400_000L)
+                .add("reverse", true)
+                .build();
+    }
+
+    @Benchmark
+    public String writeFetchRequest() {
+        return JsonWriter.local().beginObject()
+                .name("col").value("sensors")
+                .name("doc").value(value)
+                .name("from").value(Payloads.BASE_TS)
+                .name("to").value(Payloads.BASE_TS + 86_400_000L)
+                .name("reverse").value(true)
+                .endObject()
+                .build();
+    }
+
+    @Benchmark
+    public int escapeString() {
+        reused.setLength(0);
+        JsonWriter.appendString(reused, value);
+        return reused.length();
+    }
+
+    @Benchmark
+    public String toJsonArray() {
+        return JsonBuilder.toJsonArray(keys);
+    }
+}
@@ -0,0 +1,72 @@
+package com.volandoo.fluxiondb.benchmarks;
+
+import com.volandoo.fluxiondb.json.JsonParser;
+import com.volandoo.fluxiondb.json.ReferenceJsonParser;
+import com.volandoo.fluxiondb.protocol.RecordDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response decoding for "qry" and "qdoc" payloads from 1KB up to the server's 16MB frame limit.
+ * Generic parsing into maps ({@link JsonParser#parseObject}) is measured next to the direct
+ * {@link RecordDecoder} path the client uses, so the gap between the two stays visible, and next to
+ * {@link ReferenceJsonParser}, the parser before its fast paths (from the client's test jar), as the
+ * baseline it must beat.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class JsonParserBenchmark {
+
+    @Param({"qry", "qdoc"})
+    public String type;
+
+    @Param({"1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private String payload;
+
+    @Setup
+    public void setUp() {
+        payload = "qry".equals(type)
+                ? Payloads.latestRecordsResponse(size)
+                : Payloads.documentRecordsResponse(size);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseObject() {
+        return JsonParser.parseObject(payload);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseObjectWithoutKeyDeduplication() {
+        return JsonParser.parseObject(payload, false);
+    }
+
+    @Benchmark
+    public Map<String, Object> referenceParseObject() {
+        return ReferenceJsonParser.parseObject(payload);
+    }
+
+    @Benchmark
+    public Object recordDecoder() {
+        return "qry".equals(type)
+                ? RecordDecoder.decodeLatestRecords(payload)
+                : RecordDecoder.decodeDocumentRecords(payload, null);
+    }
+}
@@ -0,0 +1,58 @@
+package com.volandoo.fluxiondb.benchmarks;
+
+import com.volandoo.fluxiondb.cache.KeyValueCache;
+import com.volandoo.fluxiondb.cache.KeyValueCachePolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near-cache hits with every available core reading one collection, as when many application
+ * threads poll the same settings. Run with {@code -t 1} for the uncontended cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class KeyValueCacheBenchmark {
+
+    /**
+     * Distinct keys read; 1 puts every reader on the same entry.
+     */
+    @Param({"1", "1024"})
+    public int keys;
+
+    private KeyValueCache cache;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new KeyValueCache(new KeyValueCachePolicy(TimeUnit.HOURS.toMillis(1), 1 << 24));
+        names = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            names[i] = "key-" + i;
+            cache.put("settings", names[i], "value-" + i);
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        return cache.get("settings", names[ThreadLocalRandom.current().nextInt(names.length)]);
+    }
+}
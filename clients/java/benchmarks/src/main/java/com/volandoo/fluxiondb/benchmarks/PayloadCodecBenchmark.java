@@ -0,0 +1,96 @@
+package com.volandoo.fluxiondb.benchmarks;
+
+import com.volandoo.fluxiondb.codec.NumericMapCodec;
+import com.volandoo.fluxiondb.json.JsonParser;
+import com.volandoo.fluxiondb.json.JsonWriter;
+import com.volandoo.fluxiondb.model.requests.InsertMessageRequest;
+import com.volandoo.fluxiondb.model.requests.TypedInsertRequest;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+import com.volandoo.fluxiondb.model.responses.TypedRecordResponse;
+import com.volandoo.fluxiondb.operations.TimeSeriesOperations;
+import com.volandoo.fluxiondb.protocol.RecordDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typed record data through {@link NumericMapCodec} against the String route it replaces: each
+ * map serialized to its own String before the insert, and each record's data parsed with
+ * {@link JsonParser} after {@code fetchDocument}. Both routes produce the same maps and requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadCodecBenchmark {
+
+    @Param({"100", "10000"})
+    public int records;
+
+    private List<TypedInsertRequest<Map<String, Double>>> batch;
+    private String response;
+    private InsertSerializationBenchmark.AcknowledgingTransport transport;
+    private TimeSeriesOperations operations;
+
+    @Setup
+    public void setUp() {
+        batch = Payloads.numericInsertBatch(records, 64);
+        response = Payloads.numericDocumentRecordsResponse(records);
+        transport = new InsertSerializationBenchmark.AcknowledgingTransport(1);
+        operations = new TimeSeriesOperations(transport);
+    }
+
+    @Benchmark
+    public long insertTyped() {
+        operations.insertMultipleRecords(batch, NumericMapCodec.INSTANCE).join();
+        return transport.chars;
+    }
+
+    @Benchmark
+    public long insertString() {
+        List<InsertMessageRequest> requests = new ArrayList<>(batch.size());
+        for (TypedInsertRequest<Map<String, Double>> req : batch) {
+            JsonWriter data = new JsonWriter(new StringBuilder());
+            NumericMapCodec.INSTANCE.encode(req.getData(), data);
+            requests.add(new InsertMessageRequest(req.getTs(), req.getDoc(), data.build(), req.getCol()));
+        }
+        operations.insertMultipleRecords(requests).join();
+        return transport.chars;
+    }
+
+    @Benchmark
+    public List<TypedRecordResponse<Map<String, Double>>> decodeTyped() {
+        return RecordDecoder.decodeDocumentRecords(response, null, NumericMapCodec.INSTANCE);
+    }
+
+    @Benchmark
+    public List<Map<String, Double>> decodeString() {
+        List<RecordResponse> decoded = RecordDecoder.decodeDocumentRecords(response, null);
+        List<Map<String, Double>> result = new ArrayList<>(decoded.size());
+        for (RecordResponse record : decoded) {
+            Map<String, Object> parsed = JsonParser.parseObject(record.getData());
+            Map<String, Double> readings = new HashMap<>();
+            for (Map.Entry<String, Object> entry : parsed.entrySet()) {
+                readings.put(entry.getKey(), ((Number) entry.getValue()).doubleValue());
+            }
+            result.add(readings);
+        }
+        return result;
+    }
+}
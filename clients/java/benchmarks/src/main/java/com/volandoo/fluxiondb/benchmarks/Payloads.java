@@ -0,0 +1,140 @@
+package com.volandoo.fluxiondb.benchmarks;
+
+import com.volandoo.fluxiondb.codec.NumericMapCodec;
+import com.volandoo.fluxiondb.json.JsonBuilder;
+import com.volandoo.fluxiondb.json.JsonWriter;
+import com.volandoo.fluxiondb.model.requests.InsertMessageRequest;
+import com.volandoo.fluxiondb.model.requests.TypedInsertRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates server responses and insert batches shaped like production traffic.
+ * <p>
+ * Record data is a JSON object of sensor readings, embedded as an escaped string exactly as the
+ * server returns it, so every payload exercises the parsers' escape handling. Generation is seeded
+ * and therefore repeatable across runs.
+ */
+final class Payloads {
+
+    static final long BASE_TS = 1_700_000_000_000L;
+
+    private Payloads() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Builds a "qry" response, {@code {"id":..,"records":{"doc":{"ts":..,"data":".."},..}}}, of at
+     * least {@code targetChars} characters.
+     */
+    static String latestRecordsResponse(int targetChars) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(targetChars + 256);
+        sb.append("{\"id\":\"1\",\"records\":{");
+        for (int i = 0; sb.length() < targetChars; i++) {
+            if (i > 0) sb.append(',');
+            JsonBuilder.appendString(sb, documentId(i));
+            sb.append(':');
+            appendRecord(sb, BASE_TS + i, random);
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+
+    /**
+     * Builds a "qdoc" response, {@code {"id":..,"records":[{"ts":..,"data":".."},..]}}, of at least
+     * {@code targetChars} characters.
+     */
+    static String documentRecordsResponse(int targetChars) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(targetChars + 256);
+        sb.append("{\"id\":\"1\",\"records\":[");
+        for (int i = 0; sb.length() < targetChars; i++) {
+            if (i > 0) sb.append(',');
+            appendRecord(sb, BASE_TS + i * 1000L, random);
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    /**
+     * Builds an insert batch spread over {@code documents} documents of one collection.
+     */
+    static List<InsertMessageRequest> insertBatch(int records, int documents) {
+        Random random = new Random(42);
+        List<InsertMessageRequest> batch = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            batch.add(new InsertMessageRequest(BASE_TS + i, documentId(i % documents), readings(random), "sensors"));
+        }
+        return batch;
+    }
+
+    /**
+     * Builds a typed insert batch of numeric readings spread over {@code documents} documents.
+     */
+    static List<TypedInsertRequest<Map<String, Double>>> numericInsertBatch(int records, int documents) {
+        Random random = new Random(42);
+        List<TypedInsertRequest<Map<String, Double>>> batch = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            batch.add(new TypedInsertRequest<>(BASE_TS + i, documentId(i % documents), numericReadings(random), "sensors"));
+        }
+        return batch;
+    }
+
+    /**
+     * Builds a "qdoc" response whose records hold numeric readings, of {@code records} records.
+     */
+    static String numericDocumentRecordsResponse(int records) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(records * 128);
+        sb.append("{\"id\":\"1\",\"records\":[");
+        for (int i = 0; i < records; i++) {
+            if (i > 0) sb.append(',');
+            JsonWriter data = new JsonWriter(new StringBuilder());
+            NumericMapCodec.INSTANCE.encode(numericReadings(random), data);
+            sb.append("{\"ts\":").append(BASE_TS + i * 1000L).append(",\"data\":");
+            JsonBuilder.appendString(sb, data.build());
+            sb.append('}');
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    /**
+     * Returns the numeric readings of one record, for the typed payload codec.
+     */
+    static Map<String, Double> numericReadings(Random random) {
+        Map<String, Double> readings = new HashMap<>();
+        readings.put("temperature", Math.round((15 + random.nextDouble() * 20) * 100) / 100.0);
+        readings.put("humidity", (double) random.nextInt(100));
+        readings.put("pressure", Math.round((950 + random.nextDouble() * 100) * 10) / 10.0);
+        readings.put("battery", Math.round(random.nextDouble() * 1000) / 1000.0);
+        return readings;
+    }
+
+    /**
+     * Returns the JSON object stored as a record's data.
+     */
+    static String readings(Random random) {
+        return new JsonBuilder()
+                .add("temperature", String.format("%.2f", 15 + random.nextDouble() * 20))
+                .add("humidity", random.nextInt(100))
+                .add("status", random.nextBoolean() ? "ok" : "degraded \"manual\" check")
+                .add("site", "plant-" + random.nextInt(16))
+                .build();
+    }
+
+    static String documentId(int i) {
+        return String.format("device-%06d", i);
+    }
+
+    private static void appendRecord(StringBuilder sb, long ts, Random random) {
+        sb.append("{\"ts\":").append(ts).append(",\"data\":");
+        JsonBuilder.appendString(sb, readings(random));
+        sb.append('}');
+    }
+}
@@ -0,0 +1,48 @@
+package com.volandoo.fluxiondb.benchmarks;
+
+import com.volandoo.fluxiondb.protocol.RequestIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request ID generation with every available core calling into one generator, as when many
+ * application threads share a connection. Run with {@code -t 1} for the uncontended cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class RequestIdGeneratorBenchmark {
+
+    private final RequestIdGenerator generator = new RequestIdGenerator();
+
+    /**
+     * The numeric ID a connection assigns to each request.
+     */
+    @Benchmark
+    public long next() {
+        return generator.next();
+    }
+
+    /**
+     * The deprecated string form, which also formats the ID.
+     */
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String generate() {
+        return RequestIdGenerator.generate();
+    }
+}
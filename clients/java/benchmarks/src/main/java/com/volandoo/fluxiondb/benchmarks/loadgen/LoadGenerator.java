@@ -0,0 +1,171 @@
+package com.volandoo.fluxiondb.benchmarks.loadgen;
+
+import com.volandoo.fluxiondb.FluxionDBClient;
+import com.volandoo.fluxiondb.FluxionDBClientBuilder;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop ingest and query load generator built on {@link FluxionDBClient}.
+ * <p>
+ * Operations are started on a fixed schedule, {@code 1/rate} apart, whether or not earlier ones
+ * have completed, and each latency is measured from the scheduled start. A server that stalls
+ * therefore shows up in the percentiles as the queueing its clients would see, rather than as a
+ * pause in which no requests were sent (coordinated omission). At most {@code concurrency}
+ * operations are in flight; when that many are outstanding the next one waits for a slot, still
+ * counting from its scheduled time. Operations still unstarted when a phase ends are reported as
+ * missed rather than run late.
+ * <p>
+ * A run seeds every document, warms up, then measures for the configured duration and prints
+ * throughput and latency percentiles per message type. With {@code --server} it starts a local
+ * fluxiondb binary on a temporary data directory first and stops it afterwards.
+ */
+public final class LoadGenerator {
+
+    private static final long DRAIN_TIMEOUT_MS = 60_000;
+
+    private final LoadOptions options;
+    private final Workload workload;
+    private final Semaphore slots;
+
+    private LoadGenerator(LoadOptions options, Workload workload) {
+        this.options = options;
+        this.workload = workload;
+        this.slots = new Semaphore(options.concurrency);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        LocalServer server = null;
+        if (options.server != null) {
+            server = LocalServer.start(options.server, options.port, options.apiKey, options.dataDirectory);
+            System.out.println("Started " + options.server + " on port " + options.port + ", log: " + server.getLog());
+        }
+
+        FluxionDBClient client = new FluxionDBClientBuilder()
+                .url(options.url)
+                .apiKey(options.apiKey)
+                .connectionName("loadgen")
+                .connectionPoolSize(options.connections)
+                .build();
+        try {
+            client.connect().get(30, TimeUnit.SECONDS);
+            new LoadGenerator(options, new Workload(client, options)).run();
+        } finally {
+            client.close();
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private void run() throws InterruptedException {
+        System.out.printf(Locale.ROOT, "Target %s: %.1f ops/s, mix %s, %d collections x %d documents, "
+                        + "%d-byte payloads, %d records per insert, concurrency %d, %d connection(s)%n",
+                options.url, options.rate, options.mix, options.collections, options.documents,
+                options.payloadBytes, options.batchSize, options.concurrency, options.connections);
+
+        long seedStart = System.nanoTime();
+        workload.seed();
+        System.out.printf(Locale.ROOT, "Seeded %d documents in %.1fs%n",
+                (long) options.collections * options.documents, (System.nanoTime() - seedStart) / 1e9);
+
+        if (options.warmupSeconds > 0) {
+            System.out.println("Warming up for " + options.warmupSeconds + "s");
+            runPhase(options.warmupSeconds);
+        }
+        System.out.println("Measuring for " + options.durationSeconds + "s");
+        OperationStats measured = runPhase(options.durationSeconds);
+
+        System.out.println();
+        measured.print(System.out, options.durationSeconds);
+    }
+
+    /**
+     * Issues operations on the open-loop schedule for the given number of seconds, then waits for
+     * the ones still in flight.
+     */
+    private OperationStats runPhase(long seconds) throws InterruptedException {
+        OperationStats stats = new OperationStats(options.mix.keySet());
+        double intervalNanos = 1e9 / options.rate;
+        long reportIntervalNanos = TimeUnit.SECONDS.toNanos(options.reportIntervalSeconds);
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long nextReport = start + reportIntervalNanos;
+        long reportedCompleted = 0;
+        long maxLagNanos = 0;
+
+        long started = 0;
+        for (; ; started++) {
+            // Computed from the start rather than accumulated, so rounding does not drift the rate
+            long scheduled = start + (long) (started * intervalNanos);
+            long now = System.nanoTime();
+            if (scheduled - end >= 0 || now - end >= 0) {
+                break;
+            }
+            if (scheduled - now > 0) {
+                LockSupport.parkNanos(scheduled - now);
+                now = System.nanoTime();
+            }
+            if (now - nextReport >= 0) {
+                long completed = stats.completed();
+                System.out.printf(Locale.ROOT, "  %5.1fs  %10.1f ops/s  %6d errors  %6d in flight  %8.3fms behind%n",
+                        (now - start) / 1e9, (completed - reportedCompleted) / (reportIntervalNanos / 1e9),
+                        stats.errors(), options.concurrency - slots.availablePermits(), maxLagNanos / 1e6);
+                reportedCompleted = completed;
+                maxLagNanos = 0;
+                nextReport += reportIntervalNanos;
+            }
+
+            if (!slots.tryAcquire(end - now, TimeUnit.NANOSECONDS)) {
+                break;
+            }
+            maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - scheduled);
+            issue(stats, scheduled);
+        }
+
+        long missed = (long) Math.ceil((end - start) / intervalNanos) - started;
+        if (missed > 0) {
+            System.out.println("The target rate was not sustained: " + missed
+                    + " scheduled operations were not started before the end of the phase");
+        }
+
+        if (!slots.tryAcquire(options.concurrency, DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            System.out.println("Gave up waiting for " + (options.concurrency - slots.availablePermits())
+                    + " operations still in flight");
+        } else {
+            slots.release(options.concurrency);
+        }
+        return stats;
+    }
+
+    private void issue(OperationStats stats, long scheduled) {
+        String type = workload.nextType();
+        int records = workload.recordsPerOperation(type);
+        long issued = System.nanoTime();
+        CompletableFuture<?> operation;
+        try {
+            operation = workload.issue(type);
+        } catch (RuntimeException e) {
+            operation = CompletableFuture.failedFuture(e);
+        }
+        operation.whenComplete((result, error) -> {
+            long done = System.nanoTime();
+            stats.record(type, done - scheduled, done - issued, error, records);
+            slots.release();
+        });
+    }
+}
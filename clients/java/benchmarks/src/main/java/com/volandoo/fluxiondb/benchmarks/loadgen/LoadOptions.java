@@ -0,0 +1,163 @@
+package com.volandoo.fluxiondb.benchmarks.loadgen;
+
+import com.volandoo.fluxiondb.protocol.MessageTypes;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line settings of a load run. Flags are accepted as {@code --name=value} or
+ * {@code --name value}, like the server's own.
+ */
+final class LoadOptions {
+
+    /** Operations the workload can issue, keyed by their message type. */
+    static final List<String> SUPPORTED_TYPES = Arrays.asList(
+            MessageTypes.INSERT, MessageTypes.QUERY_RECORDS, MessageTypes.QUERY_DOCUMENT,
+            MessageTypes.SET_VALUE, MessageTypes.GET_VALUE);
+
+    String url = "ws://localhost:8080";
+    String apiKey = "loadgen-secret";
+    Path server;
+    int port = 8080;
+    Path dataDirectory;
+
+    int collections = 4;
+    int documents = 1000;
+    int payloadBytes = 256;
+    int batchSize = 100;
+    int queryLimit = 100;
+    // Relative weights by message type
+    Map<String, Integer> mix = parseMix("ins:80,qry:10,qdoc:10");
+
+    double rate = 1000;
+    int concurrency = 256;
+    int connections = 1;
+    long warmupSeconds = 5;
+    long durationSeconds = 30;
+    long reportIntervalSeconds = 5;
+
+    static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        boolean urlSet = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help") || arg.equals("-h")) {
+                throw new IllegalArgumentException(usage());
+            }
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg + "\n" + usage());
+            }
+
+            String name;
+            String value;
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                name = arg.substring(2, equals);
+                value = arg.substring(equals + 1);
+            } else if (i + 1 < args.length) {
+                name = arg.substring(2);
+                value = args[++i];
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+
+            switch (name) {
+                case "url": options.url = value; urlSet = true; break;
+                case "api-key": options.apiKey = value; break;
+                case "server": options.server = Paths.get(value); break;
+                case "port": options.port = positive(name, value); break;
+                case "data": options.dataDirectory = Paths.get(value); break;
+                case "collections": options.collections = positive(name, value); break;
+                case "documents": options.documents = positive(name, value); break;
+                case "payload-bytes": options.payloadBytes = positive(name, value); break;
+                case "batch-size": options.batchSize = positive(name, value); break;
+                case "query-limit": options.queryLimit = positive(name, value); break;
+                case "mix": options.mix = parseMix(value); break;
+                case "rate": options.rate = Double.parseDouble(value); break;
+                case "concurrency": options.concurrency = positive(name, value); break;
+                case "connections": options.connections = positive(name, value); break;
+                case "warmup": options.warmupSeconds = Long.parseLong(value); break;
+                case "duration": options.durationSeconds = positive(name, value); break;
+                case "report-interval": options.reportIntervalSeconds = positive(name, value); break;
+                default: throw new IllegalArgumentException("Unknown option --" + name + "\n" + usage());
+            }
+        }
+
+        if (!(options.rate > 0)) {
+            throw new IllegalArgumentException("--rate must be > 0");
+        }
+        if (options.warmupSeconds < 0) {
+            throw new IllegalArgumentException("--warmup must be >= 0");
+        }
+        if (options.server != null && !urlSet) {
+            options.url = "ws://localhost:" + options.port;
+        }
+        return options;
+    }
+
+    /**
+     * Parses {@code type:weight,...}, for example {@code ins:70,qry:20,qdoc:10}.
+     */
+    static Map<String, Integer> parseMix(String text) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : text.split(",")) {
+            String[] pair = part.trim().split(":", 2);
+            if (pair.length != 2 || !SUPPORTED_TYPES.contains(pair[0])) {
+                throw new IllegalArgumentException("Invalid mix entry '" + part + "'; expected type:weight with type one of "
+                        + SUPPORTED_TYPES);
+            }
+            int weight = Integer.parseInt(pair[1]);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Mix weight must be >= 0: " + part);
+            }
+            if (weight > 0) {
+                mix.put(pair[0], weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no operation with a positive weight: " + text);
+        }
+        return mix;
+    }
+
+    static String usage() {
+        return String.join("\n",
+                "Usage: LoadGenerator [options]",
+                "",
+                "Target (default: connect to --url):",
+                "  --url <ws-url>            server to load (default: ws://localhost:8080)",
+                "  --api-key <key>           API key, also the secret key of a --server (default: loadgen-secret)",
+                "  --server <binary>         start this fluxiondb binary for the run and stop it afterwards",
+                "  --port <port>             port for --server (default: 8080)",
+                "  --data <dir>              data directory for --server (default: a temporary directory)",
+                "",
+                "Workload:",
+                "  --collections <n>         collections written and read (default: 4)",
+                "  --documents <n>           documents per collection (default: 1000)",
+                "  --payload-bytes <n>       size of each record's data and each value (default: 256)",
+                "  --batch-size <n>          records per insert request (default: 100)",
+                "  --query-limit <n>         records per qdoc request (default: 100)",
+                "  --mix <type:weight,...>   operation mix over " + SUPPORTED_TYPES + " (default: ins:80,qry:10,qdoc:10)",
+                "",
+                "Schedule:",
+                "  --rate <ops/s>            target operations per second, started on a fixed schedule (default: 1000)",
+                "  --concurrency <n>         most operations in flight; later ones wait (default: 256)",
+                "  --connections <n>         client connection pool size (default: 1)",
+                "  --warmup <s>              seconds run before measuring (default: 5)",
+                "  --duration <s>            seconds measured (default: 30)",
+                "  --report-interval <s>     seconds between progress lines (default: 5)");
+    }
+
+    private static int positive(String name, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed < 1) {
+            throw new IllegalArgumentException("--" + name + " must be >= 1");
+        }
+        return parsed;
+    }
+}
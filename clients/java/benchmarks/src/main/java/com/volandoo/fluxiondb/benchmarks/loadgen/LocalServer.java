@@ -0,0 +1,104 @@
+package com.volandoo.fluxiondb.benchmarks.loadgen;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A fluxiondb server binary started for the duration of a run, so client and server changes can be
+ * compared on one machine. Its output goes to {@code <data directory>-server.log}.
+ */
+final class LocalServer implements AutoCloseable {
+
+    private static final long STARTUP_TIMEOUT_MS = 30_000;
+
+    private final Process process;
+    private final Path dataDirectory;
+    private final boolean temporary;
+    private final Path log;
+
+    private LocalServer(Process process, Path dataDirectory, boolean temporary, Path log) {
+        this.process = process;
+        this.dataDirectory = dataDirectory;
+        this.temporary = temporary;
+        this.log = log;
+    }
+
+    /**
+     * Starts the binary and waits until it accepts connections on {@code port}.
+     *
+     * @param dataDirectory where the server keeps its data, or null for a temporary directory that is
+     *                      deleted when the server is closed
+     */
+    static LocalServer start(Path binary, int port, String secretKey, Path dataDirectory)
+            throws IOException, InterruptedException {
+        if (!Files.isExecutable(binary)) {
+            throw new IOException("Server binary is not executable: " + binary);
+        }
+        boolean temporary = dataDirectory == null;
+        Path data = temporary ? Files.createTempDirectory("fluxiondb-loadgen") : dataDirectory;
+        Files.createDirectories(data);
+        Path log = data.resolveSibling(data.getFileName() + "-server.log");
+
+        Process process = new ProcessBuilder(binary.toAbsolutePath().toString(),
+                "--secret-key=" + secretKey,
+                "--data=" + data.toAbsolutePath(),
+                "--port=" + port)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        LocalServer server = new LocalServer(process, data, temporary, log);
+        // Do not leave the server running if the run is interrupted
+        Runtime.getRuntime().addShutdownHook(new Thread(process::destroyForcibly));
+
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MS;
+        while (!accepting(port)) {
+            if (!process.isAlive()) {
+                server.close();
+                throw new IOException("Server exited with code " + process.exitValue() + "; see " + log);
+            }
+            if (System.currentTimeMillis() > deadline) {
+                server.close();
+                throw new IOException("Server did not accept connections on port " + port + " within "
+                        + STARTUP_TIMEOUT_MS + "ms; see " + log);
+            }
+            Thread.sleep(100);
+        }
+        return server;
+    }
+
+    Path getLog() {
+        return log;
+    }
+
+    /**
+     * Stops the server, forcibly if it does not exit within five seconds, and deletes a temporary
+     * data directory.
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        process.destroy();
+        if (!process.waitFor(5, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+        if (temporary) {
+            try (Stream<Path> files = Files.walk(dataDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static boolean accepting(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", port), 200);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
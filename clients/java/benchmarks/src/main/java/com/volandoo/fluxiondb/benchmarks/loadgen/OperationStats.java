@@ -0,0 +1,106 @@
+package com.volandoo.fluxiondb.benchmarks.loadgen;
+
+import com.volandoo.fluxiondb.metrics.HistogramSnapshot;
+import com.volandoo.fluxiondb.metrics.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcomes of one phase of a run (warm-up or measurement), per operation type.
+ * <p>
+ * Two latencies are kept for every operation. <em>Latency</em> runs from the time the schedule
+ * intended the operation to start, so time spent waiting behind a slow server or a full concurrency
+ * limit is counted, as a user would experience it. <em>Service time</em> runs from the moment the
+ * operation was actually issued, which is what a closed-loop benchmark would report; the gap between
+ * the two shows how much coordinated omission would have hidden.
+ */
+final class OperationStats {
+
+    private final Map<String, TypeStats> byType = new LinkedHashMap<>();
+    private final LongAdder completed = new LongAdder();
+    private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+    OperationStats(Iterable<String> types) {
+        for (String type : types) {
+            byType.put(type, new TypeStats());
+        }
+    }
+
+    void record(String type, long latencyNanos, long serviceNanos, Throwable error, int records) {
+        TypeStats stats = byType.get(type);
+        if (error != null) {
+            stats.errors.increment();
+            firstError.compareAndSet(null, error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        } else {
+            stats.latency.record(latencyNanos);
+            stats.service.record(serviceNanos);
+            stats.records.add(records);
+        }
+        completed.increment();
+    }
+
+    long completed() {
+        return completed.sum();
+    }
+
+    long errors() {
+        long errors = 0;
+        for (TypeStats stats : byType.values()) {
+            errors += stats.errors.sum();
+        }
+        return errors;
+    }
+
+    void print(PrintStream out, double seconds) {
+        out.printf(Locale.ROOT, "%-8s %10s %8s %10s %10s | %9s %9s %9s %9s %9s | %9s %9s%n",
+                "type", "ops", "errors", "ops/s", "records/s",
+                "p50", "p90", "p99", "p99.9", "max", "svc p50", "svc p99");
+
+        long totalOps = 0;
+        long totalErrors = 0;
+        long totalRecords = 0;
+        for (Map.Entry<String, TypeStats> entry : byType.entrySet()) {
+            TypeStats stats = entry.getValue();
+            HistogramSnapshot latency = stats.latency.snapshot();
+            HistogramSnapshot service = stats.service.snapshot();
+            long errors = stats.errors.sum();
+            long records = stats.records.sum();
+            totalOps += latency.getCount();
+            totalErrors += errors;
+            totalRecords += records;
+
+            out.printf(Locale.ROOT, "%-8s %10d %8d %10.1f %10.1f | %9s %9s %9s %9s %9s | %9s %9s%n",
+                    entry.getKey(), latency.getCount(), errors,
+                    latency.getCount() / seconds, records / seconds,
+                    millis(latency.getPercentile(50)), millis(latency.getPercentile(90)),
+                    millis(latency.getPercentile(99)), millis(latency.getPercentile(99.9)),
+                    millis(latency.getMax()),
+                    millis(service.getPercentile(50)), millis(service.getPercentile(99)));
+        }
+        out.printf(Locale.ROOT, "%-8s %10d %8d %10.1f %10.1f%n",
+                "total", totalOps, totalErrors, totalOps / seconds, totalRecords / seconds);
+        if (firstError.get() != null) {
+            out.println("First error: " + firstError.get());
+        }
+        out.println("Latencies in milliseconds, measured from each operation's scheduled start; "
+                + "svc = from when it was actually issued.");
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static final class TypeStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder records = new LongAdder();
+    }
+}
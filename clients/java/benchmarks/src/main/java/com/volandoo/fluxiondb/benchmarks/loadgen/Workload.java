@@ -0,0 +1,164 @@
+package com.volandoo.fluxiondb.benchmarks.loadgen;
+
+import com.volandoo.fluxiondb.FluxionDBClient;
+import com.volandoo.fluxiondb.json.JsonBuilder;
+import com.volandoo.fluxiondb.model.requests.FetchLatestRecordsParams;
+import com.volandoo.fluxiondb.model.requests.FetchRecordsParams;
+import com.volandoo.fluxiondb.model.requests.GetValueParams;
+import com.volandoo.fluxiondb.model.requests.InsertMessageRequest;
+import com.volandoo.fluxiondb.model.requests.SetValueParams;
+import com.volandoo.fluxiondb.protocol.MessageTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds and issues the operations of a load run.
+ * <p>
+ * Records go to {@code loadgen-<n>} collections and documents {@code doc-<n>}, chosen uniformly.
+ * Every inserted record gets a new, increasing timestamp, so inserts never overwrite each other and
+ * every "qry" asks for a slightly later snapshot than the one before, which keeps the client from
+ * sharing identical in-flight reads. Key-value operations use the {@code loadgen-kv} collection with
+ * one key per document.
+ */
+final class Workload {
+
+    static final String KEY_VALUE_COLLECTION = "loadgen-kv";
+
+    private final FluxionDBClient client;
+    private final LoadOptions options;
+    private final String[] types;
+    private final int[] cumulativeWeights;
+    private final String data;
+    private final AtomicLong nextTs = new AtomicLong(System.currentTimeMillis());
+
+    Workload(FluxionDBClient client, LoadOptions options) {
+        this.client = client;
+        this.options = options;
+
+        Map<String, Integer> mix = options.mix;
+        this.types = mix.keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[types.length];
+        int total = 0;
+        for (int i = 0; i < types.length; i++) {
+            total += mix.get(types[i]);
+            cumulativeWeights[i] = total;
+        }
+
+        // {"v":"xxxx..."}, sized so the JSON text is payloadBytes long
+        StringBuilder filler = new StringBuilder();
+        for (int i = 0; i < Math.max(0, options.payloadBytes - 8); i++) {
+            filler.append((char) ('a' + i % 26));
+        }
+        this.data = new JsonBuilder().add("v", filler.toString()).build();
+    }
+
+    /**
+     * Picks the next operation type according to the mix weights.
+     */
+    String nextType() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return types[i];
+            }
+        }
+        return types[types.length - 1];
+    }
+
+    /**
+     * Returns how many records an operation of this type writes, for the records/s figure.
+     */
+    int recordsPerOperation(String type) {
+        return MessageTypes.INSERT.equals(type) ? options.batchSize : 0;
+    }
+
+    CompletableFuture<?> issue(String type) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (type) {
+            case MessageTypes.INSERT: {
+                List<InsertMessageRequest> batch = new ArrayList<>(options.batchSize);
+                for (int i = 0; i < options.batchSize; i++) {
+                    batch.add(new InsertMessageRequest(nextTs.incrementAndGet(),
+                            document(random.nextInt(options.documents)), data,
+                            collection(random.nextInt(options.collections))));
+                }
+                return client.insertMultipleRecords(batch);
+            }
+            case MessageTypes.QUERY_RECORDS:
+                return client.fetchLatestRecords(FetchLatestRecordsParams.builder()
+                        .col(collection(random.nextInt(options.collections)))
+                        .ts(nextTs.get())
+                        .build());
+            case MessageTypes.QUERY_DOCUMENT:
+                return client.fetchDocument(FetchRecordsParams.builder()
+                        .col(collection(random.nextInt(options.collections)))
+                        .doc(document(random.nextInt(options.documents)))
+                        .from(0)
+                        .to(nextTs.get())
+                        .limit(options.queryLimit)
+                        .reverse(true)
+                        .build());
+            case MessageTypes.SET_VALUE:
+                return client.setValue(new SetValueParams(KEY_VALUE_COLLECTION,
+                        document(random.nextInt(options.documents)), data));
+            case MessageTypes.GET_VALUE:
+                return client.getValue(new GetValueParams(KEY_VALUE_COLLECTION,
+                        document(random.nextInt(options.documents))));
+            default:
+                throw new IllegalArgumentException("Unsupported operation: " + type);
+        }
+    }
+
+    /**
+     * Writes one record to every document, and a value for every key if the mix reads values, so
+     * reads find data from the start. Runs as fast as the server acknowledges, in batches of
+     * {@code batchSize}.
+     */
+    void seed() {
+        List<CompletableFuture<?>> writes = new ArrayList<>();
+        List<InsertMessageRequest> batch = new ArrayList<>(options.batchSize);
+        for (int c = 0; c < options.collections; c++) {
+            for (int d = 0; d < options.documents; d++) {
+                batch.add(new InsertMessageRequest(nextTs.incrementAndGet(), document(d), data, collection(c)));
+                if (batch.size() == options.batchSize) {
+                    writes.add(client.insertMultipleRecords(batch));
+                    batch = new ArrayList<>(options.batchSize);
+                }
+                if (writes.size() == options.concurrency) {
+                    awaitAll(writes);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writes.add(client.insertMultipleRecords(batch));
+        }
+
+        if (options.mix.containsKey(MessageTypes.GET_VALUE)) {
+            for (int d = 0; d < options.documents; d++) {
+                writes.add(client.setValue(new SetValueParams(KEY_VALUE_COLLECTION, document(d), data)));
+                if (writes.size() == options.concurrency) {
+                    awaitAll(writes);
+                }
+            }
+        }
+        awaitAll(writes);
+    }
+
+    private static void awaitAll(List<CompletableFuture<?>> futures) {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        futures.clear();
+    }
+
+    private static String collection(int i) {
+        return "loadgen-" + i;
+    }
+
+    private static String document(int i) {
+        return "doc-" + i;
+    }
+}
@@ -0,0 +1,79 @@
+package com.volandoo.fluxiondb.connection;
+
+import com.volandoo.fluxiondb.protocol.RequestIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing a response to its waiting request: read the ID out of the response envelope, look the
+ * request up and remove it, with {@code inflight} older requests still outstanding. The
+ * {@link InflightTable} the connection uses is compared with a map keyed by the ID string, which is
+ * how responses were routed before. Windows larger than the table's ring exercise its overflow map.
+ * <p>
+ * Lives in the connection package because the table is package-private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InflightRoutingBenchmark {
+
+    private static final int RING_SIZE = 8192;
+    private static final CompletableFuture<String> FUTURE = new CompletableFuture<>();
+
+    @Param({"1", "1000", "20000"})
+    public int inflight;
+
+    private InflightTable table;
+    private ConcurrentHashMap<String, InflightRequest> map;
+    private long tableNext;
+    private long mapNext;
+
+    @Setup
+    public void setUp() {
+        table = new InflightTable(RING_SIZE);
+        map = new ConcurrentHashMap<>();
+        for (int i = 0; i < inflight; i++) {
+            table.put(new InflightRequest(tableNext++, "qry", null, FUTURE));
+            map.put(Long.toString(mapNext), new InflightRequest(mapNext++, "qry", null, FUTURE));
+        }
+    }
+
+    @Benchmark
+    public InflightRequest inflightTable() {
+        long id = tableNext++;
+        table.put(new InflightRequest(id, "qry", null, FUTURE));
+        String envelope = envelope(id - inflight + 1);
+        return table.remove(RequestIdGenerator.parse(envelope, 7, envelope.indexOf('"', 7)));
+    }
+
+    @Benchmark
+    public InflightRequest stringKeyedMap() {
+        long id = mapNext++;
+        map.put(Long.toString(id), new InflightRequest(id, "qry", null, FUTURE));
+        String envelope = envelope(id - inflight + 1);
+        return map.remove(envelope.substring(7, envelope.indexOf('"', 7)));
+    }
+
+    /**
+     * The start of a response for the given request, {@code {"id":"<id>",...}}.
+     */
+    private static String envelope(long id) {
+        return "{\"id\":\"" + id + "\",\"type\":\"qry\",\"data\":\"{}\"}";
+    }
+}
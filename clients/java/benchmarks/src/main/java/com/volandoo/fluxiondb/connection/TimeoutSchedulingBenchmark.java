@@ -0,0 +1,94 @@
+package com.volandoo.fluxiondb.connection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arming and cancelling a request deadline, the common case where the response beats the timeout.
+ * The {@link HashedWheelTimer} the connection uses is compared with a ScheduledThreadPoolExecutor,
+ * both as requests used to arm deadlines (cancelled tasks stay queued until they are due) and with
+ * removal on cancel.
+ * <p>
+ * Memory is the point of the wheel: after each iteration the heap still held by the timer is printed
+ * as "retained". It stays near zero for the wheel, and grows with the request rate multiplied by
+ * {@code timeoutMs} for the executor without removal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class TimeoutSchedulingBenchmark {
+
+    private static final Runnable NOOP = () -> { };
+
+    @Param({"wheel", "executor", "executorRemoveOnCancel"})
+    public String timer;
+
+    @Param({"500"})
+    public long timeoutMs;
+
+    private ScheduledThreadPoolExecutor scheduler;
+    private HashedWheelTimer wheel;
+
+    @Setup
+    public void setUp() {
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy("executorRemoveOnCancel".equals(timer));
+        if ("wheel".equals(timer)) {
+            // The connection's wheel: 10ms ticks, 512 buckets
+            wheel = new HashedWheelTimer(scheduler, 10, 512);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+        scheduler.shutdownNow();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportRetained() {
+        // Let the wheel's next tick drop what was cancelled last
+        sleep(20);
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("retained %d KB, %d tasks queued on the executor%n", used / 1024, scheduler.getQueue().size());
+    }
+
+    @Benchmark
+    public boolean armAndCancel() {
+        if (wheel != null) {
+            return wheel.newTimeout(NOOP, timeoutMs, TimeUnit.MILLISECONDS).cancel();
+        }
+        ScheduledFuture<?> future = scheduler.schedule(NOOP, timeoutMs, TimeUnit.MILLISECONDS);
+        return future.cancel(false);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.volandoo.fluxiondb.benchmarks.loadgen;
+
+import com.volandoo.fluxiondb.FluxionDBClient;
+import com.volandoo.fluxiondb.FluxionDBClientBuilder;
+import com.volandoo.fluxiondb.FluxionDBSyncClient;
+import com.volandoo.fluxiondb.metrics.HistogramSnapshot;
+import com.volandoo.fluxiondb.metrics.LatencyHistogram;
+import com.volandoo.fluxiondb.model.requests.GetValueParams;
+import com.volandoo.fluxiondb.model.requests.InsertMessageRequest;
+import com.volandoo.fluxiondb.model.requests.SetValueParams;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares two ways of having many callers waiting on the server at once (Java 21 only).
+ * <p>
+ * <em>futures</em> issues every call from one thread through {@link FluxionDBClient} and waits for
+ * all the returned futures. <em>virtual</em> starts one virtual thread per call, each blocking in
+ * {@link FluxionDBSyncClient}. Both run the same calls over the same connections, so the difference
+ * is the cost of parking a virtual thread per caller instead of keeping a future per call. Each round
+ * prints the time until every call completed, per-call latency from when it was issued, and the
+ * peak number of platform threads.
+ */
+public final class CallerModelComparison {
+
+    private static final String COLLECTION = "caller-comparison";
+
+    private String url = "ws://localhost:8080";
+    private String apiKey = "loadgen-secret";
+    private Path server;
+    private int port = 8080;
+    private int callers = 100_000;
+    private int keys = 1000;
+    private int rounds = 5;
+    private int connections = 4;
+    private boolean insert;
+
+    public static void main(String[] args) throws Exception {
+        CallerModelComparison comparison = new CallerModelComparison();
+        try {
+            comparison.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        comparison.run();
+    }
+
+    private void run() throws Exception {
+        LocalServer local = null;
+        if (server != null) {
+            local = LocalServer.start(server, port, apiKey, null);
+            System.out.println("Started " + server + " on port " + port + ", log: " + local.getLog());
+        }
+
+        FluxionDBClient client = new FluxionDBClientBuilder()
+                .url(url)
+                .apiKey(apiKey)
+                .connectionName("caller-comparison")
+                .connectionPoolSize(connections)
+                .requestTimeout(120_000)
+                .build();
+        FluxionDBSyncClient sync = new FluxionDBSyncClient(client);
+        try {
+            sync.connect();
+            for (int i = 0; i < keys; i++) {
+                sync.setValue(new SetValueParams(COLLECTION, key(i), "value-" + i));
+            }
+
+            System.out.printf(Locale.ROOT, "%d callers of %s per round, %d connection(s), %s%n",
+                    callers, insert ? "ins" : "gval", connections, Runtime.version());
+            System.out.printf(Locale.ROOT, "%-6s %-8s %10s %12s %9s %9s %9s %9s%n",
+                    "round", "model", "total ms", "calls/s", "p50", "p99", "max", "threads");
+            for (int round = 0; round < rounds; round++) {
+                String label = round == 0 ? "warmup" : String.valueOf(round);
+                print(label, "futures", withFutures(client, round));
+                print(label, "virtual", withVirtualThreads(sync, round));
+            }
+            System.out.println("Latencies in milliseconds from when each call was issued; threads = peak "
+                    + "platform threads during the round.");
+        } finally {
+            sync.close();
+            if (local != null) {
+                local.close();
+            }
+        }
+    }
+
+    private RoundResult withFutures(FluxionDBClient client, int round) {
+        LatencyHistogram latency = new LatencyHistogram();
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[callers];
+        RoundResult result = RoundResult.start();
+        for (int i = 0; i < callers; i++) {
+            long issued = System.nanoTime();
+            CompletableFuture<?> call = insert
+                    ? client.insertSingleRecord(record(round, i))
+                    : client.getValue(new GetValueParams(COLLECTION, key(i)));
+            calls[i] = call.whenComplete((value, error) -> latency.record(System.nanoTime() - issued));
+        }
+        CompletableFuture.allOf(calls).join();
+        return result.finish(latency);
+    }
+
+    private RoundResult withVirtualThreads(FluxionDBSyncClient sync, int round) {
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong failures = new AtomicLong();
+        RoundResult result = RoundResult.start();
+        // close() waits for every caller
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                int index = i;
+                executor.execute(() -> {
+                    long issued = System.nanoTime();
+                    try {
+                        if (insert) {
+                            sync.insertSingleRecord(record(round, index));
+                        } else {
+                            sync.getValue(new GetValueParams(COLLECTION, key(index)));
+                        }
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                    latency.record(System.nanoTime() - issued);
+                });
+            }
+        }
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " virtual-thread calls failed");
+        }
+        return result.finish(latency);
+    }
+
+    private InsertMessageRequest record(int round, int index) {
+        return new InsertMessageRequest(round * (long) callers + index, key(index), "{\"v\":" + index + "}", COLLECTION);
+    }
+
+    private String key(int index) {
+        return "k" + (index % keys);
+    }
+
+    private static void print(String round, String model, RoundResult result) {
+        HistogramSnapshot latency = result.latency;
+        System.out.printf(Locale.ROOT, "%-6s %-8s %10.1f %12.0f %9.3f %9.3f %9.3f %9d%n",
+                round, model, result.elapsedNanos / 1e6, latency.getCount() / (result.elapsedNanos / 1e9),
+                latency.getPercentile(50) / 1e6, latency.getPercentile(99) / 1e6, latency.getMax() / 1e6,
+                result.peakThreads);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help") || arg.equals("-h")) {
+                throw new IllegalArgumentException(usage());
+            }
+            int equals = arg.indexOf('=');
+            String name = equals > 0 ? arg.substring(0, equals) : arg;
+            if (name.equals("--insert")) {
+                insert = true;
+                continue;
+            }
+            String value;
+            if (equals > 0) {
+                value = arg.substring(equals + 1);
+            } else if (i + 1 < args.length) {
+                value = args[++i];
+            } else {
+                throw new IllegalArgumentException("Missing value for " + name + "\n" + usage());
+            }
+            switch (name) {
+                case "--url": url = value; break;
+                case "--api-key": apiKey = value; break;
+                case "--server": server = Paths.get(value); break;
+                case "--port": port = Integer.parseInt(value); url = "ws://localhost:" + port; break;
+                case "--callers": callers = Integer.parseInt(value); break;
+                case "--keys": keys = Integer.parseInt(value); break;
+                case "--rounds": rounds = Integer.parseInt(value); break;
+                case "--connections": connections = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + name + "\n" + usage());
+            }
+        }
+    }
+
+    private static String usage() {
+        return "Usage: CallerModelComparison [options]\n"
+                + "  --url URL            server to call (default ws://localhost:8080)\n"
+                + "  --api-key KEY        API key (default loadgen-secret)\n"
+                + "  --server PATH        start this server binary on --port for the run\n"
+                + "  --port N             port of the started server (default 8080)\n"
+                + "  --callers N          concurrent calls per round and model (default 100000)\n"
+                + "  --keys N             distinct keys called (default 1000)\n"
+                + "  --rounds N           rounds, the first being warm-up (default 5)\n"
+                + "  --connections N      WebSocket connections (default 4)\n"
+                + "  --insert             insert one record per call instead of getValue";
+    }
+
+    private static final class RoundResult {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        private final long startNanos;
+        long elapsedNanos;
+        HistogramSnapshot latency;
+        int peakThreads;
+
+        private RoundResult(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        static RoundResult start() {
+            System.gc();
+            THREADS.resetPeakThreadCount();
+            return new RoundResult(System.nanoTime());
+        }
+
+        RoundResult finish(LatencyHistogram histogram) {
+            elapsedNanos = System.nanoTime() - startNanos;
+            latency = histogram.snapshot();
+            peakThreads = THREADS.getPeakThreadCount();
+            return this;
+        }
+    }
+}
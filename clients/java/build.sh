@@ -11,9 +11,24 @@ echo "Compiling source files..."
 find src/main/java -name "*.java" -print0 | \
     xargs -0 javac -d build/classes --release 11
 
+# Compile the Java 21 layer of the multi-release JAR when the JDK supports it
+if javac --release 21 -version > /dev/null 2>&1; then
+    echo "Compiling Java 21 sources..."
+    mkdir -p build/classes-21
+    find src/main/java21 -name "*.java" -print0 | \
+        xargs -0 javac -d build/classes-21 --release 21 -cp build/classes
+elif [ -n "$REQUIRE_JAVA21" ]; then
+    echo "REQUIRE_JAVA21 is set, but this JDK cannot compile src/main/java21 (needs JDK 21+)" >&2
+    exit 1
+fi
+
 # Create JAR file
 echo "Creating JAR file..."
-jar cf fluxiondb-client.jar -C build/classes .
+if [ -d build/classes-21 ]; then
+    jar --create --file fluxiondb-client.jar -C build/classes . --release 21 -C build/classes-21 .
+else
+    jar cf fluxiondb-client.jar -C build/classes .
+fi
 
 echo "Build complete: fluxiondb-client.jar"
 
@@ -1,20 +1,45 @@
 package com.volandoo.fluxiondb;
 
+import com.volandoo.fluxiondb.cache.CacheStats;
+import com.volandoo.fluxiondb.cache.KeyValueCache;
+import com.volandoo.fluxiondb.cache.KeyValueCachePolicy;
+import com.volandoo.fluxiondb.cache.LatestRecordsCache;
+import com.volandoo.fluxiondb.cache.LatestRecordsCachePolicy;
+import com.volandoo.fluxiondb.codec.PayloadCodec;
+import com.volandoo.fluxiondb.connection.ConnectionOptions;
+import com.volandoo.fluxiondb.connection.ConnectionState;
+import com.volandoo.fluxiondb.connection.ConnectionStateListener;
+import com.volandoo.fluxiondb.connection.ConnectionPool;
+import com.volandoo.fluxiondb.connection.MessageTransport;
 import com.volandoo.fluxiondb.connection.ReconnectionStrategy;
 import com.volandoo.fluxiondb.connection.WebSocketManager;
+import com.volandoo.fluxiondb.exceptions.FluxionDBException;
+import com.volandoo.fluxiondb.metrics.MetricsRecorder;
+import com.volandoo.fluxiondb.metrics.MetricsSnapshot;
 import com.volandoo.fluxiondb.model.enums.ApiKeyScope;
 import com.volandoo.fluxiondb.model.requests.*;
 import com.volandoo.fluxiondb.model.responses.ApiKeyInfo;
 import com.volandoo.fluxiondb.model.responses.ConnectionInfo;
 import com.volandoo.fluxiondb.model.responses.RecordResponse;
+import com.volandoo.fluxiondb.model.responses.TypedRecordResponse;
 import com.volandoo.fluxiondb.operations.CollectionOperations;
+import com.volandoo.fluxiondb.operations.GetValueBatchPolicy;
+import com.volandoo.fluxiondb.operations.InsertBatchPolicy;
+import com.volandoo.fluxiondb.operations.InsertBatcher;
 import com.volandoo.fluxiondb.operations.KeyValueOperations;
 import com.volandoo.fluxiondb.operations.ManagementOperations;
+import com.volandoo.fluxiondb.operations.Pipeline;
+import com.volandoo.fluxiondb.operations.SingleFlight;
 import com.volandoo.fluxiondb.operations.TimeSeriesOperations;
+import com.volandoo.fluxiondb.outbox.InsertOutbox;
+import com.volandoo.fluxiondb.outbox.OutboxPolicy;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
  * Main client for FluxionDB.
@@ -36,23 +61,72 @@ import java.util.concurrent.CompletableFuture;
  */
 public class FluxionDBClient implements AutoCloseable {
 
-    private final WebSocketManager wsManager;
+    private final MessageTransport transport;
     private final TimeSeriesOperations timeSeries;
     private final CollectionOperations collections;
     private final KeyValueOperations keyValue;
     private final ManagementOperations management;
+    private final InsertBatcher insertBatcher;
+    private final KeyValueCache keyValueCache;
+    private final LatestRecordsCache latestRecordsCache;
+    private final SingleFlight singleFlight;
+    private final InsertOutbox outbox;
+    private final MetricsRecorder metricsRecorder;
 
     /**
      * Creates a new FluxionDBClient. Use FluxionDBClientBuilder instead of calling this directly.
      */
     protected FluxionDBClient(String url, String apiKey, String connectionName,
                               long requestTimeoutMs, ReconnectionStrategy reconnectionStrategy) {
-        this.wsManager = new WebSocketManager(url, apiKey, connectionName,
-                requestTimeoutMs, reconnectionStrategy);
-        this.timeSeries = new TimeSeriesOperations(wsManager);
-        this.collections = new CollectionOperations(wsManager);
-        this.keyValue = new KeyValueOperations(wsManager);
-        this.management = new ManagementOperations(wsManager);
+        this(url, apiKey, connectionName, requestTimeoutMs, reconnectionStrategy, null, 1, ConnectionOptions.defaults(), null, null, null, null);
+    }
+
+    /**
+     * Creates a new FluxionDBClient. Use FluxionDBClientBuilder instead of calling this directly.
+     *
+     * @param insertBatchPolicy  batching limits for insertSingleRecord, or null to send each record on its own
+     * @param connectionPoolSize number of WebSocket connections to open
+     * @param connectionOptions  per-connection tuning such as the maximum message size
+     * @param keyValueCachePolicy limits for the getValue near-cache, or null to disable it
+     * @param latestRecordsCachePolicy limits for the fetchLatestRecords snapshot cache, or null to disable it
+     * @param getValueBatchPolicy limits for combining concurrent getValue calls, or null to send each on its own
+     * @param outboxPolicy       disk log for unacknowledged insert batches, or null to disable it
+     */
+    protected FluxionDBClient(String url, String apiKey, String connectionName,
+                              long requestTimeoutMs, ReconnectionStrategy reconnectionStrategy,
+                              InsertBatchPolicy insertBatchPolicy, int connectionPoolSize,
+                              ConnectionOptions connectionOptions, KeyValueCachePolicy keyValueCachePolicy,
+                              LatestRecordsCachePolicy latestRecordsCachePolicy,
+                              GetValueBatchPolicy getValueBatchPolicy, OutboxPolicy outboxPolicy) {
+        this.transport = connectionPoolSize > 1
+                ? new ConnectionPool(connectionPoolSize, url, apiKey, connectionName,
+                        requestTimeoutMs, reconnectionStrategy, connectionOptions)
+                : new WebSocketManager(url, apiKey, connectionName,
+                        requestTimeoutMs, reconnectionStrategy, connectionOptions);
+        this.metricsRecorder = connectionOptions.getMetricsListener() instanceof MetricsRecorder
+                ? (MetricsRecorder) connectionOptions.getMetricsListener()
+                : null;
+        this.keyValueCache = keyValueCachePolicy != null ? new KeyValueCache(keyValueCachePolicy) : null;
+        this.latestRecordsCache = latestRecordsCachePolicy != null
+                ? new LatestRecordsCache(latestRecordsCachePolicy)
+                : null;
+        this.outbox = outboxPolicy != null ? openOutbox(outboxPolicy, transport) : null;
+        this.singleFlight = new SingleFlight();
+        this.timeSeries = new TimeSeriesOperations(transport, latestRecordsCache, singleFlight, outbox);
+        this.collections = new CollectionOperations(transport, keyValueCache, latestRecordsCache, singleFlight);
+        this.keyValue = new KeyValueOperations(transport, keyValueCache, singleFlight, getValueBatchPolicy);
+        this.management = new ManagementOperations(transport, singleFlight);
+        this.insertBatcher = insertBatchPolicy != null
+                ? new InsertBatcher(timeSeries, transport, insertBatchPolicy)
+                : null;
+    }
+
+    private static InsertOutbox openOutbox(OutboxPolicy policy, MessageTransport transport) {
+        try {
+            return new InsertOutbox(policy, transport);
+        } catch (IOException e) {
+            throw new FluxionDBException("Failed to open outbox in " + policy.getDirectory(), e);
+        }
     }
 
     // ==================== Connection Management ====================
@@ -63,7 +137,7 @@ public class FluxionDBClient implements AutoCloseable {
      * @return CompletableFuture that completes when connection is established and authenticated
      */
     public CompletableFuture<Void> connect() {
-        return wsManager.connect();
+        return transport.connect();
     }
 
     /**
@@ -72,7 +146,81 @@ public class FluxionDBClient implements AutoCloseable {
      * @return CompletableFuture that completes when connection is closed
      */
     public CompletableFuture<Void> closeAsync() {
-        return wsManager.close();
+        flushInsertBatch();
+        if (outbox != null) {
+            return transport.close().whenComplete((v, error) -> outbox.close());
+        }
+        return transport.close();
+    }
+
+    /**
+     * Returns the state of the least healthy connection: CLOSED, then DISCONNECTED, RECONNECTING,
+     * CONNECTING, and CONNECTED only when every connection in the pool is connected.
+     *
+     * @return the client's connection state
+     */
+    public ConnectionState getConnectionState() {
+        ConnectionState worst = ConnectionState.CONNECTED;
+        for (int p = 0; p < transport.partitionCount(); p++) {
+            ConnectionState state = transport.getConnectionState(p);
+            if (severity(state) > severity(worst)) {
+                worst = state;
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Registers a listener notified whenever a connection changes state, including each reconnect.
+     * The listener runs on the connection's I/O thread and must not block.
+     *
+     * @param listener receives the connection's index in the pool and its previous and new state
+     */
+    public void addConnectionStateListener(ConnectionStateListener listener) {
+        transport.addConnectionStateListener(listener);
+    }
+
+    /**
+     * Returns the heartbeat round trip time, smoothed per connection and averaged over the
+     * connections that have answered a ping.
+     *
+     * @return round trip time in nanoseconds, or 0 before the first pong or with heartbeats disabled
+     */
+    public long getRoundTripTimeNanos() {
+        long total = 0;
+        int sampled = 0;
+        for (int p = 0; p < transport.partitionCount(); p++) {
+            long rtt = transport.getRoundTripTimeNanos(p);
+            if (rtt > 0) {
+                total += rtt;
+                sampled++;
+            }
+        }
+        return sampled == 0 ? 0 : total / sampled;
+    }
+
+    /**
+     * Returns latency histograms per message type and request counters, for scraping.
+     *
+     * @return current metrics, or null unless the client was built with {@code metrics()}
+     */
+    public MetricsSnapshot getMetrics() {
+        return metricsRecorder != null ? metricsRecorder.snapshot() : null;
+    }
+
+    private static int severity(ConnectionState state) {
+        switch (state) {
+            case CONNECTED:
+                return 0;
+            case CONNECTING:
+                return 1;
+            case RECONNECTING:
+                return 2;
+            case DISCONNECTED:
+                return 3;
+            default:
+                return 4;
+        }
     }
 
     /**
@@ -81,7 +229,7 @@ public class FluxionDBClient implements AutoCloseable {
      * @param name the connection name
      */
     public void setConnectionName(String name) {
-        wsManager.setConnectionName(name);
+        transport.setConnectionName(name);
     }
 
     /**
@@ -90,21 +238,39 @@ public class FluxionDBClient implements AutoCloseable {
      */
     @Override
     public void close() throws Exception {
-        wsManager.shutdown();
+        flushInsertBatch();
+        transport.shutdown();
+        if (outbox != null) {
+            outbox.close();
+        }
     }
 
     // ==================== Time Series Operations ====================
 
     /**
      * Inserts a single time series record.
+     * When insert batching is enabled, the record is coalesced with concurrent inserts into one request.
      *
      * @param request the insert request
      * @return CompletableFuture that completes when insert is acknowledged
      */
     public CompletableFuture<Void> insertSingleRecord(InsertMessageRequest request) {
+        if (insertBatcher != null) {
+            return insertBatcher.add(request);
+        }
         return timeSeries.insertSingleRecord(request);
     }
 
+    /**
+     * Sends any single-record inserts still waiting in the open batch.
+     * Does nothing when insert batching is disabled.
+     */
+    public void flushInsertBatch() {
+        if (insertBatcher != null) {
+            insertBatcher.flush();
+        }
+    }
+
     /**
      * Inserts multiple time series records in a single request.
      *
@@ -115,8 +281,24 @@ public class FluxionDBClient implements AutoCloseable {
         return timeSeries.insertMultipleRecords(requests);
     }
 
+    /**
+     * Inserts multiple time series records in a single request, with each record's data written
+     * by the codec straight into the request rather than built as a String first.
+     * Once acknowledged, they drop the snapshot cache's entries for their collections.
+     *
+     * @param requests list of typed insert requests
+     * @param codec    writes each record's data, e.g. {@link com.volandoo.fluxiondb.codec.NumericMapCodec#INSTANCE}
+     * @return CompletableFuture that completes when inserts are acknowledged
+     */
+    public <T> CompletableFuture<Void> insertMultipleRecords(List<TypedInsertRequest<T>> requests,
+                                                             PayloadCodec<T> codec) {
+        return timeSeries.insertMultipleRecords(requests, codec);
+    }
+
     /**
      * Fetches the latest record per document.
+     * When the snapshot cache is enabled, a recent result for the same query is returned without
+     * contacting the server.
      *
      * @param params fetch parameters (supports regex patterns)
      * @return CompletableFuture with map of document IDs to latest records
@@ -125,6 +307,24 @@ public class FluxionDBClient implements AutoCloseable {
         return timeSeries.fetchLatestRecords(params);
     }
 
+    /**
+     * Returns hit, miss and size counters of the fetchLatestRecords snapshot cache.
+     *
+     * @return cache statistics, or null if the cache is not enabled
+     */
+    public CacheStats getLatestRecordsCacheStats() {
+        return latestRecordsCache != null ? latestRecordsCache.stats() : null;
+    }
+
+    /**
+     * Returns the number of insert batches in the outbox that the server has not acknowledged yet.
+     *
+     * @return pending batch count, or 0 if the outbox is not enabled
+     */
+    public int getOutboxPendingCount() {
+        return outbox != null ? outbox.getPendingCount() : 0;
+    }
+
     /**
      * Fetches all records for a document within a time range.
      *
@@ -135,6 +335,44 @@ public class FluxionDBClient implements AutoCloseable {
         return timeSeries.fetchDocument(params);
     }
 
+    /**
+     * Fetches all records for a document within a time range, decoding each record's data with
+     * the codec straight from the response.
+     *
+     * @param params fetch parameters
+     * @param codec  reads each record's data
+     * @return CompletableFuture with list of records
+     */
+    public <T> CompletableFuture<List<TypedRecordResponse<T>>> fetchDocument(FetchRecordsParams params,
+                                                                            PayloadCodec<T> codec) {
+        return timeSeries.fetchDocument(params, codec);
+    }
+
+    /**
+     * Streams all records for a document within a time range, fetching them page by page.
+     * The params' limit sets the page size (default 1000) rather than a total; reverse walks the
+     * range from newest to oldest. The next page is prefetched while the current one is consumed,
+     * so memory stays bounded however long the range is.
+     *
+     * @param params fetch parameters
+     * @return publisher that emits records as the subscriber requests them
+     */
+    public Flow.Publisher<RecordResponse> fetchDocumentStream(FetchRecordsParams params) {
+        return timeSeries.fetchDocumentStream(params);
+    }
+
+    /**
+     * Iterates over all records for a document within a time range, fetching them page by page.
+     * Page size and ordering follow {@link #fetchDocumentStream(FetchRecordsParams)}.
+     * {@code hasNext()} blocks while the next page is loading.
+     *
+     * @param params fetch parameters
+     * @return iterator over the records
+     */
+    public Iterator<RecordResponse> fetchDocumentIterator(FetchRecordsParams params) {
+        return timeSeries.fetchDocumentIterator(params);
+    }
+
     /**
      * Deletes all records for a document.
      *
@@ -175,6 +413,16 @@ public class FluxionDBClient implements AutoCloseable {
         return timeSeries.deleteRecordsRange(params);
     }
 
+    /**
+     * Creates a pipeline that queues time series and key-value operations and sends them together
+     * when flushed. Insert batching does not apply to records queued in a pipeline.
+     *
+     * @return a new, empty pipeline
+     */
+    public Pipeline pipeline() {
+        return new Pipeline(transport, keyValueCache, latestRecordsCache, singleFlight);
+    }
+
     // ==================== Collection Operations ====================
 
     /**
@@ -210,6 +458,8 @@ public class FluxionDBClient implements AutoCloseable {
 
     /**
      * Gets a value by key from a collection.
+     * When the key-value cache is enabled, a cached value is returned without contacting the server.
+     * When getValue batching is enabled, concurrent calls on one collection share a single request.
      *
      * @param params get value parameters
      * @return CompletableFuture with the value
@@ -218,6 +468,19 @@ public class FluxionDBClient implements AutoCloseable {
         return keyValue.getValue(params);
     }
 
+    /**
+     * Gets a value by key from a collection, decoded with the codec.
+     * Without the key-value cache or getValue batching, the value is decoded straight from the
+     * response; otherwise it goes through them like {@link #getValue(GetValueParams)}.
+     *
+     * @param params get value parameters
+     * @param codec  reads the value
+     * @return CompletableFuture with the value, or null if the key has none
+     */
+    public <T> CompletableFuture<T> getValue(GetValueParams params, PayloadCodec<T> codec) {
+        return keyValue.getValue(params, codec);
+    }
+
     /**
      * Gets multiple values, optionally filtered by regex pattern.
      *
@@ -248,6 +511,24 @@ public class FluxionDBClient implements AutoCloseable {
         return keyValue.deleteValue(params);
     }
 
+    /**
+     * Returns hit, miss and size counters of the key-value cache.
+     *
+     * @return cache statistics, or null if the cache is not enabled
+     */
+    public CacheStats getKeyValueCacheStats() {
+        return keyValueCache != null ? keyValueCache.stats() : null;
+    }
+
+    /**
+     * Drops all entries from the key-value cache, for example after another client changed values.
+     */
+    public void invalidateKeyValueCache() {
+        if (keyValueCache != null) {
+            keyValueCache.invalidateAll();
+        }
+    }
+
     // ==================== Management Operations ====================
 
     /**
@@ -1,6 +1,18 @@
 package com.volandoo.fluxiondb;
 
+import com.volandoo.fluxiondb.cache.KeyValueCachePolicy;
+import com.volandoo.fluxiondb.cache.LatestRecordsCachePolicy;
+import com.volandoo.fluxiondb.connection.BackoffPolicy;
+import com.volandoo.fluxiondb.connection.ConnectionOptions;
 import com.volandoo.fluxiondb.connection.ReconnectionStrategy;
+import com.volandoo.fluxiondb.metrics.MetricsListener;
+import com.volandoo.fluxiondb.metrics.MetricsRecorder;
+import com.volandoo.fluxiondb.operations.GetValueBatchPolicy;
+import com.volandoo.fluxiondb.operations.InsertBatchPolicy;
+import com.volandoo.fluxiondb.outbox.FsyncPolicy;
+import com.volandoo.fluxiondb.outbox.OutboxPolicy;
+
+import java.nio.file.Path;
 
 /**
  * Builder for creating FluxionDBClient instances with fluent configuration.
@@ -12,7 +24,15 @@ public class FluxionDBClientBuilder {
     private String connectionName;
     private int maxReconnectAttempts = 5;
     private long reconnectIntervalMs = 5000;
+    private BackoffPolicy reconnectBackoff;
     private long requestTimeoutMs = 30000;
+    private InsertBatchPolicy insertBatchPolicy;
+    private int connectionPoolSize = 1;
+    private final ConnectionOptions.Builder connectionOptions = ConnectionOptions.builder();
+    private KeyValueCachePolicy keyValueCachePolicy;
+    private LatestRecordsCachePolicy latestRecordsCachePolicy;
+    private GetValueBatchPolicy getValueBatchPolicy;
+    private OutboxPolicy outboxPolicy;
 
     public FluxionDBClientBuilder() {
     }
@@ -62,7 +82,8 @@ public class FluxionDBClientBuilder {
     }
 
     /**
-     * Sets the base reconnection interval in milliseconds.
+     * Sets the base reconnection interval in milliseconds. Unless {@link #reconnectBackoff} is set,
+     * attempts are spaced by decorrelated jitter from this interval up to 60 seconds.
      *
      * @param reconnectIntervalMs interval in milliseconds (default: 5000)
      * @return this builder
@@ -72,6 +93,68 @@ public class FluxionDBClientBuilder {
         return this;
     }
 
+    /**
+     * Sets how reconnection attempts are spaced, replacing the default jittered backoff.
+     *
+     * @param backoffPolicy for example {@code BackoffPolicy.exponential(500, 30000)}
+     * @return this builder
+     */
+    public FluxionDBClientBuilder reconnectBackoff(BackoffPolicy backoffPolicy) {
+        this.reconnectBackoff = backoffPolicy;
+        return this;
+    }
+
+    /**
+     * Sets how often each connection is pinged, and how long it may go without a pong or any other
+     * message before it is treated as dead and replaced. Pings keep idle connections inside the
+     * server's 120 second idle timeout and measure the round trip time.
+     *
+     * @param intervalMs ping interval (default: 30000; 0 disables heartbeats)
+     * @param timeoutMs  time to wait for the pong (default: 10000)
+     * @return this builder
+     */
+    public FluxionDBClientBuilder heartbeat(long intervalMs, long timeoutMs) {
+        this.connectionOptions.heartbeat(intervalMs, timeoutMs);
+        return this;
+    }
+
+    /**
+     * Records per-message-type latency histograms and request counters, read with
+     * {@link FluxionDBClient#getMetrics()}. Disabled by default.
+     *
+     * @return this builder
+     */
+    public FluxionDBClientBuilder metrics() {
+        return metricsListener(new MetricsRecorder());
+    }
+
+    /**
+     * Sends per-request measurements to a listener, for example an adapter to a metrics library.
+     * Replaces {@link #metrics()}; {@link FluxionDBClient#getMetrics()} reads the listener only if it is
+     * a {@link MetricsRecorder}.
+     *
+     * @param listener receives the measurements; must be thread-safe and must not block
+     * @return this builder
+     */
+    public FluxionDBClientBuilder metricsListener(MetricsListener listener) {
+        this.connectionOptions.metricsListener(listener);
+        return this;
+    }
+
+    /**
+     * Fails requests immediately, rather than holding them, once this many consecutive connection
+     * attempts have failed. Attempts continue in the background, and one that succeeds closes the
+     * breaker. Disabled by default.
+     *
+     * @param failureThreshold consecutive failed connection attempts that open the breaker
+     * @param openMs           how long requests fail fast before the next attempt is let through
+     * @return this builder
+     */
+    public FluxionDBClientBuilder circuitBreaker(int failureThreshold, long openMs) {
+        this.connectionOptions.circuitBreaker(failureThreshold, openMs);
+        return this;
+    }
+
     /**
      * Sets the request timeout in milliseconds.
      *
@@ -83,6 +166,133 @@ public class FluxionDBClientBuilder {
         return this;
     }
 
+    /**
+     * Enables coalescing of concurrent insertSingleRecord calls into one insert request.
+     * A batch is sent after {@code lingerMs}, or earlier once it holds {@code maxRecords}
+     * records or about {@code maxBytes} of payload. Disabled by default.
+     *
+     * @param lingerMs   how long the first record of a batch may wait for others
+     * @param maxRecords maximum records per batch
+     * @param maxBytes   approximate maximum payload size per batch
+     * @return this builder
+     */
+    public FluxionDBClientBuilder insertBatching(long lingerMs, int maxRecords, int maxBytes) {
+        this.insertBatchPolicy = new InsertBatchPolicy(lingerMs, maxRecords, maxBytes);
+        return this;
+    }
+
+    /**
+     * Sets the number of WebSocket connections to open.
+     * With more than one, writes are routed by document so per-document order is kept,
+     * and reads go to the least loaded connection. connect() succeeds once any connection is
+     * ready; the others keep connecting in the background.
+     *
+     * @param connectionPoolSize number of connections (default: 1)
+     * @return this builder
+     */
+    public FluxionDBClientBuilder connectionPoolSize(int connectionPoolSize) {
+        if (connectionPoolSize < 1) {
+            throw new IllegalArgumentException("connectionPoolSize must be >= 1");
+        }
+        this.connectionPoolSize = connectionPoolSize;
+        return this;
+    }
+
+    /**
+     * Sets the largest response, in characters, the client will accept.
+     * Requests whose response is larger fail instead of buffering it.
+     *
+     * @param maxMessageChars maximum response size (default: 16M, the server's frame limit)
+     * @return this builder
+     */
+    public FluxionDBClientBuilder maxMessageSize(int maxMessageChars) {
+        this.connectionOptions.maxMessageChars(maxMessageChars);
+        return this;
+    }
+
+    /**
+     * Sets how many requests each connection holds while it reconnects. Further requests fail
+     * immediately with a ConnectionException until the connection is back.
+     *
+     * @param maxPendingRequests requests to hold per connection (default: 1000; 0 disables holding)
+     * @return this builder
+     */
+    public FluxionDBClientBuilder maxPendingRequests(int maxPendingRequests) {
+        this.connectionOptions.maxPendingRequests(maxPendingRequests);
+        return this;
+    }
+
+    /**
+     * Enables a client-side cache for getValue. Values written or deleted through this client
+     * update the cache immediately; changes made by other clients are seen once entries expire.
+     * Disabled by default.
+     *
+     * @param ttlMs                 how long a cached value may be served
+     * @param maxBytesPerCollection approximate memory budget per collection; least recently used keys are evicted
+     * @return this builder
+     */
+    public FluxionDBClientBuilder keyValueCache(long ttlMs, long maxBytesPerCollection) {
+        this.keyValueCachePolicy = new KeyValueCachePolicy(ttlMs, maxBytesPerCollection);
+        return this;
+    }
+
+    /**
+     * Enables a short-lived cache of fetchLatestRecords results, for dashboards that poll the
+     * same query. Inserts made through this client patch cached snapshots; deletes drop them.
+     * Disabled by default.
+     *
+     * @param maxStalenessMs how long a snapshot may be served after it was fetched
+     * @param maxEntries     maximum number of distinct queries cached
+     * @return this builder
+     */
+    public FluxionDBClientBuilder latestRecordsCache(long maxStalenessMs, int maxEntries) {
+        this.latestRecordsCachePolicy = new LatestRecordsCachePolicy(maxStalenessMs, maxEntries);
+        return this;
+    }
+
+    /**
+     * Enables combining concurrent getValue calls on the same collection into one "gvalues"
+     * request that matches all their keys. The server evaluates that request against every key
+     * in the collection, so this pays off for small collections such as configuration or feature
+     * flags. Disabled by default.
+     *
+     * @param lingerMs how long the first key of a batch may wait for others
+     * @param maxKeys  maximum distinct keys per request
+     * @return this builder
+     */
+    public FluxionDBClientBuilder getValueBatching(long lingerMs, int maxKeys) {
+        this.getValueBatchPolicy = new GetValueBatchPolicy(lingerMs, maxKeys);
+        return this;
+    }
+
+    /**
+     * Enables a disk-backed outbox for inserts. Each insert batch is appended to memory-mapped
+     * segment files in {@code directory} before it is sent; batches that fail because the connection
+     * dropped are replayed in order once it is re-established, including by a later process opening
+     * the same directory. Disabled by default.
+     *
+     * @param directory    where segment files are kept; one client per directory
+     * @param maxDiskBytes inserts fail once unacknowledged batches would need more than this
+     * @param fsyncPolicy  when appended batches are forced to the storage device
+     * @return this builder
+     */
+    public FluxionDBClientBuilder outbox(Path directory, long maxDiskBytes, FsyncPolicy fsyncPolicy) {
+        this.outboxPolicy = new OutboxPolicy(directory, maxDiskBytes, fsyncPolicy);
+        return this;
+    }
+
+    /**
+     * Enables the disk-backed outbox with full control over segment size, fsync interval and
+     * timeout resends.
+     *
+     * @param policy outbox settings
+     * @return this builder
+     */
+    public FluxionDBClientBuilder outbox(OutboxPolicy policy) {
+        this.outboxPolicy = policy;
+        return this;
+    }
+
     /**
      * Builds the FluxionDBClient instance.
      *
@@ -97,15 +307,36 @@ public class FluxionDBClientBuilder {
             throw new IllegalArgumentException("API key is required");
         }
 
+        BackoffPolicy backoff = reconnectBackoff != null
+                ? reconnectBackoff
+                : BackoffPolicy.decorrelatedJitter(reconnectIntervalMs,
+                        Math.max(reconnectIntervalMs, ReconnectionStrategy.MAX_DELAY_MS));
         ReconnectionStrategy reconnectionStrategy =
-                new ReconnectionStrategy(maxReconnectAttempts, reconnectIntervalMs);
+                new ReconnectionStrategy(maxReconnectAttempts, reconnectIntervalMs, backoff);
 
         return new FluxionDBClient(
                 url,
                 apiKey,
                 connectionName,
                 requestTimeoutMs,
-                reconnectionStrategy
+                reconnectionStrategy,
+                insertBatchPolicy,
+                connectionPoolSize,
+                connectionOptions.build(),
+                keyValueCachePolicy,
+                latestRecordsCachePolicy,
+                getValueBatchPolicy,
+                outboxPolicy
         );
     }
+
+    /**
+     * Builds a blocking client around a new FluxionDBClient.
+     *
+     * @return configured FluxionDBSyncClient
+     * @throws IllegalArgumentException if required parameters are missing
+     */
+    public FluxionDBSyncClient buildSync() {
+        return new FluxionDBSyncClient(build());
+    }
 }
@@ -0,0 +1,216 @@
+package com.volandoo.fluxiondb;
+
+import com.volandoo.fluxiondb.codec.PayloadCodec;
+import com.volandoo.fluxiondb.exceptions.FluxionDBException;
+import com.volandoo.fluxiondb.model.enums.ApiKeyScope;
+import com.volandoo.fluxiondb.model.requests.*;
+import com.volandoo.fluxiondb.model.responses.ApiKeyInfo;
+import com.volandoo.fluxiondb.model.responses.ConnectionInfo;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+import com.volandoo.fluxiondb.model.responses.TypedRecordResponse;
+import com.volandoo.fluxiondb.operations.Pipeline;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Blocking facade over {@link FluxionDBClient}.
+ * <p>
+ * Each method waits for the corresponding async call and rethrows its failure as the original
+ * {@link FluxionDBException} (or other unchecked exception) instead of an ExecutionException.
+ * Waiting parks the calling thread without holding a monitor, so on Java 21 many virtual threads
+ * can block in this client at once without pinning their carrier threads.
+ * <p>
+ * Example usage:
+ * <pre>
+ * try (FluxionDBSyncClient client = new FluxionDBClientBuilder()
+ *         .url("ws://localhost:8080")
+ *         .apiKey("YOUR_SECRET_KEY")
+ *         .buildSync()) {
+ *     client.connect();
+ *     client.insertSingleRecord(record);
+ *     List&lt;String&gt; collections = client.fetchCollections();
+ * }
+ * </pre>
+ */
+public class FluxionDBSyncClient implements AutoCloseable {
+
+    private final FluxionDBClient client;
+
+    /**
+     * Wraps an async client. Closing this client closes the wrapped one.
+     */
+    public FluxionDBSyncClient(FluxionDBClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Returns the underlying async client.
+     */
+    public FluxionDBClient async() {
+        return client;
+    }
+
+    // ==================== Connection Management ====================
+
+    /**
+     * Establishes WebSocket connection and authenticates with the server.
+     */
+    public void connect() {
+        await(client.connect());
+    }
+
+    /**
+     * Sets an optional connection name for identification.
+     *
+     * @param name the connection name
+     */
+    public void setConnectionName(String name) {
+        client.setConnectionName(name);
+    }
+
+    /**
+     * Closes the WebSocket connection. Blocks until connection is fully closed.
+     */
+    @Override
+    public void close() {
+        try {
+            client.close();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FluxionDBException("Failed to close client", e);
+        }
+    }
+
+    // ==================== Time Series Operations ====================
+
+    public void insertSingleRecord(InsertMessageRequest request) {
+        await(client.insertSingleRecord(request));
+    }
+
+    public void insertMultipleRecords(List<InsertMessageRequest> requests) {
+        await(client.insertMultipleRecords(requests));
+    }
+
+    public <T> void insertMultipleRecords(List<TypedInsertRequest<T>> requests, PayloadCodec<T> codec) {
+        await(client.insertMultipleRecords(requests, codec));
+    }
+
+    public Map<String, RecordResponse> fetchLatestRecords(FetchLatestRecordsParams params) {
+        return await(client.fetchLatestRecords(params));
+    }
+
+    public List<RecordResponse> fetchDocument(FetchRecordsParams params) {
+        return await(client.fetchDocument(params));
+    }
+
+    public <T> List<TypedRecordResponse<T>> fetchDocument(FetchRecordsParams params, PayloadCodec<T> codec) {
+        return await(client.fetchDocument(params, codec));
+    }
+
+    /**
+     * Iterates over a document's records page by page; see {@link FluxionDBClient#fetchDocumentIterator}.
+     */
+    public Iterator<RecordResponse> fetchDocumentIterator(FetchRecordsParams params) {
+        return client.fetchDocumentIterator(params);
+    }
+
+    public void deleteDocument(DeleteDocumentParams params) {
+        await(client.deleteDocument(params));
+    }
+
+    public void deleteRecord(DeleteRecord params) {
+        await(client.deleteRecord(params));
+    }
+
+    public void deleteMultipleRecords(List<DeleteRecord> records) {
+        await(client.deleteMultipleRecords(records));
+    }
+
+    public void deleteRecordsRange(DeleteRecordsRange params) {
+        await(client.deleteRecordsRange(params));
+    }
+
+    /**
+     * Creates a pipeline; queue operations on it and call {@link Pipeline#sync()} to send and wait.
+     */
+    public Pipeline pipeline() {
+        return client.pipeline();
+    }
+
+    // ==================== Collection Operations ====================
+
+    public List<String> fetchCollections() {
+        return await(client.fetchCollections());
+    }
+
+    public void deleteCollection(DeleteCollectionParams params) {
+        await(client.deleteCollection(params));
+    }
+
+    // ==================== Key-Value Operations ====================
+
+    public void setValue(SetValueParams params) {
+        await(client.setValue(params));
+    }
+
+    public String getValue(GetValueParams params) {
+        return await(client.getValue(params));
+    }
+
+    public <T> T getValue(GetValueParams params, PayloadCodec<T> codec) {
+        return await(client.getValue(params, codec));
+    }
+
+    public Map<String, String> getValues(GetValuesParams params) {
+        return await(client.getValues(params));
+    }
+
+    public List<String> getKeys(CollectionParam params) {
+        return await(client.getKeys(params));
+    }
+
+    public void deleteValue(DeleteValueParams params) {
+        await(client.deleteValue(params));
+    }
+
+    // ==================== Management Operations ====================
+
+    public List<ConnectionInfo> getConnections() {
+        return await(client.getConnections());
+    }
+
+    public String addApiKey(String key, ApiKeyScope scope) {
+        return await(client.addApiKey(key, scope));
+    }
+
+    public String removeApiKey(String key) {
+        return await(client.removeApiKey(key));
+    }
+
+    public List<ApiKeyInfo> listApiKeys() {
+        return await(client.listApiKeys());
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new FluxionDBException(cause != null ? cause : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FluxionDBException("Interrupted while waiting for response", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.volandoo.fluxiondb.cache;
+
+/**
+ * Point-in-time counters for a client-side cache.
+ */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long entryCount;
+    private final long sizeBytes;
+
+    public CacheStats(long hits, long misses, long evictions, long entryCount, long sizeBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entryCount = entryCount;
+        this.sizeBytes = sizeBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries removed to stay within the size budget.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the estimated memory held by cached keys and values.
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Returns hits divided by lookups, or 0 if there were none.
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", entryCount=" + entryCount +
+                ", sizeBytes=" + sizeBytes +
+                '}';
+    }
+}
@@ -0,0 +1,246 @@
+package com.volandoo.fluxiondb.cache;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded near-cache for key-value reads, split into one segment per collection.
+ * <p>
+ * Reads that miss are loaded from the server and filled with {@link #putIfCurrent}. Each segment
+ * keeps a generation that every local write or invalidation bumps; a load records the generation
+ * when it starts and its fill is dropped if a write happened in the meantime, so a slow response
+ * cannot overwrite a newer value. Writes from other clients are only picked up once entries expire.
+ * <p>
+ * Lookups take no lock: a hit only marks its entry as referenced. Fills, expiry and eviction take
+ * the segment's lock. Eviction approximates LRU with the CLOCK algorithm: entries queue in the order
+ * they were stored, and one that was read since it was last passed over goes back to the end of the
+ * queue instead of being evicted.
+ */
+public final class KeyValueCache {
+
+    // Rough per-entry overhead of the map node, entry object and two String headers
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final long ttlNanos;
+    private final long maxBytesPerCollection;
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public KeyValueCache(KeyValueCachePolicy policy) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(policy.getTtlMs());
+        this.maxBytesPerCollection = policy.getMaxBytesPerCollection();
+    }
+
+    /**
+     * Returns the cached value, or null on a miss. Missing keys are cached as "", as the server returns them.
+     */
+    public String get(String col, String key) {
+        Segment segment = segments.get(col);
+        String value = segment != null ? segment.get(key, System.nanoTime()) : null;
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the token to pass to {@link #putIfCurrent} when the load started by this miss completes.
+     */
+    public long generation(String col) {
+        return segment(col).generation;
+    }
+
+    /**
+     * Caches a loaded value unless the collection was written or invalidated since {@code generation}.
+     */
+    public void putIfCurrent(String col, String key, String value, long generation) {
+        segment(col).put(key, value, generation);
+    }
+
+    /**
+     * Caches a value written by this client.
+     */
+    public void put(String col, String key, String value) {
+        Segment segment = segment(col);
+        segment.put(key, value, segment.invalidate(key));
+    }
+
+    /**
+     * Drops a key and rejects fills from loads already in flight.
+     */
+    public void invalidate(String col, String key) {
+        segment(col).invalidate(key);
+    }
+
+    /**
+     * Drops every key of a collection and rejects fills from loads already in flight.
+     */
+    public void invalidateCollection(String col) {
+        segment(col).clear();
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments.values()) {
+            segment.clear();
+        }
+    }
+
+    public CacheStats stats() {
+        long entries = 0;
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            segment.lock.lock();
+            try {
+                entries += segment.entries.size();
+                bytes += segment.bytes;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries, bytes);
+    }
+
+    private Segment segment(String col) {
+        return segments.computeIfAbsent(col, c -> new Segment());
+    }
+
+    private static final class Entry {
+        final String key;
+        final String value;
+        final long expiresAtNanos;
+        final long bytes;
+        // Set by lock-free reads; a lost or late update only blurs the eviction order
+        boolean referenced;
+
+        Entry(String key, String value, long expiresAtNanos, long bytes) {
+            this.key = key;
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * One collection's entries, with the queue eviction walks; entries are only changed under the lock.
+     */
+    private final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+        // Also holds entries replaced or removed since they were queued, which eviction skips
+        final ArrayDeque<Entry> clock = new ArrayDeque<>();
+        volatile long generation;
+        long bytes;
+
+        String get(String key, long now) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expiresAtNanos >= 0) {
+                lock.lock();
+                try {
+                    remove(entry);
+                } finally {
+                    lock.unlock();
+                }
+                return null;
+            }
+            if (!entry.referenced) {
+                // Only written once per pass, so readers of a hot key do not keep invalidating its cache line
+                entry.referenced = true;
+            }
+            return entry.value;
+        }
+
+        void put(String key, String value, long expectedGeneration) {
+            long size = 2L * (key.length() + value.length()) + ENTRY_OVERHEAD_BYTES;
+            if (size > maxBytesPerCollection) {
+                return;
+            }
+            Entry entry = new Entry(key, value, System.nanoTime() + ttlNanos, size);
+            lock.lock();
+            try {
+                if (generation != expectedGeneration) {
+                    return;
+                }
+                Entry previous = entries.put(key, entry);
+                bytes += size - (previous != null ? previous.bytes : 0);
+                clock.addLast(entry);
+                evictOverBudget();
+                if (clock.size() > 2 * entries.size() + 16) {
+                    clock.removeIf(queued -> !isCurrent(queued));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Removes the key and returns the new generation.
+         */
+        long invalidate(String key) {
+            lock.lock();
+            try {
+                Entry removed = entries.get(key);
+                if (removed != null) {
+                    remove(removed);
+                }
+                return ++generation;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                entries.clear();
+                clock.clear();
+                bytes = 0;
+                generation++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isCurrent(Entry entry) {
+            return entries.get(entry.key) == entry;
+        }
+
+        private void remove(Entry entry) {
+            if (entries.remove(entry.key, entry)) {
+                bytes -= entry.bytes;
+            }
+        }
+
+        private void evictOverBudget() {
+            // Bounds the second chances, so keys read again on every pass cannot keep eviction going
+            int chances = clock.size();
+            while (bytes > maxBytesPerCollection) {
+                Entry entry = clock.pollFirst();
+                if (entry == null) {
+                    break;
+                }
+                if (!isCurrent(entry)) {
+                    continue;
+                }
+                if (entry.referenced && chances-- > 0) {
+                    entry.referenced = false;
+                    clock.addLast(entry);
+                    continue;
+                }
+                remove(entry);
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.volandoo.fluxiondb.cache;
+
+/**
+ * Limits for the client-side key-value cache. Entries expire {@code ttlMs} after they were
+ * loaded or written, and each collection holds roughly {@code maxBytesPerCollection} of keys
+ * and values before roughly the least recently used entries are evicted.
+ */
+public final class KeyValueCachePolicy {
+
+    private final long ttlMs;
+    private final long maxBytesPerCollection;
+
+    public KeyValueCachePolicy(long ttlMs, long maxBytesPerCollection) {
+        if (ttlMs < 1) {
+            throw new IllegalArgumentException("ttlMs must be >= 1");
+        }
+        if (maxBytesPerCollection < 1) {
+            throw new IllegalArgumentException("maxBytesPerCollection must be >= 1");
+        }
+
+        this.ttlMs = ttlMs;
+        this.maxBytesPerCollection = maxBytesPerCollection;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public long getMaxBytesPerCollection() {
+        return maxBytesPerCollection;
+    }
+
+    @Override
+    public String toString() {
+        return "KeyValueCachePolicy{ttlMs=" + ttlMs + ", maxBytesPerCollection=" + maxBytesPerCollection + "}";
+    }
+}
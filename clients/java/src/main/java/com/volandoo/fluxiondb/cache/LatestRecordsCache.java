@@ -0,0 +1,289 @@
+package com.volandoo.fluxiondb.cache;
+
+import com.volandoo.fluxiondb.model.requests.FetchLatestRecordsParams;
+import com.volandoo.fluxiondb.model.requests.InsertMessageRequest;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Short-lived cache of fetchLatestRecords snapshots, keyed by every query parameter except ts.
+ * <p>
+ * The server returns, per document, the latest record at or before ts. A snapshot answers any ts
+ * at or after its newest record. Polling clients pass the current time, so that covers every later
+ * poll within the staleness window; records that arrived in between are the staleness being
+ * accepted. For an earlier ts that no record in the snapshot is newer than, the result is exact.
+ * Only the snapshot with the latest query ts is kept per query.
+ * <p>
+ * Inserts acknowledged for this client patch snapshots whose result they would change: a newer
+ * record replaces the document's entry. An insert dated after the query ts thereby narrows the
+ * snapshot to queries at or after the insert's ts, since an earlier one would not return it.
+ * Snapshots that select documents by regex or filter by where/filter cannot be patched reliably
+ * and are dropped instead, as are all snapshots of a collection this client deletes from. A
+ * per-collection generation keeps a query that raced a write from storing a snapshot that misses it.
+ */
+public final class LatestRecordsCache {
+
+    private final long maxStalenessNanos;
+    private final int maxEntries;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<SnapshotKey, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> generations = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LatestRecordsCache(LatestRecordsCachePolicy policy) {
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(policy.getMaxStalenessMs());
+        this.maxEntries = policy.getMaxEntries();
+    }
+
+    /**
+     * Returns a copy of a snapshot that answers these params, or null on a miss.
+     */
+    public Map<String, RecordResponse> get(FetchLatestRecordsParams params) {
+        SnapshotKey key = new SnapshotKey(params);
+        Map<String, RecordResponse> records = null;
+        lock.lock();
+        try {
+            Snapshot snapshot = snapshots.get(key);
+            if (snapshot != null) {
+                if (System.nanoTime() - snapshot.fetchedAtNanos >= maxStalenessNanos) {
+                    snapshots.remove(key);
+                } else if (snapshot.newestTs <= params.getTs()) {
+                    records = snapshot.records;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (records == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        // Snapshots are never modified once published, so the copy can be taken outside the lock
+        return new HashMap<>(records);
+    }
+
+    /**
+     * Returns the token to pass to {@link #putIfCurrent} once the query started by this miss completes.
+     */
+    public long generation(String col) {
+        lock.lock();
+        try {
+            return generations.getOrDefault(col, 0L);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a fetched snapshot unless this client wrote to the collection since {@code generation}.
+     */
+    public void putIfCurrent(FetchLatestRecordsParams params, Map<String, RecordResponse> records, long generation) {
+        Map<String, RecordResponse> copy = Collections.unmodifiableMap(new HashMap<>(records));
+        long now = System.nanoTime();
+        Snapshot snapshot = new Snapshot(copy, params.getTs(), newestTs(copy), now);
+        SnapshotKey key = new SnapshotKey(params);
+        lock.lock();
+        try {
+            if (generations.getOrDefault(params.getCol(), 0L) != generation) {
+                return;
+            }
+            Snapshot existing = snapshots.get(key);
+            if (existing != null && existing.queryTs > snapshot.queryTs
+                    && now - existing.fetchedAtNanos < maxStalenessNanos) {
+                return; // Keep the fresher view for pollers; this was a look into the past
+            }
+            snapshots.put(key, snapshot);
+            Iterator<Snapshot> eldest = snapshots.values().iterator();
+            while (snapshots.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies acknowledged inserts to the cached snapshots of their collections.
+     */
+    public void onInserted(List<InsertMessageRequest> inserts) {
+        lock.lock();
+        try {
+            for (InsertMessageRequest insert : inserts) {
+                generations.merge(insert.getCol(), 1L, Long::sum);
+            }
+            if (snapshots.isEmpty()) {
+                return;
+            }
+            // Patching replaces values, which does not count as access in an access-ordered map
+            for (Map.Entry<SnapshotKey, Snapshot> entry : snapshots.entrySet()) {
+                SnapshotKey key = entry.getKey();
+                Snapshot snapshot = entry.getValue();
+                for (InsertMessageRequest insert : inserts) {
+                    if (!key.col.equals(insert.getCol())) {
+                        continue;
+                    }
+                    if (!key.isPatchable()) {
+                        snapshot = null;
+                        break;
+                    }
+                    snapshot = patch(key, snapshot, insert);
+                }
+                entry.setValue(snapshot);
+            }
+            snapshots.values().removeIf(Objects::isNull);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every snapshot of a collection and rejects queries already in flight for it.
+     */
+    public void invalidateCollection(String col) {
+        lock.lock();
+        try {
+            generations.merge(col, 1L, Long::sum);
+            snapshots.keySet().removeIf(key -> key.col.equals(col));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generations.replaceAll((col, generation) -> generation + 1);
+            snapshots.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        long entries;
+        long bytes = 0;
+        lock.lock();
+        try {
+            entries = snapshots.size();
+            for (Snapshot snapshot : snapshots.values()) {
+                for (Map.Entry<String, RecordResponse> record : snapshot.records.entrySet()) {
+                    String data = record.getValue().getData();
+                    bytes += 2L * (record.getKey().length() + (data != null ? data.length() : 0)) + 96;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries, bytes);
+    }
+
+    private static Snapshot patch(SnapshotKey key, Snapshot snapshot, InsertMessageRequest insert) {
+        if (key.doc != null && !key.doc.equals(insert.getDoc())) {
+            return snapshot;
+        }
+        if (key.from != 0 && insert.getTs() < key.from) {
+            return snapshot;
+        }
+        RecordResponse current = snapshot.records.get(insert.getDoc());
+        if (current != null && current.getTs() > insert.getTs()) {
+            return snapshot;
+        }
+
+        Map<String, RecordResponse> records = new HashMap<>(snapshot.records);
+        records.put(insert.getDoc(), new RecordResponse(insert.getTs(), insert.getData()));
+        return new Snapshot(Collections.unmodifiableMap(records), snapshot.queryTs,
+                Math.max(snapshot.newestTs, insert.getTs()), snapshot.fetchedAtNanos);
+    }
+
+    private static long newestTs(Map<String, RecordResponse> records) {
+        long newest = Long.MIN_VALUE;
+        for (RecordResponse record : records.values()) {
+            newest = Math.max(newest, record.getTs());
+        }
+        return newest;
+    }
+
+    private static final class Snapshot {
+        final Map<String, RecordResponse> records;
+        final long queryTs;
+        final long newestTs;
+        final long fetchedAtNanos;
+
+        Snapshot(Map<String, RecordResponse> records, long queryTs, long newestTs, long fetchedAtNanos) {
+            this.records = records;
+            this.queryTs = queryTs;
+            this.newestTs = newestTs;
+            this.fetchedAtNanos = fetchedAtNanos;
+        }
+    }
+
+    /**
+     * Query parameters other than ts, normalized the way the server reads them.
+     */
+    private static final class SnapshotKey {
+        final String col;
+        final String doc;
+        final long from;
+        final String where;
+        final String filter;
+        private final int hash;
+
+        SnapshotKey(FetchLatestRecordsParams params) {
+            this.col = params.getCol();
+            this.doc = emptyToNull(params.getDoc());
+            this.from = params.getFrom() != null ? params.getFrom() : 0;
+            this.where = emptyToNull(params.getWhere());
+            this.filter = emptyToNull(params.getFilter());
+            this.hash = Objects.hash(col, doc, from, where, filter);
+        }
+
+        /**
+         * True if an insert's effect on this query can be computed locally.
+         */
+        boolean isPatchable() {
+            return where == null && filter == null && (doc == null || !isRegex(doc));
+        }
+
+        private static boolean isRegex(String value) {
+            return value.length() >= 2 && value.charAt(0) == '/' && value.lastIndexOf('/') > 0;
+        }
+
+        private static String emptyToNull(String value) {
+            return value == null || value.isEmpty() ? null : value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SnapshotKey)) return false;
+            SnapshotKey that = (SnapshotKey) o;
+            return from == that.from
+                    && col.equals(that.col)
+                    && Objects.equals(doc, that.doc)
+                    && Objects.equals(where, that.where)
+                    && Objects.equals(filter, that.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.volandoo.fluxiondb.cache;
+
+/**
+ * Limits for caching fetchLatestRecords results. A snapshot is served for up to
+ * {@code maxStalenessMs} after it was fetched, and at most {@code maxEntries} distinct
+ * queries are kept, least recently used first out.
+ */
+public final class LatestRecordsCachePolicy {
+
+    private final long maxStalenessMs;
+    private final int maxEntries;
+
+    public LatestRecordsCachePolicy(long maxStalenessMs, int maxEntries) {
+        if (maxStalenessMs < 1) {
+            throw new IllegalArgumentException("maxStalenessMs must be >= 1");
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be >= 1");
+        }
+
+        this.maxStalenessMs = maxStalenessMs;
+        this.maxEntries = maxEntries;
+    }
+
+    public long getMaxStalenessMs() {
+        return maxStalenessMs;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public String toString() {
+        return "LatestRecordsCachePolicy{maxStalenessMs=" + maxStalenessMs + ", maxEntries=" + maxEntries + "}";
+    }
+}
@@ -0,0 +1,48 @@
+package com.volandoo.fluxiondb.codec;
+
+import com.volandoo.fluxiondb.json.JsonReader;
+import com.volandoo.fluxiondb.json.JsonWriter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Codec for flat objects of numbers, such as {@code {"temperature":21.5,"humidity":40}}.
+ * Integral values are written without a fraction; a null or non-finite value, or a value that is
+ * not a number when decoding, is rejected with an IllegalArgumentException.
+ */
+public final class NumericMapCodec implements PayloadCodec<Map<String, Double>> {
+
+    public static final NumericMapCodec INSTANCE = new NumericMapCodec();
+
+    private NumericMapCodec() {
+    }
+
+    @Override
+    public void encode(Map<String, Double> value, JsonWriter out) {
+        out.beginObject();
+        for (Map.Entry<String, Double> entry : value.entrySet()) {
+            Double number = entry.getValue();
+            if (number == null) {
+                throw new IllegalArgumentException("Expected number for key: " + entry.getKey());
+            }
+            out.name(entry.getKey()).value(number.doubleValue());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Map<String, Double> decode(JsonReader in) {
+        Map<String, Double> result = new HashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() != JsonReader.Token.NUMBER) {
+                throw new IllegalArgumentException("Expected number for key: " + name);
+            }
+            result.put(name, in.nextDouble());
+        }
+        in.endObject();
+        return result;
+    }
+}
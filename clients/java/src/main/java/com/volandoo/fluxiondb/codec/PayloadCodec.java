@@ -0,0 +1,29 @@
+package com.volandoo.fluxiondb.codec;
+
+import com.volandoo.fluxiondb.json.JsonReader;
+import com.volandoo.fluxiondb.json.JsonWriter;
+
+/**
+ * Converts typed record data and key-value values to and from their JSON text.
+ * <p>
+ * Record data and values travel as JSON strings holding a document of their own. The typed
+ * operations hand the codec the request's writer, positioned inside that string, and a reader over
+ * the response's characters, so no intermediate String is built for the payload on either side.
+ * <p>
+ * Implementations are called concurrently and should be stateless.
+ *
+ * @param <T> the payload type
+ */
+public interface PayloadCodec<T> {
+
+    /**
+     * Writes {@code value} as a single JSON value. The writer escapes its output for the enclosing
+     * string itself, so the codec writes plain JSON.
+     */
+    void encode(T value, JsonWriter out);
+
+    /**
+     * Reads a single JSON value, written by {@link #encode}, from the reader's current position.
+     */
+    T decode(JsonReader in);
+}
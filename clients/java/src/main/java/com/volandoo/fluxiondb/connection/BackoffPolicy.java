@@ -0,0 +1,63 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses how long to wait before each reconnection attempt.
+ * <p>
+ * A fleet of clients that lost the same server reconnects in lockstep unless the delays are
+ * randomized, so {@link #decorrelatedJitter(long, long)} is the usual choice when many clients share
+ * a server.
+ */
+@FunctionalInterface
+public interface BackoffPolicy {
+
+    /**
+     * @param attempt         the reconnection attempt, starting at 1
+     * @param previousDelayMs the delay returned for the previous attempt, or 0 before the first
+     * @return the delay before this attempt, in milliseconds
+     */
+    long delayMs(int attempt, long previousDelayMs);
+
+    /**
+     * Waits {@code baseMs * attempt}, up to {@code capMs}.
+     */
+    static BackoffPolicy linear(long baseMs, long capMs) {
+        checkBounds(baseMs, capMs);
+        return (attempt, previousDelayMs) ->
+                baseMs == 0 || attempt >= capMs / baseMs ? capMs : baseMs * attempt;
+    }
+
+    /**
+     * Doubles the delay on each attempt, starting from {@code baseMs} and up to {@code capMs}.
+     */
+    static BackoffPolicy exponential(long baseMs, long capMs) {
+        checkBounds(baseMs, capMs);
+        return (attempt, previousDelayMs) -> {
+            int shift = Math.min(Math.max(attempt - 1, 0), 62);
+            return baseMs > (capMs >> shift) ? capMs : baseMs << shift;
+        };
+    }
+
+    /**
+     * Picks a random delay between {@code baseMs} and three times the previous delay, up to
+     * {@code capMs}. Delays grow roughly exponentially but spread clients apart from the first retry.
+     */
+    static BackoffPolicy decorrelatedJitter(long baseMs, long capMs) {
+        checkBounds(baseMs, capMs);
+        return (attempt, previousDelayMs) -> {
+            long previous = Math.max(previousDelayMs, baseMs);
+            long upper = previous > capMs / 3 ? capMs : previous * 3;
+            return upper <= baseMs ? baseMs : ThreadLocalRandom.current().nextLong(baseMs, upper + 1);
+        };
+    }
+
+    private static void checkBounds(long baseMs, long capMs) {
+        if (baseMs < 0) {
+            throw new IllegalArgumentException("baseMs must be non-negative");
+        }
+        if (capMs < baseMs) {
+            throw new IllegalArgumentException("capMs must be >= baseMs");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.volandoo.fluxiondb.connection;
+
+import com.volandoo.fluxiondb.exceptions.CircuitOpenException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts consecutive failed connection attempts and opens once they reach a threshold.
+ * <p>
+ * While open, requests fail immediately instead of waiting for a connection. Reconnection attempts
+ * continue in the background; once the open period has passed the next attempt is let through, and
+ * its failure reopens the breaker while its success closes it.
+ */
+final class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openUntilNanos;
+
+    CircuitBreaker(int failureThreshold, long openMs) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+    }
+
+    /**
+     * Records a failed connection attempt.
+     *
+     * @return true if the breaker is open afterwards
+     */
+    boolean recordFailure() {
+        if (consecutiveFailures.incrementAndGet() < failureThreshold) {
+            return false;
+        }
+        openUntilNanos = System.nanoTime() + openNanos;
+        return true;
+    }
+
+    void recordSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    boolean isOpen() {
+        return consecutiveFailures.get() >= failureThreshold && openUntilNanos - System.nanoTime() > 0;
+    }
+
+    CircuitOpenException openException() {
+        long retryAfterMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(openUntilNanos - System.nanoTime()));
+        return new CircuitOpenException("Server unreachable after " + consecutiveFailures.get()
+                + " connection attempts; failing fast for another " + retryAfterMs + "ms", retryAfterMs);
+    }
+}
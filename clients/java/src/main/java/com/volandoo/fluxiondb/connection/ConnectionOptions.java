@@ -0,0 +1,183 @@
+package com.volandoo.fluxiondb.connection;
+
+import com.volandoo.fluxiondb.metrics.MetricsListener;
+
+/**
+ * Tuning options for a WebSocket connection beyond URL, credentials and timeouts.
+ */
+public final class ConnectionOptions {
+
+    /**
+     * Matches the server's maxPayloadLength of 16MB.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_CHARS = 16 * 1024 * 1024;
+
+    public static final int DEFAULT_MAX_PENDING_REQUESTS = 1000;
+
+    /**
+     * Well inside the server's 120 second idle timeout.
+     */
+    public static final long DEFAULT_HEARTBEAT_INTERVAL_MS = 30000;
+
+    public static final long DEFAULT_HEARTBEAT_TIMEOUT_MS = 10000;
+
+    private final int maxMessageChars;
+    private final int maxPendingRequests;
+    private final int circuitBreakerThreshold;
+    private final long circuitBreakerOpenMs;
+    private final long heartbeatIntervalMs;
+    private final long heartbeatTimeoutMs;
+    private final MetricsListener metricsListener;
+
+    private ConnectionOptions(Builder builder) {
+        this.maxMessageChars = builder.maxMessageChars;
+        this.maxPendingRequests = builder.maxPendingRequests;
+        this.circuitBreakerThreshold = builder.circuitBreakerThreshold;
+        this.circuitBreakerOpenMs = builder.circuitBreakerOpenMs;
+        this.heartbeatIntervalMs = builder.heartbeatIntervalMs;
+        this.heartbeatTimeoutMs = builder.heartbeatTimeoutMs;
+        this.metricsListener = builder.metricsListener;
+    }
+
+    public static ConnectionOptions defaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * Returns the largest response, in characters, the client accepts before failing the request.
+     */
+    public int getMaxMessageChars() {
+        return maxMessageChars;
+    }
+
+    /**
+     * Returns how many requests are held while reconnecting before further ones fail immediately.
+     */
+    public int getMaxPendingRequests() {
+        return maxPendingRequests;
+    }
+
+    /**
+     * Returns the number of consecutive failed connection attempts that opens the circuit breaker,
+     * or 0 if it is disabled.
+     */
+    public int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    /**
+     * Returns how long an open circuit breaker fails requests before letting an attempt through.
+     */
+    public long getCircuitBreakerOpenMs() {
+        return circuitBreakerOpenMs;
+    }
+
+    /**
+     * Returns how often an authenticated socket is pinged, or 0 if heartbeats are disabled.
+     */
+    public long getHeartbeatIntervalMs() {
+        return heartbeatIntervalMs;
+    }
+
+    /**
+     * Returns how long a socket may go without a pong, or any other message, before it is
+     * considered dead and replaced.
+     */
+    public long getHeartbeatTimeoutMs() {
+        return heartbeatTimeoutMs;
+    }
+
+    /**
+     * Returns the listener that receives per-request measurements, or null if none is set.
+     */
+    public MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int maxMessageChars = DEFAULT_MAX_MESSAGE_CHARS;
+        private int maxPendingRequests = DEFAULT_MAX_PENDING_REQUESTS;
+        private int circuitBreakerThreshold;
+        private long circuitBreakerOpenMs;
+        private long heartbeatIntervalMs = DEFAULT_HEARTBEAT_INTERVAL_MS;
+        private long heartbeatTimeoutMs = DEFAULT_HEARTBEAT_TIMEOUT_MS;
+        private MetricsListener metricsListener;
+
+        public Builder maxMessageChars(int maxMessageChars) {
+            if (maxMessageChars < 1) {
+                throw new IllegalArgumentException("maxMessageChars must be >= 1");
+            }
+            this.maxMessageChars = maxMessageChars;
+            return this;
+        }
+
+        /**
+         * @param maxPendingRequests requests to hold while reconnecting; 0 fails them immediately
+         */
+        public Builder maxPendingRequests(int maxPendingRequests) {
+            if (maxPendingRequests < 0) {
+                throw new IllegalArgumentException("maxPendingRequests must be >= 0");
+            }
+            this.maxPendingRequests = maxPendingRequests;
+            return this;
+        }
+
+        /**
+         * @param failureThreshold consecutive failed connection attempts that open the breaker
+         * @param openMs           how long requests fail fast before the next attempt is let through
+         */
+        public Builder circuitBreaker(int failureThreshold, long openMs) {
+            if (failureThreshold < 1) {
+                throw new IllegalArgumentException("failureThreshold must be >= 1");
+            }
+            if (openMs < 1) {
+                throw new IllegalArgumentException("openMs must be >= 1");
+            }
+            this.circuitBreakerThreshold = failureThreshold;
+            this.circuitBreakerOpenMs = openMs;
+            return this;
+        }
+
+        /**
+         * @param intervalMs how often to ping each socket; 0 disables heartbeats
+         * @param timeoutMs  how long to wait for the pong before replacing the socket
+         */
+        public Builder heartbeat(long intervalMs, long timeoutMs) {
+            if (intervalMs < 0) {
+                throw new IllegalArgumentException("intervalMs must be >= 0");
+            }
+            if (intervalMs > 0 && timeoutMs < 1) {
+                throw new IllegalArgumentException("timeoutMs must be >= 1");
+            }
+            this.heartbeatIntervalMs = intervalMs;
+            this.heartbeatTimeoutMs = timeoutMs;
+            return this;
+        }
+
+        public Builder metricsListener(MetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
+        public ConnectionOptions build() {
+            return new ConnectionOptions(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionOptions{" +
+                "maxMessageChars=" + maxMessageChars +
+                ", maxPendingRequests=" + maxPendingRequests +
+                ", circuitBreakerThreshold=" + circuitBreakerThreshold +
+                ", circuitBreakerOpenMs=" + circuitBreakerOpenMs +
+                ", heartbeatIntervalMs=" + heartbeatIntervalMs +
+                ", heartbeatTimeoutMs=" + heartbeatTimeoutMs +
+                ", metricsListener=" + metricsListener +
+                '}';
+    }
+}
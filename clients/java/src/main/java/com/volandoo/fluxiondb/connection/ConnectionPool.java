@@ -0,0 +1,210 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transport that spreads traffic over several independent WebSocket connections.
+ * <p>
+ * Writes are routed by hash(col, doc) so all writes for one document travel over the same socket
+ * and keep their order. Reads go to the connected socket with the fewest outstanding requests, so a
+ * large response on one socket does not hold up the others. Each socket reconnects on its own, and
+ * the pool is usable as soon as one socket is. All sockets share one scheduler thread and one
+ * deadline wheel. Collection-wide operations such as deleting a collection are not ordered against
+ * writes that are still in flight on other sockets.
+ */
+public class ConnectionPool implements MessageTransport {
+
+    /**
+     * A socket of the pool.
+     */
+    interface Member extends MessageTransport {
+
+        boolean isConnected();
+
+        /**
+         * Returns the number of requests waiting on this socket.
+         */
+        int getLoad();
+
+        /**
+         * Keeps connecting in the background after {@link #connect()} failed.
+         */
+        void retryConnect();
+    }
+
+    private final Member[] managers;
+    private final ScheduledExecutorService scheduler;
+    private final HashedWheelTimer timeoutWheel;
+
+    public ConnectionPool(int size, String url, String apiKey, String connectionName,
+                          long requestTimeoutMs, ReconnectionStrategy reconnectionStrategy) {
+        this(size, url, apiKey, connectionName, requestTimeoutMs, reconnectionStrategy, ConnectionOptions.defaults());
+    }
+
+    public ConnectionPool(int size, String url, String apiKey, String connectionName,
+                          long requestTimeoutMs, ReconnectionStrategy reconnectionStrategy,
+                          ConnectionOptions options) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be >= 1");
+        }
+
+        this.scheduler = WebSocketManager.newScheduler();
+        this.timeoutWheel = WebSocketManager.newTimeoutWheel(scheduler);
+        this.managers = new Member[size];
+        for (int i = 0; i < size; i++) {
+            managers[i] = new WebSocketManager(url, apiKey, connectionName, requestTimeoutMs, reconnectionStrategy,
+                    options, scheduler, timeoutWheel);
+        }
+    }
+
+    /**
+     * Creates a pool over the given sockets.
+     */
+    ConnectionPool(Member[] managers) {
+        this.scheduler = WebSocketManager.newScheduler();
+        this.timeoutWheel = WebSocketManager.newTimeoutWheel(scheduler);
+        this.managers = managers;
+    }
+
+    /**
+     * Connects every socket and completes as soon as one is ready. Sockets whose first connect
+     * fails then keep trying in the background; the future fails only if every socket fails.
+     */
+    @Override
+    public CompletableFuture<Void> connect() {
+        CompletableFuture<Void> anyReady = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (Member manager : managers) {
+            manager.connect().whenComplete((v, error) -> {
+                if (error == null) {
+                    anyReady.complete(null);
+                } else if (failures.incrementAndGet() == managers.length) {
+                    anyReady.completeExceptionally(error);
+                } else {
+                    // Not before another socket is ready, so a pool that cannot connect at all stops trying
+                    anyReady.thenRun(manager::retryConnect);
+                }
+            });
+        }
+        return anyReady;
+    }
+
+    @Override
+    public CompletableFuture<Void> close() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[managers.length];
+        for (int i = 0; i < managers.length; i++) {
+            futures[i] = managers[i].close();
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    @Override
+    public void shutdown() {
+        timeoutWheel.stop();
+        scheduler.shutdown();
+        for (Member manager : managers) {
+            manager.shutdown();
+        }
+    }
+
+    @Override
+    public void setConnectionName(String name) {
+        for (Member manager : managers) {
+            manager.setConnectionName(name);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> send(String type, String data) {
+        return leastLoaded().send(type, data);
+    }
+
+    @Override
+    public CompletableFuture<String> send(String type, String data, long timeoutMs) {
+        return leastLoaded().send(type, data, timeoutMs);
+    }
+
+    @Override
+    public CompletableFuture<String> send(int partition, String type, String data) {
+        return managers[partition].send(type, data);
+    }
+
+    @Override
+    public CompletableFuture<String> send(int partition, String type, String data, long timeoutMs) {
+        return managers[partition].send(type, data, timeoutMs);
+    }
+
+    @Override
+    public void sendAll(int partition, List<QueuedRequest> requests) {
+        managers[partition].sendAll(partition, requests);
+    }
+
+    @Override
+    public ConnectionState getConnectionState(int partition) {
+        return managers[partition].getConnectionState(0);
+    }
+
+    @Override
+    public void addConnectionStateListener(ConnectionStateListener listener) {
+        for (int i = 0; i < managers.length; i++) {
+            int partition = i;
+            managers[i].addConnectionStateListener(
+                    (p, previous, current) -> listener.onStateChanged(partition, previous, current));
+        }
+    }
+
+    @Override
+    public long getRoundTripTimeNanos(int partition) {
+        return managers[partition].getRoundTripTimeNanos(0);
+    }
+
+    @Override
+    public int partitionCount() {
+        return managers.length;
+    }
+
+    @Override
+    public int partitionFor(String col, String doc) {
+        int hash = 31 * (col != null ? col.hashCode() : 0) + (doc != null ? doc.hashCode() : 0);
+        // Spread the low bits so similar keys do not cluster on one socket
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, managers.length);
+    }
+
+    /**
+     * Runs a task on the scheduler thread the pool's sockets share.
+     */
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduler.schedule(task, delay, unit);
+    }
+
+    /**
+     * Returns the managers backing this pool, indexed by partition.
+     */
+    public WebSocketManager getManager(int partition) {
+        return (WebSocketManager) managers[partition];
+    }
+
+    private Member leastLoaded() {
+        Member best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (Member manager : managers) {
+            if (!manager.isConnected()) {
+                continue;
+            }
+            int load = manager.getLoad();
+            if (load < bestLoad) {
+                best = manager;
+                bestLoad = load;
+            }
+        }
+        // Nothing connected: let the first socket drive the reconnect
+        return best != null ? best : managers[0];
+    }
+}
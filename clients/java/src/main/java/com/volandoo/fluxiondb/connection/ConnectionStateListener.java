@@ -0,0 +1,15 @@
+package com.volandoo.fluxiondb.connection;
+
+/**
+ * Receives a partition's connection state changes.
+ * <p>
+ * Called on the thread that caused the change, usually the socket's listener thread, so it must not
+ * block. It runs without the connection's locks held, so sends from other threads go ahead meanwhile.
+ * By the time {@link ConnectionState#CONNECTED} is reported, the requests held while the partition
+ * was reconnecting have been written, and anything the listener sends follows them.
+ */
+@FunctionalInterface
+public interface ConnectionStateListener {
+
+    void onStateChanged(int partition, ConnectionState previous, ConnectionState current);
+}
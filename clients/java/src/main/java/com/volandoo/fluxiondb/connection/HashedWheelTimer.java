@@ -0,0 +1,245 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Hashed timing wheel for request deadlines.
+ * <p>
+ * Scheduling and cancelling only push onto lock-free queues; a single periodic tick on the
+ * owning scheduler moves new timeouts into their bucket, unlinks cancelled ones and fires the
+ * ones that expired. Cancelled timeouts are dropped on the next tick, so memory stays
+ * proportional to the number of requests actually in flight rather than to the request rate
+ * multiplied by the timeout.
+ */
+public final class HashedWheelTimer {
+
+    // Upper bound on new timeouts moved into the wheel per tick, so one tick cannot stall
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final long startNanos;
+    private final ScheduledFuture<?> ticker;
+
+    private long processedTick;
+
+    /**
+     * Creates a wheel ticking on the given scheduler.
+     *
+     * @param scheduler  scheduler that runs the tick task; expired tasks also run on it
+     * @param tickMs     tick duration in milliseconds (the timer's resolution)
+     * @param wheelSize  number of buckets, rounded up to a power of two
+     */
+    public HashedWheelTimer(ScheduledExecutorService scheduler, long tickMs, int wheelSize) {
+        if (tickMs < 1) {
+            throw new IllegalArgumentException("tickMs must be >= 1");
+        }
+        if (wheelSize < 1 || wheelSize > (1 << 20)) {
+            throw new IllegalArgumentException("wheelSize must be between 1 and 2^20");
+        }
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.ticker = scheduler.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules a task to run once after the given delay.
+     *
+     * @return handle that can cancel the task before it fires
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startNanos + unit.toNanos(delay);
+        Timeout timeout = new Timeout(this, task, deadline);
+        activeCount.incrementAndGet();
+        pending.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * Returns the number of timeouts that are scheduled and neither fired nor cancelled.
+     */
+    public int activeCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Stops ticking. Timeouts that have not fired are discarded.
+     */
+    public void stop() {
+        ticker.cancel(false);
+    }
+
+    private void tick() {
+        long now = System.nanoTime() - startNanos;
+        long currentTick = now / tickNanos;
+
+        removeCancelled();
+        transferPending();
+
+        while (processedTick <= currentTick) {
+            wheel[(int) (processedTick & mask)].expire(processedTick);
+            processedTick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != Timeout.ST_INIT) {
+                continue; // Cancelled before it reached the wheel
+            }
+
+            // A bucket already expired would hold the timeout for a full revolution. processedTick, not
+            // the current tick, is the first one left: it runs ahead when two ticks land in one period
+            long targetTick = Math.max(timeout.deadlineNanos / tickNanos, processedTick);
+            timeout.targetTick = targetTick;
+            wheel[(int) (targetTick & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Handle for a scheduled task.
+     */
+    public static final class Timeout {
+
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile int state = ST_INIT;
+
+        // Owned by the tick thread
+        private long targetTick;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadlineNanos) {
+            this.timer = timer;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancels the task if it has not fired yet.
+         *
+         * @return true if this call cancelled the task
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            timer.activeCount.decrementAndGet();
+            timer.cancelled.offer(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            timer.activeCount.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                System.err.println("Error running timeout task: " + t.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Doubly-linked list of timeouts hashed to one slot; only touched by the tick thread.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long tick) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.targetTick <= tick) {
+                    remove(timeout);
+                    timeout.expire();
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+    }
+}
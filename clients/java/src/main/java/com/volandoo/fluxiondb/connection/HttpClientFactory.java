@@ -0,0 +1,23 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.net.http.HttpClient;
+
+/**
+ * Creates the HttpClient that carries a manager's WebSocket connections.
+ * <p>
+ * On Java 21 and later the multi-release jar replaces this class with one that runs the
+ * client's callbacks on virtual threads.
+ */
+final class HttpClientFactory {
+
+    HttpClient newHttpClient() {
+        return HttpClient.newHttpClient();
+    }
+
+    /**
+     * Releases what the created clients run on. Nothing to do here: the default executor's threads
+     * exit once idle.
+     */
+    void shutdown() {
+    }
+}
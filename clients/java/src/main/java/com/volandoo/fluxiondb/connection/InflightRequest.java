@@ -0,0 +1,48 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request waiting for its response, together with its deadline on the timing wheel.
+ * The type and payload are kept so a read can be sent again after the connection drops.
+ */
+final class InflightRequest {
+
+    final long id;
+    final String type;
+    final String data;
+    final CompletableFuture<String> future;
+    volatile HashedWheelTimer.Timeout timeout;
+    volatile long deadlineNanos;
+    volatile long sentNanos;
+
+    InflightRequest(long id, String type, String data, CompletableFuture<String> future) {
+        this.id = id;
+        this.type = type;
+        this.data = data;
+        this.future = future;
+    }
+
+    /**
+     * Cancels the deadline and completes the request with the response.
+     */
+    void complete(String response) {
+        cancelTimeout();
+        future.complete(response);
+    }
+
+    /**
+     * Cancels the deadline and fails the request.
+     */
+    void fail(Throwable error) {
+        cancelTimeout();
+        future.completeExceptionally(error);
+    }
+
+    void cancelTimeout() {
+        HashedWheelTimer.Timeout t = timeout;
+        if (t != null) {
+            t.cancel();
+        }
+    }
+}
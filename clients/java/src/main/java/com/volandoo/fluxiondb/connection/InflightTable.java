@@ -0,0 +1,92 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Table of requests waiting for a response, keyed by their numeric ID.
+ * <p>
+ * IDs on one connection increase monotonically, so a request lives in the ring slot
+ * {@code id & mask} and lookups need neither hashing nor boxing. Only when the slot is still held
+ * by an older request that has not been answered (more than {@code capacity} requests apart) does
+ * the request spill into an overflow map.
+ */
+final class InflightTable {
+
+    private final AtomicReferenceArray<InflightRequest> slots;
+    private final int mask;
+    private final ConcurrentHashMap<Long, InflightRequest> overflow = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param capacity number of ring slots, rounded up to a power of two
+     */
+    InflightTable(int capacity) {
+        int slotCount = 1;
+        while (slotCount < capacity) {
+            slotCount <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.mask = slotCount - 1;
+    }
+
+    void put(InflightRequest request) {
+        size.incrementAndGet();
+        if (!slots.compareAndSet(index(request.id), null, request)) {
+            overflow.put(request.id, request);
+        }
+    }
+
+    /**
+     * Removes and returns the request with the given ID, or null if it is not (or no longer) waiting.
+     */
+    InflightRequest remove(long id) {
+        if (id < 0) {
+            return null;
+        }
+        int index = index(id);
+        InflightRequest request = slots.get(index);
+        if (request != null && request.id == id && slots.compareAndSet(index, request, null)) {
+            size.decrementAndGet();
+            return request;
+        }
+        if (!overflow.isEmpty()) {
+            request = overflow.remove(id);
+            if (request != null) {
+                size.decrementAndGet();
+                return request;
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Removes every request and hands it to the consumer.
+     */
+    void drain(Consumer<InflightRequest> consumer) {
+        for (int i = 0; i < slots.length(); i++) {
+            InflightRequest request = slots.getAndSet(i, null);
+            if (request != null) {
+                size.decrementAndGet();
+                consumer.accept(request);
+            }
+        }
+        for (Long id : overflow.keySet()) {
+            InflightRequest request = overflow.remove(id);
+            if (request != null) {
+                size.decrementAndGet();
+                consumer.accept(request);
+            }
+        }
+    }
+
+    private int index(long id) {
+        return (int) (id & mask);
+    }
+}
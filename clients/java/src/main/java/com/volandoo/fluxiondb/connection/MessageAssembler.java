@@ -0,0 +1,162 @@
+package com.volandoo.fluxiondb.connection;
+
+import com.volandoo.fluxiondb.protocol.RequestIdGenerator;
+
+/**
+ * Reassembles WebSocket text frames into complete messages for one socket.
+ * <p>
+ * A message that arrives in a single frame is passed through without copying. Fragmented messages
+ * are collected into a reusable buffer and copied out exactly once. Buffers that had to grow past
+ * {@code retainChars} for an occasional huge response are released afterwards, so the socket's
+ * footprint returns to normal. Messages longer than {@code maxMessageChars} are discarded as they
+ * stream in and reported with the request ID read from the first frame.
+ */
+final class MessageAssembler {
+
+    /**
+     * Receives assembled messages.
+     */
+    interface Handler {
+        void onMessage(String message);
+
+        /**
+         * Called once the last frame of an oversized message has been discarded.
+         *
+         * @param requestId the ID of the request the message answered, or -1 if unknown
+         * @param length    the total message length in characters
+         */
+        void onOversizedMessage(long requestId, long length);
+    }
+
+    private static final int INITIAL_CHARS = 8 * 1024;
+    private static final int DEFAULT_RETAIN_CHARS = 256 * 1024;
+    private static final String ID_PREFIX = "{\"id\":\"";
+
+    private final int maxMessageChars;
+    private final int retainChars;
+    private final Handler handler;
+
+    private char[] buffer;
+    private int length;
+    private long discarded;
+    private long requestId = -1;
+    private boolean oversized;
+
+    MessageAssembler(int maxMessageChars, Handler handler) {
+        this(maxMessageChars, DEFAULT_RETAIN_CHARS, handler);
+    }
+
+    MessageAssembler(int maxMessageChars, int retainChars, Handler handler) {
+        this.maxMessageChars = maxMessageChars;
+        this.retainChars = retainChars;
+        this.handler = handler;
+    }
+
+    /**
+     * Feeds one frame. The handler is invoked when the frame completes a message.
+     */
+    void onFrame(CharSequence data, boolean last) {
+        if (oversized) {
+            discarded += data.length();
+            if (last) {
+                finishOversized();
+            }
+            return;
+        }
+
+        boolean first = length == 0;
+        if (first && last && data.length() <= maxMessageChars) {
+            handler.onMessage(data.toString());
+            return;
+        }
+        if (first) {
+            requestId = sniffRequestId(data);
+        }
+
+        if ((long) length + data.length() > maxMessageChars) {
+            oversized = true;
+            discarded = (long) length + data.length();
+            release();
+            if (last) {
+                finishOversized();
+            }
+            return;
+        }
+
+        append(data);
+        if (last) {
+            String message = new String(buffer, 0, length);
+            release();
+            handler.onMessage(message);
+        }
+    }
+
+    /**
+     * Returns the capacity of the buffer kept for the next fragmented message, or 0 if none is kept.
+     */
+    int retainedChars() {
+        return buffer != null ? buffer.length : 0;
+    }
+
+    private void append(CharSequence data) {
+        int needed = length + data.length();
+        if (buffer == null || needed > buffer.length) {
+            int capacity = buffer == null ? INITIAL_CHARS : buffer.length;
+            while (capacity < needed) {
+                capacity = (int) Math.min((long) capacity * 2, maxMessageChars);
+            }
+            char[] grown = new char[capacity];
+            if (length > 0) {
+                System.arraycopy(buffer, 0, grown, 0, length);
+            }
+            buffer = grown;
+        }
+
+        if (data instanceof String) {
+            ((String) data).getChars(0, data.length(), buffer, length);
+        } else {
+            for (int i = 0; i < data.length(); i++) {
+                buffer[length + i] = data.charAt(i);
+            }
+        }
+        length = needed;
+    }
+
+    /**
+     * Resets for the next message, dropping the buffer if it grew past the retention limit.
+     */
+    private void release() {
+        length = 0;
+        if (buffer != null && buffer.length > retainChars) {
+            buffer = null;
+        }
+    }
+
+    private void finishOversized() {
+        long total = discarded;
+        oversized = false;
+        discarded = 0;
+        handler.onOversizedMessage(requestId, total);
+    }
+
+    /**
+     * Reads the request ID from the start of a response; the server always writes it first.
+     */
+    private static long sniffRequestId(CharSequence data) {
+        int start = ID_PREFIX.length();
+        int available = data.length();
+        if (available <= start) {
+            return -1;
+        }
+        for (int i = 0; i < start; i++) {
+            if (data.charAt(i) != ID_PREFIX.charAt(i)) {
+                return -1;
+            }
+        }
+        int end = start;
+        while (end < available && data.charAt(end) != '"') {
+            end++;
+        }
+        return end < available ? RequestIdGenerator.parse(data, start, end) : -1;
+    }
+}
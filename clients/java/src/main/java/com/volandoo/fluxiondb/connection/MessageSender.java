@@ -0,0 +1,51 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The part of a transport the operation classes use: sending requests, routing writes and
+ * scheduling. Connection management is left to {@link MessageTransport}.
+ * <p>
+ * Requests go to one of {@link #partitionCount()} partitions. Writes that touch a document are sent
+ * to {@link #partitionFor(String, String)} so they stay ordered per document; reads may go to any
+ * partition.
+ */
+public interface MessageSender {
+
+    /**
+     * Sends a message on whichever partition is least loaded.
+     */
+    CompletableFuture<String> send(String type, String data);
+
+    /**
+     * Sends a message on whichever partition is least loaded, overriding the request timeout.
+     */
+    CompletableFuture<String> send(String type, String data, long timeoutMs);
+
+    /**
+     * Sends a message on a specific partition.
+     */
+    CompletableFuture<String> send(int partition, String type, String data);
+
+    /**
+     * Sends a message on a specific partition, overriding the request timeout.
+     */
+    CompletableFuture<String> send(int partition, String type, String data, long timeoutMs);
+
+    /**
+     * Returns the number of partitions requests are spread over.
+     */
+    int partitionCount();
+
+    /**
+     * Returns the partition that owns writes for the given collection and document or key.
+     */
+    int partitionFor(String col, String doc);
+
+    /**
+     * Runs a task on the transport's scheduler thread after the given delay.
+     */
+    ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit);
+}
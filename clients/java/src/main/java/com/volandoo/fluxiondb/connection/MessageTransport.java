@@ -0,0 +1,51 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Request/response transport behind the client.
+ * <p>
+ * A transport is made of one or more partitions, each backed by its own socket. On top of sending,
+ * it manages the partitions' connections and exposes their state.
+ */
+public interface MessageTransport extends MessageSender {
+
+    /**
+     * Establishes all connections and waits for authentication.
+     */
+    CompletableFuture<Void> connect();
+
+    /**
+     * Closes all connections and prevents reconnection.
+     */
+    CompletableFuture<Void> close();
+
+    /**
+     * Closes all connections and releases scheduler threads. Blocks until closed.
+     */
+    void shutdown();
+
+    void setConnectionName(String name);
+
+    /**
+     * Sends requests on a specific partition in list order, serialized together and handed to the
+     * socket's writer in one step. Each request's own response future is completed.
+     */
+    void sendAll(int partition, List<QueuedRequest> requests);
+
+    /**
+     * Returns the connection state of a partition.
+     */
+    ConnectionState getConnectionState(int partition);
+
+    /**
+     * Registers a listener for every partition's state changes, including each reconnect.
+     */
+    void addConnectionStateListener(ConnectionStateListener listener);
+
+    /**
+     * Returns a partition's smoothed heartbeat round trip time, or 0 before its first pong.
+     */
+    long getRoundTripTimeNanos(int partition);
+}
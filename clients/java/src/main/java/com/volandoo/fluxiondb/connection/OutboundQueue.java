@@ -0,0 +1,212 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Single-writer outbound queue bound to one WebSocket.
+ * <p>
+ * {@link WebSocket} rejects a new send while the previous one is still outstanding, so producers
+ * only enqueue here and whichever thread wins the writer flag drains the queue, chaining each
+ * {@code sendText} on the completion of the previous one. Heartbeat pings go through the same queue,
+ * so they are never written while a text message is outstanding.
+ */
+final class OutboundQueue {
+
+    private final WebSocket webSocket;
+    private final Counters counters;
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean writing = new AtomicBoolean(false);
+    private volatile Throwable closedCause;
+
+    OutboundQueue(WebSocket webSocket, Counters counters) {
+        this.webSocket = webSocket;
+        this.counters = counters;
+    }
+
+    WebSocket webSocket() {
+        return webSocket;
+    }
+
+    int depth() {
+        return depth.get();
+    }
+
+    /**
+     * Queues a complete text message for sending.
+     *
+     * @param message   the message text
+     * @param onFailure invoked with the cause if the message could not be written
+     */
+    void enqueue(CharSequence message, Consumer<Throwable> onFailure) {
+        Throwable closed = closedCause;
+        if (closed != null) {
+            onFailure.accept(closed);
+            return;
+        }
+        offer(new Entry(message, null, onFailure, System.nanoTime()));
+    }
+
+    /**
+     * Queues a ping frame. Pings are not counted as sent messages.
+     */
+    void enqueuePing(ByteBuffer payload, Consumer<Throwable> onFailure) {
+        Throwable closed = closedCause;
+        if (closed != null) {
+            onFailure.accept(closed);
+            return;
+        }
+        offer(new Entry(null, payload, onFailure, System.nanoTime()));
+    }
+
+    private void offer(Entry entry) {
+        queue.offer(entry);
+        depth.incrementAndGet();
+        if (closedCause != null) {
+            failPending();
+            return;
+        }
+        drain();
+    }
+
+    /**
+     * Queues several messages, in order, and starts a single drain pass for all of them.
+     *
+     * @param messages  the message texts, in send order
+     * @param onFailure one failure callback per message
+     */
+    void enqueueAll(List<? extends CharSequence> messages, List<Consumer<Throwable>> onFailure) {
+        Throwable closed = closedCause;
+        if (closed != null) {
+            onFailure.forEach(callback -> callback.accept(closed));
+            return;
+        }
+        long now = System.nanoTime();
+        for (int i = 0; i < messages.size(); i++) {
+            queue.offer(new Entry(messages.get(i), null, onFailure.get(i), now));
+        }
+        depth.addAndGet(messages.size());
+        if (closedCause != null) {
+            failPending();
+            return;
+        }
+        drain();
+    }
+
+    /**
+     * Rejects all queued and future messages with the given cause.
+     */
+    void close(Throwable cause) {
+        closedCause = cause;
+        failPending();
+    }
+
+    private void failPending() {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            depth.decrementAndGet();
+            entry.onFailure.accept(closedCause);
+        }
+    }
+
+    private void drain() {
+        while (writing.compareAndSet(false, true)) {
+            Entry entry = queue.poll();
+            if (entry == null) {
+                writing.set(false);
+                if (queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            depth.decrementAndGet();
+
+            CompletableFuture<WebSocket> sent;
+            try {
+                sent = entry.ping != null
+                        ? webSocket.sendPing(entry.ping)
+                        : webSocket.sendText(entry.message, true);
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+
+            if (!sent.isDone()) {
+                sent.whenComplete((ws, ex) -> {
+                    complete(entry, ex);
+                    writing.set(false);
+                    drain();
+                });
+                return;
+            }
+
+            // Completed synchronously: loop instead of recursing through whenComplete
+            complete(entry, failureOf(sent));
+            writing.set(false);
+        }
+    }
+
+    private void complete(Entry entry, Throwable failure) {
+        if (failure != null) {
+            counters.failed.incrementAndGet();
+            entry.onFailure.accept(failure);
+        } else if (entry.ping == null) {
+            counters.recordSent(System.nanoTime() - entry.enqueuedAtNanos);
+        }
+    }
+
+    private static Throwable failureOf(CompletableFuture<?> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        } catch (CancellationException e) {
+            return e;
+        }
+    }
+
+    private static final class Entry {
+        final CharSequence message;
+        final ByteBuffer ping;
+        final Consumer<Throwable> onFailure;
+        final long enqueuedAtNanos;
+
+        Entry(CharSequence message, ByteBuffer ping, Consumer<Throwable> onFailure, long enqueuedAtNanos) {
+            this.message = message;
+            this.ping = ping;
+            this.onFailure = onFailure;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+
+    /**
+     * Send counters shared by every queue a manager creates across reconnects.
+     */
+    static final class Counters {
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong totalLatencyNanos = new AtomicLong();
+        final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        void recordSent(long latencyNanos) {
+            sent.incrementAndGet();
+            totalLatencyNanos.addAndGet(latencyNanos);
+            long max;
+            while (latencyNanos > (max = maxLatencyNanos.get())) {
+                if (maxLatencyNanos.compareAndSet(max, latencyNanos)) {
+                    break;
+                }
+            }
+        }
+    }
+}
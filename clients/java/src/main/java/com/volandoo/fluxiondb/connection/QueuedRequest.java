@@ -0,0 +1,43 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request built ahead of time for {@link MessageTransport#sendAll(int, java.util.List)}, carrying
+ * the future its response will complete.
+ */
+public final class QueuedRequest {
+
+    private final String type;
+    private final String data;
+    private final long timeoutMs;
+    private final CompletableFuture<String> response = new CompletableFuture<>();
+
+    /**
+     * @param timeoutMs time to wait for the response once sent, or 0 for the transport's request timeout
+     */
+    public QueuedRequest(String type, String data, long timeoutMs) {
+        this.type = type;
+        this.data = data;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * Returns the future completed with the raw response, or failed if the request cannot be sent.
+     */
+    public CompletableFuture<String> response() {
+        return response;
+    }
+}
@@ -1,40 +1,73 @@
 package com.volandoo.fluxiondb.connection;
 
 /**
- * Implements exponential backoff strategy for WebSocket reconnection.
+ * Limits the number of WebSocket reconnection attempts and delays each one by a {@link BackoffPolicy}.
  */
 public class ReconnectionStrategy {
 
+    /**
+     * Longest delay between attempts used by the default policies.
+     */
+    public static final long MAX_DELAY_MS = 60000;
+
     private final int maxAttempts;
     private final long baseIntervalMs;
+    private final BackoffPolicy backoffPolicy;
 
+    /**
+     * Waits {@code baseIntervalMs * attempt} between attempts, capped at 60 seconds.
+     */
     public ReconnectionStrategy(int maxAttempts, long baseIntervalMs) {
+        this(maxAttempts, baseIntervalMs, BackoffPolicy.linear(checkBaseInterval(baseIntervalMs),
+                Math.max(baseIntervalMs, MAX_DELAY_MS)));
+    }
+
+    /**
+     * @param baseIntervalMs the policy's base delay, reported by {@link #getBaseIntervalMs()}
+     */
+    public ReconnectionStrategy(int maxAttempts, long baseIntervalMs, BackoffPolicy backoffPolicy) {
         if (maxAttempts < 0) {
             throw new IllegalArgumentException("maxAttempts must be non-negative");
         }
-        if (baseIntervalMs < 0) {
-            throw new IllegalArgumentException("baseIntervalMs must be non-negative");
+        checkBaseInterval(baseIntervalMs);
+        if (backoffPolicy == null) {
+            throw new IllegalArgumentException("backoffPolicy is required");
         }
 
         this.maxAttempts = maxAttempts;
         this.baseIntervalMs = baseIntervalMs;
+        this.backoffPolicy = backoffPolicy;
+    }
+
+    private static long checkBaseInterval(long baseIntervalMs) {
+        if (baseIntervalMs < 0) {
+            throw new IllegalArgumentException("baseIntervalMs must be non-negative");
+        }
+        return baseIntervalMs;
     }
 
     /**
      * Calculates the delay in milliseconds for a given attempt number.
-     * Implements exponential backoff: baseInterval * attemptNumber
-     * Capped at 60 seconds to avoid excessive delays.
      *
      * @param attemptNumber the current reconnection attempt (1-indexed)
      * @return delay in milliseconds
      */
     public long getDelayMs(int attemptNumber) {
+        return getDelayMs(attemptNumber, 0);
+    }
+
+    /**
+     * Calculates the delay for a given attempt, for policies that build on the previous delay.
+     *
+     * @param attemptNumber   the current reconnection attempt (1-indexed)
+     * @param previousDelayMs the delay before the previous attempt, or 0 before the first
+     * @return delay in milliseconds
+     */
+    public long getDelayMs(int attemptNumber, long previousDelayMs) {
         if (attemptNumber < 1) {
             throw new IllegalArgumentException("attemptNumber must be >= 1");
         }
-
-        long delay = baseIntervalMs * attemptNumber;
-        return Math.min(delay, 60000); // Cap at 60 seconds
+        return Math.max(0, backoffPolicy.delayMs(attemptNumber, previousDelayMs));
     }
 
     /**
@@ -55,6 +88,10 @@ public class ReconnectionStrategy {
         return baseIntervalMs;
     }
 
+    public BackoffPolicy getBackoffPolicy() {
+        return backoffPolicy;
+    }
+
     @Override
     public String toString() {
         return "ReconnectionStrategy{maxAttempts=" + maxAttempts + ", baseIntervalMs=" + baseIntervalMs + "}";
@@ -2,68 +2,167 @@ package com.volandoo.fluxiondb.connection;
 
 import com.volandoo.fluxiondb.exceptions.AuthenticationException;
 import com.volandoo.fluxiondb.exceptions.ConnectionException;
+import com.volandoo.fluxiondb.exceptions.FluxionDBException;
 import com.volandoo.fluxiondb.exceptions.TimeoutException;
-import com.volandoo.fluxiondb.json.JsonBuilder;
-import com.volandoo.fluxiondb.json.JsonParser;
+import com.volandoo.fluxiondb.json.JsonWriter;
+import com.volandoo.fluxiondb.metrics.MetricsListener;
 import com.volandoo.fluxiondb.protocol.MessageTypes;
 import com.volandoo.fluxiondb.protocol.RequestIdGenerator;
+import com.volandoo.fluxiondb.protocol.ResponseEnvelope;
 
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.WebSocket;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Manages WebSocket connection lifecycle, message routing, and automatic reconnection.
+ * <p>
+ * When an authenticated socket drops, the manager moves to {@link ConnectionState#RECONNECTING}.
+ * Requests sent meanwhile are held, up to {@link ConnectionOptions#getMaxPendingRequests()}, and
+ * written in order once the new socket is ready. Reads that were waiting for a response are held and
+ * sent again the same way; writes fail with a {@link ConnectionException}, since the server may
+ * already have applied them. Held requests keep their original deadline.
+ * <p>
+ * Attempts are spaced by the strategy's {@link BackoffPolicy} on the scheduler thread. With a circuit
+ * breaker configured, enough consecutive failed attempts make requests fail with a
+ * {@link com.volandoo.fluxiondb.exceptions.CircuitOpenException} instead of being held, until an
+ * attempt succeeds.
+ * <p>
+ * Authenticated sockets are pinged every heartbeat interval, which keeps them inside the server's idle
+ * timeout and feeds a smoothed round trip time. A socket that answers neither the ping nor anything
+ * else within the heartbeat timeout is aborted and handled like a dropped connection.
  */
-public class WebSocketManager {
+public class WebSocketManager implements MessageTransport, ConnectionPool.Member {
 
+    // Envelope around the escaped data: {"id":"..","type":"..","data":..}
+    private static final int FRAME_OVERHEAD_CHARS = 64;
+
+    private final HttpClientFactory httpClientFactory = new HttpClientFactory();
     private final HttpClient httpClient;
     private final String baseUrl;
     private final String apiKey;
     private final AtomicReference<String> connectionName;
     private final long requestTimeoutMs;
     private final ReconnectionStrategy reconnectionStrategy;
+    private final ConnectionOptions options;
+    // Null when disabled
+    private final CircuitBreaker circuitBreaker;
+    private final MetricsListener metrics;
 
     private final AtomicReference<WebSocket> webSocket = new AtomicReference<>();
-    private final ConcurrentHashMap<String, CompletableFuture<String>> inflightRequests = new ConcurrentHashMap<>();
+    private final AtomicReference<OutboundQueue> outboundQueue = new AtomicReference<>();
+    private final OutboundQueue.Counters sendCounters = new OutboundQueue.Counters();
+    private final RequestIdGenerator idGenerator = new RequestIdGenerator();
+    // Ring slots for inflight requests; requests further apart than this spill into an overflow map
+    private final InflightTable inflightRequests = new InflightTable(8192);
     private final AtomicBoolean isConnecting = new AtomicBoolean(false);
     private final AtomicBoolean shouldReconnect = new AtomicBoolean(true);
     private final AtomicInteger reconnectAttempts = new AtomicInteger(0);
+    private volatile long lastReconnectDelayMs;
+    private volatile long smoothedRttNanos;
     private final AtomicReference<CompletableFuture<Void>> readyFuture = new AtomicReference<>();
-
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1, r -> {
-        Thread t = new Thread(r, "fluxiondb-timeout-scheduler");
-        t.setDaemon(true);
-        return t;
-    });
-
-    private final StringBuilder messageBuffer = new StringBuilder();
+    private final AtomicReference<ConnectionState> state = new AtomicReference<>(ConnectionState.DISCONNECTED);
+    private final List<ConnectionStateListener> stateListeners = new CopyOnWriteArrayList<>();
+    // Completes when a reconnect succeeds; set only while RECONNECTING
+    private final AtomicReference<CompletableFuture<Void>> reconnectedFuture = new AtomicReference<>();
+
+    // Requests held while reconnecting, oldest first; guarded by pendingLock
+    private final ArrayDeque<InflightRequest> pendingRequests = new ArrayDeque<>();
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    // Lets send() skip the lock while nothing is held
+    private volatile int pendingCount;
+
+    private final ScheduledExecutorService scheduler;
+    // Request deadlines
+    private final HashedWheelTimer timeoutWheel;
+    // False when both are shared with the other sockets of a pool, which stops them
+    private final boolean ownsScheduler;
 
     public WebSocketManager(String url, String apiKey, String connectionName,
                             long requestTimeoutMs, ReconnectionStrategy reconnectionStrategy) {
+        this(url, apiKey, connectionName, requestTimeoutMs, reconnectionStrategy, ConnectionOptions.defaults());
+    }
+
+    public WebSocketManager(String url, String apiKey, String connectionName,
+                            long requestTimeoutMs, ReconnectionStrategy reconnectionStrategy,
+                            ConnectionOptions options) {
+        this(url, apiKey, connectionName, requestTimeoutMs, reconnectionStrategy, options, null, null);
+    }
+
+    /**
+     * @param scheduler    scheduler shared with other managers, or null to start one for this manager
+     * @param timeoutWheel deadline wheel ticking on {@code scheduler}, or null to start one
+     */
+    WebSocketManager(String url, String apiKey, String connectionName,
+                     long requestTimeoutMs, ReconnectionStrategy reconnectionStrategy,
+                     ConnectionOptions options, ScheduledExecutorService scheduler, HashedWheelTimer timeoutWheel) {
+        this.ownsScheduler = scheduler == null;
+        this.scheduler = scheduler != null ? scheduler : newScheduler();
+        this.timeoutWheel = timeoutWheel != null ? timeoutWheel : newTimeoutWheel(this.scheduler);
         this.baseUrl = url;
         this.apiKey = apiKey;
         this.connectionName = new AtomicReference<>(connectionName);
         this.requestTimeoutMs = requestTimeoutMs;
         this.reconnectionStrategy = reconnectionStrategy;
-        this.httpClient = HttpClient.newHttpClient();
+        this.options = options;
+        this.circuitBreaker = options.getCircuitBreakerThreshold() > 0
+                ? new CircuitBreaker(options.getCircuitBreakerThreshold(), options.getCircuitBreakerOpenMs())
+                : null;
+        this.metrics = options.getMetricsListener();
+        this.httpClient = httpClientFactory.newHttpClient();
+    }
+
+    static ScheduledExecutorService newScheduler() {
+        return Executors.newScheduledThreadPool(1, r -> {
+            Thread t = new Thread(r, "fluxiondb-timeout-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns a wheel with 10ms resolution and 512 slots per ~5s revolution.
+     */
+    static HashedWheelTimer newTimeoutWheel(ScheduledExecutorService scheduler) {
+        return new HashedWheelTimer(scheduler, 10, 512);
     }
 
     /**
-     * Establishes WebSocket connection and waits for authentication.
+     * Establishes WebSocket connection and waits for authentication. While reconnecting, waits for
+     * the reconnect instead of opening another socket; fails at once while the circuit breaker is open.
      */
+    @Override
     public CompletableFuture<Void> connect() {
+        if (circuitBreaker != null && circuitBreaker.isOpen()) {
+            return CompletableFuture.failedFuture(circuitBreaker.openException());
+        }
+        if (state.get() == ConnectionState.RECONNECTING) {
+            CompletableFuture<Void> reconnected = reconnectedFuture.get();
+            if (reconnected != null) {
+                return reconnected;
+            }
+        }
+        return openSocket();
+    }
+
+    private CompletableFuture<Void> openSocket() {
         // If already connected, return immediately
         WebSocket ws = webSocket.get();
-        if (ws != null && !ws.isOutputClosed()) {
+        if (ws != null && !ws.isOutputClosed() && state.get() == ConnectionState.CONNECTED) {
             return CompletableFuture.completedFuture(null);
         }
 
@@ -75,6 +174,18 @@ public class WebSocketManager {
 
         CompletableFuture<Void> connectionFuture = new CompletableFuture<>();
         readyFuture.set(connectionFuture);
+        if (state.get() != ConnectionState.RECONNECTING) {
+            setState(ConnectionState.CONNECTING);
+        }
+        connectionFuture.whenComplete((v, error) -> {
+            if (error == null) {
+                return;
+            }
+            transition(ConnectionState.CONNECTING, ConnectionState.DISCONNECTED);
+            if (circuitBreaker != null && circuitBreaker.recordFailure()) {
+                failPending(circuitBreaker.openException());
+            }
+        });
 
         try {
             String wsUrl = buildAuthenticatedUrl();
@@ -82,10 +193,7 @@ public class WebSocketManager {
 
             httpClient.newWebSocketBuilder()
                     .buildAsync(uri, new FluxionDBWebSocketListener())
-                    .thenAccept(newWs -> {
-                        webSocket.set(newWs);
-                        // Don't complete connection here - wait for "ready" message
-                    })
+                    // The listener's onOpen installs the socket; completion waits for the "ready" message
                     .exceptionally(ex -> {
                         isConnecting.set(false);
                         connectionFuture.completeExceptionally(
@@ -113,56 +221,467 @@ public class WebSocketManager {
     /**
      * Sends a message and returns a CompletableFuture for the response.
      */
+    @Override
     public CompletableFuture<String> send(String type, String data) {
+        return send(type, data, requestTimeoutMs);
+    }
+
+    /**
+     * Sends a message with a deadline that overrides the configured request timeout.
+     *
+     * @param timeoutMs time to wait for the response, in milliseconds
+     */
+    @Override
+    public CompletableFuture<String> send(String type, String data, long timeoutMs) {
+        if (state.get() != ConnectionState.CONNECTED || pendingCount > 0) {
+            if (circuitBreaker != null && circuitBreaker.isOpen()) {
+                return CompletableFuture.failedFuture(circuitBreaker.openException());
+            }
+            CompletableFuture<String> responseFuture = new CompletableFuture<>();
+            // Not registered until it is written to the next socket
+            InflightRequest held = new InflightRequest(-1, type, data, responseFuture);
+            held.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            if (hold(held)) {
+                return responseFuture;
+            }
+        }
+
         return connect().thenCompose(v -> {
-            WebSocket ws = webSocket.get();
-            if (ws == null || ws.isOutputClosed()) {
+            OutboundQueue queue = outboundQueue.get();
+            if (queue == null || queue.webSocket().isOutputClosed()) {
                 return CompletableFuture.failedFuture(
                         new ConnectionException("WebSocket not connected"));
             }
 
-            String messageId = RequestIdGenerator.generate();
             CompletableFuture<String> responseFuture = new CompletableFuture<>();
+            write(queue, type, data, responseFuture, timeoutMs);
+            return responseFuture;
+        });
+    }
 
-            inflightRequests.put(messageId, responseFuture);
+    private void write(OutboundQueue queue, String type, String data, CompletableFuture<String> future,
+                       long timeoutMs) {
+        StringBuilder message = new StringBuilder(data.length() + FRAME_OVERHEAD_CHARS);
+        InflightRequest request = register(message, type, data, future, timeoutMs);
 
-            String message = new JsonBuilder()
-                    .add("id", messageId)
-                    .add("type", type)
-                    .add("data", data)
-                    .build();
+        queue.enqueue(message, failureHandler(request));
+        armTimeout(request, timeoutMs);
+    }
 
-            ws.sendText(message, true)
-                    .exceptionally(ex -> {
-                        inflightRequests.remove(messageId);
-                        responseFuture.completeExceptionally(
-                                new ConnectionException("Failed to send message", ex));
-                        return null;
-                    });
+    /**
+     * Serializes all requests into one buffer and queues them as consecutive frames.
+     * A single manager is one partition, so the partition argument is ignored.
+     */
+    @Override
+    public void sendAll(int partition, List<QueuedRequest> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        connect().whenComplete((v, error) -> {
+            OutboundQueue queue = outboundQueue.get();
+            if (error == null && (queue == null || queue.webSocket().isOutputClosed())) {
+                error = new ConnectionException("WebSocket not connected");
+            }
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                requests.forEach(r -> r.response().completeExceptionally(cause));
+                return;
+            }
 
-            // Schedule timeout
-            scheduler.schedule(() -> {
-                CompletableFuture<String> removed = inflightRequests.remove(messageId);
-                if (removed != null && !removed.isDone()) {
-                    removed.completeExceptionally(new TimeoutException("Request timeout after " + requestTimeoutMs + "ms"));
-                }
-            }, requestTimeoutMs, TimeUnit.MILLISECONDS);
+            int capacity = 0;
+            for (QueuedRequest r : requests) {
+                capacity += r.getData().length() + FRAME_OVERHEAD_CHARS;
+            }
+            StringBuilder buffer = new StringBuilder(capacity);
+            List<CharSequence> frames = new ArrayList<>(requests.size());
+            List<Consumer<Throwable>> failureHandlers = new ArrayList<>(requests.size());
+            InflightRequest[] registered = new InflightRequest[requests.size()];
+
+            for (int i = 0; i < requests.size(); i++) {
+                QueuedRequest r = requests.get(i);
+                int start = buffer.length();
+                long timeoutMs = r.getTimeoutMs() > 0 ? r.getTimeoutMs() : requestTimeoutMs;
+                registered[i] = register(buffer, r.getType(), r.getData(), r.response(), timeoutMs);
+                // Views over the shared buffer, which is never modified once the loop ends
+                frames.add(CharBuffer.wrap(buffer, start, buffer.length()));
+                failureHandlers.add(failureHandler(registered[i]));
+            }
 
-            return responseFuture;
+            queue.enqueueAll(frames, failureHandlers);
+            for (InflightRequest request : registered) {
+                armTimeout(request, TimeUnit.NANOSECONDS.toMillis(request.deadlineNanos - System.nanoTime()));
+            }
         });
     }
 
+    /**
+     * Allocates a request id, registers the request as inflight and appends its frame to {@code out}.
+     */
+    private InflightRequest register(StringBuilder out, String type, String data, CompletableFuture<String> future,
+                                     long timeoutMs) {
+        long messageId = idGenerator.next();
+        InflightRequest request = new InflightRequest(messageId, type, data, future);
+        long now = System.nanoTime();
+        request.sentNanos = now;
+        request.deadlineNanos = now + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        inflightRequests.put(request);
+
+        int start = out.length();
+        out.append("{\"id\":\"").append(messageId).append("\",\"type\":");
+        JsonWriter.appendString(out, type);
+        out.append(",\"data\":");
+        JsonWriter.appendString(out, data);
+        out.append('}');
+        if (metrics != null) {
+            long encodeNanos = System.nanoTime() - now;
+            metrics.onRequestSent(type, utf8Length(out, start, out.length()), encodeNanos);
+        }
+        return request;
+    }
+
+    /**
+     * Returns the size of a region of text once encoded as UTF-8, without encoding it. A surrogate
+     * pair counts 4 bytes; a lone surrogate counts 2 instead of the 1 of its replacement.
+     */
+    static int utf8Length(CharSequence text, int start, int end) {
+        int bytes = end - start;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                bytes += c < 0x800 || Character.isSurrogate(c) ? 1 : 2;
+            }
+        }
+        return bytes;
+    }
+
+    private void recordFailure(InflightRequest request, boolean timedOut) {
+        if (metrics != null) {
+            metrics.onRequestFailed(request.type, System.nanoTime() - request.sentNanos, timedOut);
+        }
+    }
+
+    private Consumer<Throwable> failureHandler(InflightRequest request) {
+        return ex -> {
+            // Requests already taken over by connectionLost are held or failed there
+            if (inflightRequests.remove(request.id) != null) {
+                recordFailure(request, false);
+                request.fail(new ConnectionException("Failed to send message", ex));
+            }
+        };
+    }
+
+    private void armTimeout(InflightRequest request, long timeoutMs) {
+        long messageId = request.id;
+        request.timeout = timeoutWheel.newTimeout(() -> {
+            InflightRequest removed = inflightRequests.remove(messageId);
+            if (removed != null) {
+                recordFailure(removed, true);
+                removed.future.completeExceptionally(
+                        new TimeoutException("Request timeout after " + timeoutMs + "ms"));
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        if (request.future.isDone()) {
+            request.timeout.cancel(); // Answered before the deadline was registered
+        }
+    }
+
+    /**
+     * Holds a request until the socket is ready again, if a reconnect is under way.
+     *
+     * @return false if the manager is not reconnecting; true if the request was held, or failed
+     *         because the pending queue is full
+     */
+    private boolean hold(InflightRequest request) {
+        pendingLock.lock();
+        try {
+            if (state.get() != ConnectionState.RECONNECTING) {
+                return false;
+            }
+            if (pendingRequests.size() >= options.getMaxPendingRequests()) {
+                request.future.completeExceptionally(new ConnectionException("Reconnecting, and "
+                        + options.getMaxPendingRequests() + " requests are already waiting for the connection"));
+                return true;
+            }
+            long remainingNanos = Math.max(0, request.deadlineNanos - System.nanoTime());
+            request.timeout = timeoutWheel.newTimeout(() -> expire(request), remainingNanos, TimeUnit.NANOSECONDS);
+            pendingRequests.addLast(request);
+            pendingCount = pendingRequests.size();
+            return true;
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    private void expire(InflightRequest request) {
+        boolean removed;
+        pendingLock.lock();
+        try {
+            removed = pendingRequests.remove(request);
+            pendingCount = pendingRequests.size();
+        } finally {
+            pendingLock.unlock();
+        }
+        if (removed) {
+            request.future.completeExceptionally(new TimeoutException("Request timed out while reconnecting"));
+        }
+    }
+
+    /**
+     * Marks the manager connected and writes the held requests to the new socket, in order. State
+     * listeners run after the lock is released, so they cannot stall concurrent senders.
+     */
+    private void connected(OutboundQueue queue) {
+        ConnectionState previous;
+        pendingLock.lock();
+        try {
+            previous = state.getAndSet(ConnectionState.CONNECTED);
+            for (InflightRequest held; (held = pendingRequests.pollFirst()) != null; ) {
+                held.cancelTimeout();
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(held.deadlineNanos - System.nanoTime());
+                if (remainingMs <= 0) {
+                    held.future.completeExceptionally(new TimeoutException("Request timed out while reconnecting"));
+                } else if (queue == null) {
+                    held.future.completeExceptionally(new ConnectionException("WebSocket not connected"));
+                } else {
+                    write(queue, held.type, held.data, held.future, remainingMs);
+                }
+            }
+            // Cleared only after writing, so concurrent senders wait on the lock instead of overtaking
+            pendingCount = 0;
+        } finally {
+            pendingLock.unlock();
+        }
+        if (previous != ConnectionState.CONNECTED) {
+            fireStateChanged(previous, ConnectionState.CONNECTED);
+        }
+        CompletableFuture<Void> reconnected = reconnectedFuture.getAndSet(null);
+        if (reconnected != null) {
+            reconnected.complete(null);
+        }
+    }
+
+    /**
+     * Moves to a state without a connection to come and fails every held request.
+     */
+    private void abandonPending(ConnectionState next, ConnectionException error) {
+        ConnectionState previous;
+        pendingLock.lock();
+        try {
+            previous = state.getAndSet(next);
+        } finally {
+            pendingLock.unlock();
+        }
+        if (previous != next) {
+            fireStateChanged(previous, next);
+        }
+        failPending(error);
+        CompletableFuture<Void> reconnected = reconnectedFuture.getAndSet(null);
+        if (reconnected != null) {
+            reconnected.completeExceptionally(error);
+        }
+    }
+
+    private void failPending(ConnectionException error) {
+        List<InflightRequest> abandoned;
+        pendingLock.lock();
+        try {
+            abandoned = new ArrayList<>(pendingRequests);
+            pendingRequests.clear();
+            pendingCount = 0;
+        } finally {
+            pendingLock.unlock();
+        }
+        abandoned.forEach(request -> request.fail(error));
+    }
+
+    /**
+     * Handles the loss of an authenticated socket: holds its reads for the next socket, fails its
+     * writes and starts reconnecting. Sockets that never became ready, or were already replaced,
+     * are only detached.
+     */
+    private void connectionLost(WebSocket socket) {
+        if (webSocket.get() != socket) {
+            return;
+        }
+        if (shouldReconnect.get() && state.get() == ConnectionState.CONNECTED) {
+            reconnectedFuture.set(new CompletableFuture<>());
+            if (transition(ConnectionState.CONNECTED, ConnectionState.RECONNECTING)) {
+                ConnectionException lost = new ConnectionException("Connection lost before the response arrived");
+                inflightRequests.drain(request -> {
+                    // Counted even if the caller gave up, so every request sent is finished once
+                    recordFailure(request, false);
+                    if (request.future.isDone()) {
+                        return;
+                    }
+                    request.cancelTimeout();
+                    if (!MessageTypes.isReadOnly(request.type) || !hold(request)) {
+                        request.future.completeExceptionally(lost);
+                    }
+                });
+                detach(socket);
+                reconnect();
+                return;
+            }
+        }
+        detach(socket);
+    }
+
+    private void detach(WebSocket socket) {
+        if (webSocket.compareAndSet(socket, null)) {
+            OutboundQueue queue = outboundQueue.get();
+            if (queue != null && queue.webSocket() == socket && outboundQueue.compareAndSet(queue, null)) {
+                queue.close(new ConnectionException("Connection closed"));
+            }
+        }
+    }
+
+    private void setState(ConnectionState next) {
+        ConnectionState previous = state.getAndSet(next);
+        if (previous != next) {
+            fireStateChanged(previous, next);
+        }
+    }
+
+    private boolean transition(ConnectionState expected, ConnectionState next) {
+        if (!state.compareAndSet(expected, next)) {
+            return false;
+        }
+        fireStateChanged(expected, next);
+        return true;
+    }
+
+    private void fireStateChanged(ConnectionState previous, ConnectionState current) {
+        for (ConnectionStateListener listener : stateListeners) {
+            try {
+                listener.onStateChanged(0, previous, current);
+            } catch (RuntimeException e) {
+                System.err.println("Error in connection state listener: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A single manager is one partition, so the partition argument is ignored.
+     */
+    @Override
+    public CompletableFuture<String> send(int partition, String type, String data) {
+        return send(type, data);
+    }
+
+    @Override
+    public CompletableFuture<String> send(int partition, String type, String data, long timeoutMs) {
+        return send(type, data, timeoutMs);
+    }
+
+    @Override
+    public int partitionCount() {
+        return 1;
+    }
+
+    @Override
+    public int partitionFor(String col, String doc) {
+        return 0;
+    }
+
+    /**
+     * Keeps trying in the background after {@link #connect()} failed, the way a dropped socket is
+     * reconnected: requests are held meanwhile, and the reconnection strategy decides when to give up.
+     */
+    @Override
+    public void retryConnect() {
+        if (!shouldReconnect.get()) {
+            return;
+        }
+        reconnectedFuture.set(new CompletableFuture<>());
+        if (transition(ConnectionState.DISCONNECTED, ConnectionState.RECONNECTING)) {
+            reconnect();
+        }
+    }
+
+    /**
+     * A single manager is one partition, so the partition argument is ignored.
+     */
+    @Override
+    public ConnectionState getConnectionState(int partition) {
+        return state.get();
+    }
+
+    /**
+     * A single manager reports its changes as partition 0.
+     */
+    @Override
+    public void addConnectionStateListener(ConnectionStateListener listener) {
+        stateListeners.add(listener);
+    }
+
+    /**
+     * Returns true when the socket is open and authenticated.
+     */
+    @Override
+    public boolean isConnected() {
+        OutboundQueue queue = outboundQueue.get();
+        return state.get() == ConnectionState.CONNECTED && queue != null && !queue.webSocket().isOutputClosed();
+    }
+
+    /**
+     * Returns the number of requests held until the connection is back.
+     */
+    public int getPendingRequestCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Returns the number of request deadlines currently armed on the timing wheel.
+     */
+    public int getPendingTimeoutCount() {
+        return timeoutWheel.activeCount();
+    }
+
+    /**
+     * Returns the number of requests waiting for a response.
+     */
+    public int getInflightCount() {
+        return inflightRequests.size();
+    }
+
+    /**
+     * Returns the requests waiting for a response or for the writer; a pool sends reads to the
+     * socket with the fewest.
+     */
+    @Override
+    public int getLoad() {
+        return getInflightCount() + getOutboundQueueDepth();
+    }
+
+    /**
+     * A single manager is one partition, so the partition argument is ignored.
+     */
+    @Override
+    public long getRoundTripTimeNanos(int partition) {
+        return smoothedRttNanos;
+    }
+
+    private void recordRoundTrip(long rttNanos) {
+        long srtt = smoothedRttNanos;
+        // Same weighting as TCP's smoothed RTT; only the current socket's listener thread writes it
+        smoothedRttNanos = srtt == 0 ? rttNanos : srtt + (rttNanos - srtt) / 8;
+    }
+
     /**
      * Closes the WebSocket connection and prevents reconnection.
      */
+    @Override
     public CompletableFuture<Void> close() {
         shouldReconnect.set(false);
+        abandonPending(ConnectionState.CLOSED, new ConnectionException("Connection closed"));
 
         WebSocket ws = webSocket.get();
         if (ws != null) {
             return ws.sendClose(WebSocket.NORMAL_CLOSURE, "Client closing")
                     .thenRun(() -> {
                         webSocket.set(null);
+                        replaceOutboundQueue(null);
                         cleanupInflightRequests();
                     });
         }
@@ -170,14 +689,65 @@ public class WebSocketManager {
         return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * Returns the number of messages waiting for the writer on the current socket.
+     */
+    public int getOutboundQueueDepth() {
+        OutboundQueue queue = outboundQueue.get();
+        return queue != null ? queue.depth() : 0;
+    }
+
+    /**
+     * Returns the total number of messages written to the socket since this manager was created.
+     */
+    public long getSentMessageCount() {
+        return sendCounters.sent.get();
+    }
+
+    /**
+     * Returns the number of messages that could not be written to the socket.
+     */
+    public long getFailedSendCount() {
+        return sendCounters.failed.get();
+    }
+
+    /**
+     * Returns the mean time between enqueueing a message and the socket accepting it, in nanoseconds.
+     */
+    public long getAverageSendLatencyNanos() {
+        long sent = sendCounters.sent.get();
+        return sent == 0 ? 0 : sendCounters.totalLatencyNanos.get() / sent;
+    }
+
+    /**
+     * Returns the longest time a message waited between enqueue and send completion, in nanoseconds.
+     */
+    public long getMaxSendLatencyNanos() {
+        return sendCounters.maxLatencyNanos.get();
+    }
+
+    /**
+     * Runs a task on the manager's scheduler thread after the given delay.
+     */
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduler.schedule(task, delay, unit);
+    }
+
+    @Override
     public void setConnectionName(String name) {
         this.connectionName.set(name);
     }
 
+    @Override
     public void shutdown() {
         shouldReconnect.set(false);
-        scheduler.shutdown();
+        if (ownsScheduler) {
+            timeoutWheel.stop();
+            scheduler.shutdown();
+        }
         close().join();
+        httpClientFactory.shutdown();
     }
 
     private String buildAuthenticatedUrl() {
@@ -202,78 +772,163 @@ public class WebSocketManager {
         }
 
         int attempt = reconnectAttempts.incrementAndGet();
+        if (metrics != null) {
+            metrics.onReconnectAttempt(attempt);
+        }
 
         if (!reconnectionStrategy.shouldRetry(attempt)) {
+            ConnectionException error = new ConnectionException(
+                    "Max reconnection attempts (" + reconnectionStrategy.getMaxAttempts() + ") exceeded");
+            abandonPending(ConnectionState.DISCONNECTED, error);
             cleanupInflightRequests();
-            return CompletableFuture.failedFuture(
-                    new ConnectionException("Max reconnection attempts (" + reconnectionStrategy.getMaxAttempts() + ") exceeded"));
+            return CompletableFuture.failedFuture(error);
         }
 
-        long delayMs = reconnectionStrategy.getDelayMs(attempt);
+        long delayMs = reconnectionStrategy.getDelayMs(attempt, lastReconnectDelayMs);
+        lastReconnectDelayMs = delayMs;
 
-        return CompletableFuture.runAsync(() -> {
-            try {
-                Thread.sleep(delayMs);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).thenCompose(v -> {
-            isConnecting.set(false);
-            return connect();
-        });
+        // Wait on the scheduler rather than sleeping on a pool thread
+        CompletableFuture<Void> reconnected = new CompletableFuture<>();
+        try {
+            scheduler.schedule(() -> {
+                isConnecting.set(false);
+                openSocket().whenComplete((v, error) -> {
+                    if (error == null) {
+                        reconnected.complete(null);
+                        return;
+                    }
+                    // Keep trying until the strategy gives up, not just once per dropped socket
+                    reconnect().whenComplete((v2, retryError) -> {
+                        if (retryError != null) {
+                            reconnected.completeExceptionally(retryError);
+                        } else {
+                            reconnected.complete(null);
+                        }
+                    });
+                });
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            reconnected.completeExceptionally(new ConnectionException("Client is shut down", e));
+        }
+        return reconnected;
+    }
+
+    private void replaceOutboundQueue(OutboundQueue queue) {
+        OutboundQueue previous = outboundQueue.getAndSet(queue);
+        if (previous != null && previous != queue) {
+            previous.close(new ConnectionException("Connection closed"));
+        }
     }
 
     private void cleanupInflightRequests() {
         ConnectionException error = new ConnectionException("Connection closed");
-        inflightRequests.forEach((id, future) -> {
-            if (!future.isDone()) {
-                future.completeExceptionally(error);
+        inflightRequests.drain(request -> {
+            recordFailure(request, false);
+            if (!request.future.isDone()) {
+                request.fail(error);
             }
         });
-        inflightRequests.clear();
     }
 
     /**
      * WebSocket.Listener implementation for handling WebSocket events.
      */
-    private class FluxionDBWebSocketListener implements WebSocket.Listener {
+    private class FluxionDBWebSocketListener implements WebSocket.Listener, MessageAssembler.Handler {
+
+        // One per socket, so frames from a replaced socket never mix with the new one
+        private final MessageAssembler assembler = new MessageAssembler(options.getMaxMessageChars(), this);
+
+        private volatile WebSocket socket;
+        // Send time of the unanswered ping, which is also its payload; 0 when none is outstanding
+        private final AtomicLong pingSentNanos = new AtomicLong();
+        private volatile long lastReceivedNanos;
 
         @Override
         public void onOpen(WebSocket webSocket) {
+            socket = webSocket;
+            // Here rather than when buildAsync completes, which can happen after "ready" is received
+            replaceOutboundQueue(new OutboundQueue(webSocket, sendCounters));
+            WebSocketManager.this.webSocket.set(webSocket);
             webSocket.request(1);
         }
 
         @Override
         public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
-            messageBuffer.append(data);
+            lastReceivedNanos = System.nanoTime();
+            assembler.onFrame(data, last);
+            webSocket.request(1);
+            return CompletableFuture.completedFuture(null);
+        }
 
-            if (last) {
-                String completeMessage = messageBuffer.toString();
-                messageBuffer.setLength(0);
+        @Override
+        public CompletionStage<?> onPong(WebSocket webSocket, ByteBuffer message) {
+            long now = System.nanoTime();
+            lastReceivedNanos = now;
+            if (message.remaining() >= Long.BYTES) {
+                long sentAt = message.getLong(message.position());
+                if (sentAt != 0 && pingSentNanos.compareAndSet(sentAt, 0)) {
+                    recordRoundTrip(now - sentAt);
+                }
+            }
+            webSocket.request(1);
+            return CompletableFuture.completedFuture(null);
+        }
 
+        private void scheduleHeartbeat() {
+            long intervalMs = options.getHeartbeatIntervalMs();
+            if (intervalMs <= 0) {
+                return;
+            }
+            try {
+                scheduler.schedule(this::ping, intervalMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shut down
+            }
+        }
+
+        private void ping() {
+            WebSocket ws = socket;
+            if (WebSocketManager.this.webSocket.get() != ws || state.get() != ConnectionState.CONNECTED) {
+                return; // Replaced or closed; the next socket runs its own heartbeat
+            }
+            OutboundQueue queue = outboundQueue.get();
+            long now = System.nanoTime();
+            // Skipped while the previous ping is still unanswered
+            if (queue != null && queue.webSocket() == ws && now != 0 && pingSentNanos.compareAndSet(0, now)) {
+                // A failed write surfaces through onError or onClose
+                queue.enqueuePing(ByteBuffer.allocate(Long.BYTES).putLong(0, now), ex -> { });
                 try {
-                    handleMessage(completeMessage);
-                } catch (Exception e) {
-                    System.err.println("Error handling message: " + e.getMessage());
+                    scheduler.schedule(() -> checkPong(ws, now), options.getHeartbeatTimeoutMs(), TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    return;
                 }
             }
+            scheduleHeartbeat();
+        }
 
-            webSocket.request(1);
-            return CompletableFuture.completedFuture(null);
+        private void checkPong(WebSocket ws, long sentAt) {
+            if (pingSentNanos.get() != sentAt) {
+                return; // Answered
+            }
+            if (lastReceivedNanos - sentAt > 0) {
+                // Busy answering earlier requests, but alive
+                pingSentNanos.compareAndSet(sentAt, 0);
+                return;
+            }
+            System.err.println("No pong within " + options.getHeartbeatTimeoutMs() + "ms; replacing the connection");
+            ws.abort();
+            connectionLost(ws);
         }
 
         @Override
         public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
-            WebSocketManager.this.webSocket.set(null);
-
-            // If authenticated, trigger reconnection
             CompletableFuture<Void> ready = readyFuture.get();
-            if (ready != null && ready.isDone() && !ready.isCompletedExceptionally()) {
-                if (shouldReconnect.get()) {
-                    reconnect();
-                }
+            if (ready != null && !ready.isDone()) {
+                isConnecting.set(false);
+                ready.completeExceptionally(new ConnectionException(
+                        "Connection closed before it was ready: " + statusCode + " " + reason));
             }
-
+            connectionLost(webSocket);
             return CompletableFuture.completedFuture(null);
         }
 
@@ -285,39 +940,69 @@ public class WebSocketManager {
             if (ready != null && !ready.isDone()) {
                 ready.completeExceptionally(new ConnectionException("WebSocket error during connection", error));
                 isConnecting.set(false);
-            } else if (shouldReconnect.get()) {
-                reconnect();
+            }
+            connectionLost(webSocket);
+        }
+
+        @Override
+        public void onMessage(String message) {
+            try {
+                handleMessage(message);
+            } catch (Exception e) {
+                System.err.println("Error handling message: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void onOversizedMessage(long requestId, long length) {
+            InflightRequest request = inflightRequests.remove(requestId);
+            String error = "Response of " + length + " characters exceeds the maximum message size of "
+                    + options.getMaxMessageChars();
+            if (request != null) {
+                recordFailure(request, false);
+                request.fail(new FluxionDBException(error));
+            } else {
+                System.err.println("Dropped message: " + error);
             }
         }
 
         private void handleMessage(String message) {
-            Map<String, Object> parsed = JsonParser.parseObject(message);
-            String type = JsonParser.getString(parsed, "type");
+            long receivedNanos = metrics != null ? System.nanoTime() : 0;
+            ResponseEnvelope envelope = ResponseEnvelope.scan(message);
 
             // Handle "ready" message (authentication successful)
-            if (MessageTypes.READY.equals(type)) {
+            if (MessageTypes.READY.equals(envelope.getType())) {
+                if (circuitBreaker != null) {
+                    circuitBreaker.recordSuccess();
+                }
+                // Before releasing waiting callers, so held requests go out ahead of theirs
+                connected(outboundQueue.get());
+                scheduleHeartbeat();
                 CompletableFuture<Void> ready = readyFuture.get();
                 if (ready != null) {
                     ready.complete(null);
                     reconnectAttempts.set(0); // Reset reconnection counter
+                    lastReconnectDelayMs = 0;
                 }
                 isConnecting.set(false);
                 return;
             }
 
-            // Route response to inflight request
-            String id = JsonParser.getString(parsed, "id");
-            if (id != null) {
-                CompletableFuture<String> responseFuture = inflightRequests.remove(id);
-                if (responseFuture != null) {
-                    // Check for error in response
-                    String error = JsonParser.getString(parsed, "error");
-                    if (error != null) {
-                        responseFuture.completeExceptionally(
-                                new com.volandoo.fluxiondb.exceptions.FluxionDBException("Server error: " + error));
-                    } else {
-                        responseFuture.complete(message);
-                    }
+            // Route response to inflight request; the operation decodes the raw body
+            InflightRequest request = inflightRequests.remove(envelope.getId());
+            if (metrics != null) {
+                long routedNanos = System.nanoTime();
+                metrics.onMessageReceived(utf8Length(message, 0, message.length()), routedNanos - receivedNanos);
+                if (request != null) {
+                    metrics.onResponseReceived(request.type, routedNanos - request.sentNanos);
+                }
+            }
+            if (request != null) {
+                String error = envelope.getError();
+                if (error != null) {
+                    request.fail(new FluxionDBException("Server error: " + error));
+                } else {
+                    request.complete(message);
                 }
             }
         }
@@ -0,0 +1,21 @@
+package com.volandoo.fluxiondb.exceptions;
+
+/**
+ * Exception thrown instead of waiting for a connection while the server is known to be unreachable.
+ */
+public class CircuitOpenException extends ConnectionException {
+
+    private final long retryAfterMs;
+
+    public CircuitOpenException(String message, long retryAfterMs) {
+        super(message);
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * Returns how long until the client tries the server again, in milliseconds.
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -7,6 +7,9 @@ import java.util.Map;
 /**
  * Minimal JSON builder for creating JSON strings without third-party dependencies.
  * Supports objects, arrays, and proper string escaping.
+ * <p>
+ * Fields are collected in a map before anything is written, which suits building a few small
+ * documents. The client serializes its own requests with the allocation-light {@link JsonWriter}.
  */
 public class JsonBuilder {
 
@@ -107,54 +110,28 @@ public class JsonBuilder {
     }
 
     /**
-     * Escapes special characters in JSON strings.
+     * Escapes special characters in JSON strings. Returns the string itself if nothing needs escaping.
      */
     private String escapeString(String s) {
         if (s == null) {
             return "";
         }
-
-        StringBuilder sb = new StringBuilder(s.length());
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
-            switch (c) {
-                case '\\':
-                    sb.append("\\\\");
-                    break;
-                case '"':
-                    sb.append("\\\"");
-                    break;
-                case '\b':
-                    sb.append("\\b");
-                    break;
-                case '\f':
-                    sb.append("\\f");
-                    break;
-                case '\n':
-                    sb.append("\\n");
-                    break;
-                case '\r':
-                    sb.append("\\r");
-                    break;
-                case '\t':
-                    sb.append("\\t");
-                    break;
-                default:
-                    if (c < ' ') {
-                        String hex = Integer.toHexString(c);
-                        sb.append("\\u");
-                        for (int j = 0; j < 4 - hex.length(); j++) {
-                            sb.append('0');
-                        }
-                        sb.append(hex);
-                    } else {
-                        sb.append(c);
-                    }
-            }
+        if (JsonWriter.needsNoEscaping(s)) {
+            return s;
         }
+
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        JsonWriter.appendEscaped(sb, s);
         return sb.toString();
     }
 
+    /**
+     * Appends a string as a quoted, escaped JSON string value.
+     */
+    public static void appendString(StringBuilder sb, String s) {
+        JsonWriter.appendString(sb, s);
+    }
+
     /**
      * Builds a JSON array from a list of objects.
      */
@@ -1,6 +1,7 @@
 package com.volandoo.fluxiondb.json;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -8,14 +9,50 @@ import java.util.Map;
 /**
  * Minimal JSON parser for parsing JSON responses without third-party dependencies.
  * Handles objects, arrays, strings, numbers, booleans, and null values.
+ * <p>
+ * Strings without escapes are taken from the input with a single {@code substring}, integers are
+ * accumulated in place without an intermediate string, and each object or array is collected on a
+ * scratch stack first so its map or list is created at its final size. A surrogate pair written
+ * as two unicode escapes decodes to the two UTF-16 units of one code point; lone surrogates are
+ * kept as they are.
+ * <p>
+ * By default object keys go through a small deduplication table, so a response that repeats the
+ * same keys on every record ({@code "ts"}, {@code "doc"}, {@code "data"}) shares one instance of each.
  */
 public class JsonParser {
 
-    private String json;
+    // Power of two; keys are placed by their hash code
+    private static final int KEY_CACHE_SIZE = 256;
+    // Longest run of digits that cannot overflow a long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final String json;
+    private final int length;
+    private final String[] keyCache;
     private int pos;
 
+    // Decoding buffer for strings with escapes, allocated on the first one
+    private char[] buffer;
+    // Positions found by the last quote and backslash searches, see nextQuote
+    private int quoteAt = -1;
+    private int backslashAt = -1;
+
+    // Keys and values of the objects and arrays being parsed, innermost last
+    private Object[] stack = new Object[32];
+    private int top;
+
     public JsonParser(String json) {
+        this(json, true);
+    }
+
+    /**
+     * Creates a parser; {@code deduplicateKeys} controls whether repeated object keys share one
+     * String instance.
+     */
+    public JsonParser(String json, boolean deduplicateKeys) {
         this.json = json;
+        this.length = json.length();
+        this.keyCache = deduplicateKeys ? new String[KEY_CACHE_SIZE] : null;
         this.pos = 0;
     }
 
@@ -23,12 +60,19 @@ public class JsonParser {
         return new JsonParser(json).parseObjectInternal();
     }
 
+    public static Map<String, Object> parseObject(String json, boolean deduplicateKeys) {
+        return new JsonParser(json, deduplicateKeys).parseObjectInternal();
+    }
+
     public static List<Object> parseArray(String json) {
         return new JsonParser(json).parseArrayInternal();
     }
 
+    public static List<Object> parseArray(String json, boolean deduplicateKeys) {
+        return new JsonParser(json, deduplicateKeys).parseArrayInternal();
+    }
+
     private Map<String, Object> parseObjectInternal() {
-        Map<String, Object> result = new HashMap<>();
         skipWhitespace();
 
         if (peek() != '{') {
@@ -40,9 +84,10 @@ public class JsonParser {
 
         if (peek() == '}') {
             consume(); // empty object
-            return result;
+            return new HashMap<>();
         }
 
+        int base = top;
         while (true) {
             skipWhitespace();
 
@@ -50,7 +95,7 @@ public class JsonParser {
             if (peek() != '"') {
                 throw new IllegalArgumentException("Expected '\"' at position " + pos);
             }
-            String key = parseString();
+            String key = parseKey();
 
             skipWhitespace();
 
@@ -64,7 +109,8 @@ public class JsonParser {
 
             // Parse value
             Object value = parseValue();
-            result.put(key, value);
+            push(key);
+            push(value);
 
             skipWhitespace();
 
@@ -79,11 +125,16 @@ public class JsonParser {
             }
         }
 
+        int entries = (top - base) / 2;
+        Map<String, Object> result = new HashMap<>(capacityFor(entries));
+        for (int i = base; i < top; i += 2) {
+            result.put((String) stack[i], stack[i + 1]);
+        }
+        pop(base);
         return result;
     }
 
     private List<Object> parseArrayInternal() {
-        List<Object> result = new ArrayList<>();
         skipWhitespace();
 
         if (peek() != '[') {
@@ -95,13 +146,13 @@ public class JsonParser {
 
         if (peek() == ']') {
             consume(); // empty array
-            return result;
+            return new ArrayList<>();
         }
 
+        int base = top;
         while (true) {
             skipWhitespace();
-            Object value = parseValue();
-            result.add(value);
+            push(parseValue());
 
             skipWhitespace();
 
@@ -116,6 +167,11 @@ public class JsonParser {
             }
         }
 
+        List<Object> result = new ArrayList<>(top - base);
+        for (int i = base; i < top; i++) {
+            result.add(stack[i]);
+        }
+        pop(base);
         return result;
     }
 
@@ -133,83 +189,235 @@ public class JsonParser {
             return parseBoolean();
         } else if (c == 'n') {
             return parseNull();
-        } else if (c == '-' || Character.isDigit(c)) {
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
             return parseNumber();
         } else {
             throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + pos);
         }
     }
 
+    /**
+     * Parses an object key, reusing an earlier instance of the same key when deduplication is on.
+     * The hash is the key's {@link String#hashCode()}, computed while scanning for the quote.
+     */
+    private String parseKey() {
+        if (keyCache == null) {
+            return parseString();
+        }
+        int start = pos + 1;
+        int hash = 0;
+        for (int i = start; i < length; i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                pos = i + 1;
+                return cachedKey(start, i, hash);
+            }
+            if (c == '\\') {
+                return parseString(); // rare; escaped keys are not cached
+            }
+            hash = 31 * hash + c;
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    private String cachedKey(int start, int end, int hash) {
+        int slot = (hash ^ (hash >>> 16)) & (KEY_CACHE_SIZE - 1);
+        String cached = keyCache[slot];
+        if (cached != null && cached.hashCode() == hash && matches(cached, start, end)) {
+            return cached;
+        }
+        String key = json.substring(start, end);
+        keyCache[slot] = key;
+        return key;
+    }
+
+    private boolean matches(String key, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (json.charAt(i) != key.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private String parseString() {
         if (peek() != '"') {
             throw new IllegalArgumentException("Expected '\"' at position " + pos);
         }
         consume(); // consume opening quote
 
-        StringBuilder sb = new StringBuilder();
+        int start = pos;
+        int quote = nextQuote(start);
+        int backslash = nextBackslash(start);
+        if (quote < backslash) {
+            pos = quote + 1;
+            return json.substring(start, quote);
+        }
+        if (backslash == length) {
+            throw new IllegalArgumentException("Unterminated string");
+        }
+        return parseEscapedString(start, backslash);
+    }
+
+    /**
+     * Finishes a string that contains escapes, starting at the first backslash. Characters are
+     * decoded into a buffer reused across strings, so the only allocation is the String itself.
+     * Runs between escapes are short in practice (escaped JSON inside a record's data), so they
+     * are copied a character at a time rather than searched for.
+     */
+    private String parseEscapedString(int start, int backslash) {
+        int n = backslash - start;
+        char[] buffer = ensureBuffer(n + 64);
+        json.getChars(start, backslash, buffer, 0);
+        int i = backslash;
 
         while (true) {
-            if (pos >= json.length()) {
+            if (i >= length) {
                 throw new IllegalArgumentException("Unterminated string");
             }
 
-            char c = json.charAt(pos++);
+            char c = json.charAt(i++);
 
             if (c == '"') {
                 break; // end of string
-            } else if (c == '\\') {
-                // Escape sequence
-                if (pos >= json.length()) {
-                    throw new IllegalArgumentException("Unterminated escape sequence");
-                }
-                char escaped = json.charAt(pos++);
-                switch (escaped) {
-                    case '"':
-                        sb.append('"');
-                        break;
-                    case '\\':
-                        sb.append('\\');
-                        break;
-                    case '/':
-                        sb.append('/');
-                        break;
-                    case 'b':
-                        sb.append('\b');
-                        break;
-                    case 'f':
-                        sb.append('\f');
-                        break;
-                    case 'n':
-                        sb.append('\n');
-                        break;
-                    case 'r':
-                        sb.append('\r');
-                        break;
-                    case 't':
-                        sb.append('\t');
-                        break;
-                    case 'u':
-                        // Unicode escape
-                        if (pos + 4 > json.length()) {
-                            throw new IllegalArgumentException("Invalid unicode escape");
-                        }
-                        String hex = json.substring(pos, pos + 4);
-                        pos += 4;
-                        sb.append((char) Integer.parseInt(hex, 16));
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Invalid escape sequence: \\" + escaped);
-                }
-            } else {
-                sb.append(c);
             }
+            if (n == buffer.length) {
+                buffer = ensureBuffer(n + 1);
+            }
+            if (c != '\\') {
+                buffer[n++] = c;
+                continue;
+            }
+
+            // Escape sequence
+            if (i >= length) {
+                throw new IllegalArgumentException("Unterminated escape sequence");
+            }
+            char escaped = json.charAt(i++);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    buffer[n++] = escaped;
+                    break;
+                case 'b':
+                    buffer[n++] = '\b';
+                    break;
+                case 'f':
+                    buffer[n++] = '\f';
+                    break;
+                case 'n':
+                    buffer[n++] = '\n';
+                    break;
+                case 'r':
+                    buffer[n++] = '\r';
+                    break;
+                case 't':
+                    buffer[n++] = '\t';
+                    break;
+                case 'u':
+                    // Unicode escape; a surrogate pair arrives as two escapes, one unit each
+                    buffer[n++] = parseUnicodeEscape(i);
+                    i += 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid escape sequence: \\" + escaped);
+            }
+        }
+
+        pos = i;
+        return new String(buffer, 0, n);
+    }
+
+    /**
+     * Returns the decoding buffer with room for at least {@code required} characters, keeping its
+     * contents.
+     */
+    private char[] ensureBuffer(int required) {
+        if (buffer == null) {
+            buffer = new char[Math.max(64, required * 2)];
+        } else if (buffer.length < required) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, required));
+        }
+        return buffer;
+    }
+
+    /**
+     * Position of the first '"' at or after {@code from}, or the input length if there is none.
+     * The answer is remembered; since the parser only moves forward, the input is searched at most
+     * once in total however far apart strings and their quotes are.
+     */
+    private int nextQuote(int from) {
+        if (quoteAt < from) {
+            int found = json.indexOf('"', from);
+            quoteAt = found < 0 ? length : found;
         }
+        return quoteAt;
+    }
 
-        return sb.toString();
+    /**
+     * Position of the first backslash at or after {@code from}, or the input length; remembered
+     * like {@link #nextQuote}.
+     */
+    private int nextBackslash(int from) {
+        if (backslashAt < from) {
+            int found = json.indexOf('\\', from);
+            backslashAt = found < 0 ? length : found;
+        }
+        return backslashAt;
+    }
+
+    private char parseUnicodeEscape(int at) {
+        if (at + 4 > length) {
+            throw new IllegalArgumentException("Invalid unicode escape");
+        }
+        int value = 0;
+        for (int i = at; i < at + 4; i++) {
+            int digit = Character.digit(json.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid unicode escape: " + json.substring(at, at + 4));
+            }
+            value = (value << 4) | digit;
+        }
+        return (char) value;
     }
 
     private Number parseNumber() {
         int start = pos;
+        int i = pos;
+        boolean negative = json.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+
+        // Integers, by far the common case, are accumulated without a substring
+        int digitsStart = i;
+        long value = 0;
+        while (i < length) {
+            char c = json.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            i++;
+        }
+        int digits = i - digitsStart;
+        boolean fraction = i < length && (json.charAt(i) == '.' || json.charAt(i) == 'e' || json.charAt(i) == 'E');
+        if (digits == 0 || digits > MAX_LONG_DIGITS || fraction) {
+            return parseNumberText(start);
+        }
+        pos = i;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal, an exponent or an integer too long for the fast path from its text.
+     */
+    private Number parseNumberText(int start) {
+        pos = start;
 
         // Handle negative sign
         if (peek() == '-') {
@@ -220,9 +428,9 @@ public class JsonParser {
         boolean hasDecimal = false;
         boolean hasExponent = false;
 
-        while (pos < json.length()) {
+        while (pos < length) {
             char c = json.charAt(pos);
-            if (Character.isDigit(c)) {
+            if (c >= '0' && c <= '9') {
                 consume();
             } else if (c == '.' && !hasDecimal && !hasExponent) {
                 hasDecimal = true;
@@ -230,7 +438,7 @@ public class JsonParser {
             } else if ((c == 'e' || c == 'E') && !hasExponent) {
                 hasExponent = true;
                 consume();
-                if (pos < json.length() && (peek() == '+' || peek() == '-')) {
+                if (pos < length && (peek() == '+' || peek() == '-')) {
                     consume();
                 }
             } else {
@@ -273,13 +481,17 @@ public class JsonParser {
     }
 
     private void skipWhitespace() {
-        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c > ' ' || (c != ' ' && c != '\n' && c != '\r' && c != '\t')) {
+                break;
+            }
             pos++;
         }
     }
 
     private char peek() {
-        if (pos >= json.length()) {
+        if (pos >= length) {
             throw new IllegalArgumentException("Unexpected end of input at position " + pos);
         }
         return json.charAt(pos);
@@ -289,6 +501,25 @@ public class JsonParser {
         pos++;
     }
 
+    private void push(Object value) {
+        if (top == stack.length) {
+            stack = Arrays.copyOf(stack, top * 2);
+        }
+        stack[top++] = value;
+    }
+
+    /**
+     * Drops everything above {@code base}, clearing the slots so parsed values are not retained.
+     */
+    private void pop(int base) {
+        Arrays.fill(stack, base, top, null);
+        top = base;
+    }
+
+    private static int capacityFor(int entries) {
+        return (int) (entries / 0.75f) + 1;
+    }
+
     /**
      * Helper method to get a string value from a map.
      */
@@ -0,0 +1,537 @@
+package com.volandoo.fluxiondb.json;
+
+/**
+ * Minimal pull-style JSON reader over a character sequence.
+ * <p>
+ * Unlike {@link JsonParser}, nothing is materialized until the caller asks for it: values can be
+ * skipped with a plain character scan, and decoders can walk straight to the fields they need.
+ * The reader navigates trusted server output, so it checks structure only as far as it needs to.
+ */
+public final class JsonReader {
+
+    /**
+     * Kind of the next value in the input.
+     */
+    public enum Token {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        END_DOCUMENT
+    }
+
+    // Object keys repeat for every record, so recently seen names are reused instead of re-allocated
+    private static final int NAME_CACHE_SIZE = 8;
+
+    // Any 15-digit integer is below 2^53, so it converts to a double exactly
+    private static final int MAX_FAST_DIGITS = 15;
+    // Powers of ten up to 10^15, all exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private CharSequence json;
+    private int end;
+    private final String[] nameCache = new String[NAME_CACHE_SIZE];
+    private int nameCacheNext;
+    private int pos;
+
+    public JsonReader(CharSequence json) {
+        this(json, 0, json.length());
+    }
+
+    /**
+     * Creates a reader over the region {@code [start, end)} of the input.
+     */
+    public JsonReader(CharSequence json, int start, int end) {
+        this.json = json;
+        this.pos = start;
+        this.end = end;
+    }
+
+    /**
+     * Points the reader at the region {@code [start, end)} of another input, keeping its cache of
+     * recently seen names, so one reader can decode many small documents that share their keys.
+     */
+    public JsonReader reset(CharSequence json, int start, int end) {
+        this.json = json;
+        this.pos = start;
+        this.end = end;
+        return this;
+    }
+
+    public Token peek() {
+        skipWhitespace();
+        if (pos >= end) {
+            return Token.END_DOCUMENT;
+        }
+        char c = json.charAt(pos);
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '}':
+                return Token.END_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                return Token.END_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return Token.NUMBER;
+                }
+                throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + pos);
+        }
+    }
+
+    public void beginObject() {
+        expect('{');
+    }
+
+    public void endObject() {
+        expect('}');
+    }
+
+    public void beginArray() {
+        expect('[');
+    }
+
+    public void endArray() {
+        expect(']');
+    }
+
+    /**
+     * Returns true if the current object or array has another element, consuming the separating comma.
+     */
+    public boolean hasNext() {
+        skipWhitespace();
+        if (pos >= end) {
+            return false;
+        }
+        char c = json.charAt(pos);
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (c == ',') {
+            pos++;
+            skipWhitespace();
+        }
+        return true;
+    }
+
+    /**
+     * Reads an object key and the following ':'.
+     */
+    public String nextName() {
+        skipWhitespace();
+        String name = readName();
+        expect(':');
+        return name;
+    }
+
+    public String nextString() {
+        skipWhitespace();
+        if (pos >= end || json.charAt(pos) != '"') {
+            throw new IllegalArgumentException("Expected '\"' at position " + pos);
+        }
+        int start = pos + 1;
+        int close = findPlainStringEnd(start);
+        if (close >= 0) {
+            pos = close + 1;
+            return json.subSequence(start, close).toString();
+        }
+        return readEscapedString();
+    }
+
+    /**
+     * Reads a number as a long without creating an intermediate string.
+     * Fractional values are truncated.
+     */
+    public long nextLong() {
+        skipWhitespace();
+        int start = pos;
+        boolean negative = false;
+        if (pos < end && json.charAt(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (pos < end) {
+            char c = json.charAt(pos);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            digits++;
+            pos++;
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("Expected number at position " + start);
+        }
+        if (digits > 18 || (pos < end && isNumberContinuation(json.charAt(pos)))) {
+            pos = start;
+            return (long) nextDouble();
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a number as a double. Plain decimals of up to 15 significant digits are converted
+     * without an intermediate string; both operands of the final division are exact, so the
+     * result is the correctly rounded value Double.parseDouble would return.
+     */
+    public double nextDouble() {
+        skipWhitespace();
+        int start = pos;
+        boolean negative = pos < end && json.charAt(pos) == '-';
+        int i = negative ? pos + 1 : pos;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        while (i < end) {
+            char c = json.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fraction) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+            i++;
+        }
+        if (digits > 0 && digits <= MAX_FAST_DIGITS && !(fraction && fractionDigits == 0)
+                && (i >= end || !isNumberChar(json.charAt(i)))) {
+            pos = i;
+            double value = (double) mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        while (pos < end && isNumberChar(json.charAt(pos))) {
+            pos++;
+        }
+        if (start == pos) {
+            throw new IllegalArgumentException("Expected number at position " + start);
+        }
+        return Double.parseDouble(json.subSequence(start, pos).toString());
+    }
+
+    public boolean nextBoolean() {
+        skipWhitespace();
+        if (regionMatches("true")) {
+            pos += 4;
+            return true;
+        }
+        if (regionMatches("false")) {
+            pos += 5;
+            return false;
+        }
+        throw new IllegalArgumentException("Expected boolean at position " + pos);
+    }
+
+    public void nextNull() {
+        skipWhitespace();
+        if (!regionMatches("null")) {
+            throw new IllegalArgumentException("Expected null at position " + pos);
+        }
+        pos += 4;
+    }
+
+    /**
+     * Skips the next value, including nested objects and arrays, without decoding it.
+     */
+    public void skipValue() {
+        skipWhitespace();
+        if (pos >= end) {
+            throw new IllegalArgumentException("Unexpected end of input at position " + pos);
+        }
+        char c = json.charAt(pos);
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            skipContainer();
+        } else {
+            while (pos < end) {
+                char v = json.charAt(pos);
+                if (v == ',' || v == '}' || v == ']' || isWhitespace(v)) {
+                    break;
+                }
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Returns the start of the next string value's contents (after the opening quote) and skips it.
+     * The contents end at {@link #position()} - 1 and are still escaped.
+     */
+    public int skipStringValue() {
+        skipWhitespace();
+        if (pos >= end || json.charAt(pos) != '"') {
+            throw new IllegalArgumentException("Expected '\"' at position " + pos);
+        }
+        int start = pos + 1;
+        skipString();
+        return start;
+    }
+
+    /**
+     * Returns the current read position in the underlying sequence.
+     */
+    public int position() {
+        return pos;
+    }
+
+    /**
+     * Appends the unescaped form of {@code json[start, end)}, the contents of a string value
+     * without its quotes, to {@code out}.
+     */
+    public static void unescape(CharSequence json, int start, int end, StringBuilder out) {
+        int clean = start;
+        int i = start;
+        while (i < end) {
+            if (json.charAt(i) != '\\') {
+                i++;
+                continue;
+            }
+            out.append(json, clean, i);
+            if (i + 1 >= end) {
+                throw new IllegalArgumentException("Unterminated escape sequence");
+            }
+            char escaped = json.charAt(i + 1);
+            i += 2;
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    out.append(escaped);
+                    break;
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 > end) {
+                        throw new IllegalArgumentException("Invalid unicode escape");
+                    }
+                    int value = 0;
+                    for (int k = 0; k < 4; k++) {
+                        int digit = Character.digit(json.charAt(i + k), 16);
+                        if (digit < 0) {
+                            throw new IllegalArgumentException("Invalid unicode escape at position " + (i + k));
+                        }
+                        value = (value << 4) | digit;
+                    }
+                    out.append((char) value);
+                    i += 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid escape sequence: \\" + escaped);
+            }
+            clean = i;
+        }
+        out.append(json, clean, end);
+    }
+
+    private String readName() {
+        if (pos >= end || json.charAt(pos) != '"') {
+            throw new IllegalArgumentException("Expected '\"' at position " + pos);
+        }
+        int start = pos + 1;
+        int close = findPlainStringEnd(start);
+        if (close < 0) {
+            return readEscapedString();
+        }
+        pos = close + 1;
+
+        int length = close - start;
+        for (String cached : nameCache) {
+            if (cached != null && cached.length() == length && regionEquals(start, cached)) {
+                return cached;
+            }
+        }
+        String name = json.subSequence(start, close).toString();
+        nameCache[nameCacheNext] = name;
+        nameCacheNext = (nameCacheNext + 1) % NAME_CACHE_SIZE;
+        return name;
+    }
+
+    /**
+     * Returns the index of the closing quote if the string has no escapes, or -1 otherwise.
+     */
+    private int findPlainStringEnd(int start) {
+        for (int i = start; i < end; i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                return i;
+            }
+            if (c == '\\') {
+                return -1;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    private String readEscapedString() {
+        pos++; // opening quote
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (pos >= end) {
+                throw new IllegalArgumentException("Unterminated string");
+            }
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= end) {
+                throw new IllegalArgumentException("Unterminated escape sequence");
+            }
+            char escaped = json.charAt(pos++);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append(escaped);
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    sb.append(readHexChar());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid escape sequence: \\" + escaped);
+            }
+        }
+    }
+
+    private char readHexChar() {
+        if (pos + 4 > end) {
+            throw new IllegalArgumentException("Invalid unicode escape");
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(json.charAt(pos++), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid unicode escape at position " + (pos - 1));
+            }
+            value = (value << 4) | digit;
+        }
+        return (char) value;
+    }
+
+    private void skipString() {
+        pos++; // opening quote
+        while (pos < end) {
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                pos++;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    private void skipContainer() {
+        int depth = 0;
+        while (pos < end) {
+            char c = json.charAt(pos);
+            if (c == '"') {
+                skipString();
+                continue;
+            }
+            pos++;
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (--depth == 0) {
+                    return;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unexpected end of input at position " + pos);
+    }
+
+    private void expect(char expected) {
+        skipWhitespace();
+        if (pos >= end || json.charAt(pos) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at position " + pos);
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private boolean regionMatches(String literal) {
+        return pos + literal.length() <= end && regionEquals(pos, literal);
+    }
+
+    private boolean regionEquals(int start, String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (json.charAt(start + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static boolean isNumberContinuation(char c) {
+        return c == '.' || c == 'e' || c == 'E';
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+}
@@ -0,0 +1,298 @@
+package com.volandoo.fluxiondb.json;
+
+/**
+ * Streaming JSON writer that appends straight into a {@link StringBuilder}.
+ * <p>
+ * Unlike {@link JsonBuilder}, nothing is collected before it is written: there is no map of fields,
+ * numbers are appended without boxing, and strings that need no escaping are copied in one step.
+ * Commas are inserted automatically. The writer trusts its caller to produce a well-formed
+ * sequence of calls and does not validate nesting.
+ * <p>
+ * Request payloads are built with {@link #local()}, a per-thread writer whose buffer is reused from
+ * one request to the next. A JSON document carried as a string value, such as a record's data, can be
+ * written in place with {@link #beginEmbedded()}.
+ */
+public final class JsonWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+    // A thread-local buffer grown past this by one large request is dropped rather than kept
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+    // 2^53: every integer below it is exactly representable as a double
+    private static final double MAX_EXACT_DOUBLE = 9007199254740992.0;
+
+    private static final ThreadLocal<JsonWriter> LOCAL =
+            ThreadLocal.withInitial(() -> new JsonWriter(new StringBuilder(INITIAL_CAPACITY), true));
+
+    // Replacement text for every character that must be escaped; null for those copied as is
+    private static final String[] ESCAPES = new String['\\' + 1];
+    // The same replacements escaped once more, for strings inside an embedded document
+    private static final String[] ESCAPES_TWICE = new String[ESCAPES.length];
+
+    static {
+        for (char c = 0; c < ' '; c++) {
+            ESCAPES[c] = String.format("\\u%04x", (int) c);
+        }
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\f'] = "\\f";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+        for (int c = 0; c < ESCAPES.length; c++) {
+            if (ESCAPES[c] != null) {
+                StringBuilder twice = new StringBuilder();
+                appendEscaped(twice, ESCAPES[c]);
+                ESCAPES_TWICE[c] = twice.toString();
+            }
+        }
+    }
+
+    private StringBuilder out;
+    private final boolean pooled;
+    // True for the writer of an embedded document, whose output lands inside a string value
+    private final boolean embedded;
+    private boolean needsComma;
+    private JsonWriter embeddedWriter;
+
+    /**
+     * Creates a writer that appends to {@code out}, which may already hold other text.
+     */
+    public JsonWriter(StringBuilder out) {
+        this(out, false);
+    }
+
+    private JsonWriter(StringBuilder out, boolean pooled) {
+        this(out, pooled, false);
+    }
+
+    private JsonWriter(StringBuilder out, boolean pooled, boolean embedded) {
+        this.out = out;
+        this.pooled = pooled;
+        this.embedded = embedded;
+    }
+
+    /**
+     * Returns this thread's writer, emptied. Finish with {@link #build()} before the thread asks
+     * for it again; the writer is not reentrant.
+     */
+    public static JsonWriter local() {
+        JsonWriter writer = LOCAL.get();
+        writer.out.setLength(0);
+        writer.needsComma = false;
+        return writer;
+    }
+
+    public JsonWriter beginObject() {
+        separate();
+        out.append('{');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        out.append('}');
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separate();
+        out.append('[');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        out.append(']');
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes an object key; the next call writes its value.
+     */
+    public JsonWriter name(String name) {
+        separate();
+        appendQuoted(name);
+        out.append(':');
+        needsComma = false;
+        return this;
+    }
+
+    /**
+     * Writes a string value, or null.
+     */
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            out.append("null");
+        } else {
+            appendQuoted(value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes a finite number; integral values within the range a double holds exactly are written
+     * without a fraction.
+     */
+    public JsonWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("JSON numbers must be finite: " + value);
+        }
+        separate();
+        if (value == (long) value && Math.abs(value) < MAX_EXACT_DOUBLE) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separate();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        separate();
+        out.append("null");
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Starts a string value whose contents are a JSON document of their own, and returns the writer
+     * for that document. It appends to the same buffer, escaping its output as it goes, so the
+     * document is never built as a separate String. Finish with {@link #endEmbedded()} on this
+     * writer once the document is complete. Embedded documents do not nest.
+     */
+    public JsonWriter beginEmbedded() {
+        if (embedded) {
+            throw new IllegalStateException("Embedded documents do not nest");
+        }
+        separate();
+        out.append('"');
+        if (embeddedWriter == null) {
+            embeddedWriter = new JsonWriter(out, false, true);
+        }
+        embeddedWriter.out = out;
+        embeddedWriter.needsComma = false;
+        return embeddedWriter;
+    }
+
+    /**
+     * Closes the string value opened by {@link #beginEmbedded()}.
+     */
+    public JsonWriter endEmbedded() {
+        out.append('"');
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Returns the number of characters in the underlying buffer.
+     */
+    public int length() {
+        return out.length();
+    }
+
+    /**
+     * Returns the JSON written so far. A thread-local writer whose buffer grew past 1M characters
+     * releases it here, so one very large request does not pin that memory to the thread.
+     */
+    public String build() {
+        String json = out.toString();
+        if (pooled && out.capacity() > MAX_RETAINED_CAPACITY) {
+            out = new StringBuilder(INITIAL_CAPACITY);
+        }
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void separate() {
+        if (needsComma) {
+            out.append(',');
+        }
+    }
+
+    private void appendQuoted(String s) {
+        if (!embedded) {
+            appendString(out, s);
+            return;
+        }
+        // Quotes and escapes are themselves escaped, since the document sits inside a string
+        out.append("\\\"");
+        int length = s.length();
+        int clean = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < ESCAPES_TWICE.length && ESCAPES_TWICE[c] != null) {
+                out.append(s, clean, i).append(ESCAPES_TWICE[c]);
+                clean = i + 1;
+            }
+        }
+        out.append(s, clean, length).append("\\\"");
+    }
+
+    /**
+     * Appends a string as a quoted, escaped JSON string value; null is written as an empty string.
+     */
+    public static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        if (s != null) {
+            appendEscaped(sb, s);
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Appends the escaped form of a string without quotes. Runs of characters that need no
+     * escaping are copied in bulk, so a string without any is appended in a single step.
+     */
+    public static void appendEscaped(StringBuilder sb, String s) {
+        int length = s.length();
+        int clean = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < ESCAPES.length && ESCAPES[c] != null) {
+                sb.append(s, clean, i).append(ESCAPES[c]);
+                clean = i + 1;
+            }
+        }
+        if (clean == 0) {
+            sb.append(s);
+        } else {
+            sb.append(s, clean, length);
+        }
+    }
+
+    /**
+     * Returns true if the string can be written between quotes as is.
+     */
+    static boolean needsNoEscaping(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < ESCAPES.length && ESCAPES[c] != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package com.volandoo.fluxiondb.metrics;
+
+/**
+ * Receives per-request measurements from the client's connections.
+ * <p>
+ * Methods are called on the request and socket threads, once per message, so implementations must be
+ * thread-safe, must not block and should not allocate. Message types are the
+ * {@link com.volandoo.fluxiondb.protocol.MessageTypes} constants. Sizes are the UTF-8 length of the
+ * message text, as the frame carries it. Every method does nothing by default.
+ *
+ * @see MetricsRecorder
+ */
+public interface MetricsListener {
+
+    /**
+     * A request was serialized and queued on a socket.
+     *
+     * @param bytes       the frame's size
+     * @param encodeNanos time spent building the frame around the request's payload
+     */
+    default void onRequestSent(String type, int bytes, long encodeNanos) {
+    }
+
+    /**
+     * The server answered a request, successfully or with an error.
+     *
+     * @param latencyNanos time from queueing the request to receiving the response
+     */
+    default void onResponseReceived(String type, long latencyNanos) {
+    }
+
+    /**
+     * A request ended without a response: it timed out, could not be written, or its connection was
+     * lost, including requests the caller had already cancelled. Every request sent ends with exactly
+     * one call here or to {@link #onResponseReceived}. Reads that are sent again after a reconnect are
+     * reported here and then sent again.
+     *
+     * @param elapsedNanos time from queueing the request until it failed
+     * @param timedOut     true if the request's deadline passed
+     */
+    default void onRequestFailed(String type, long elapsedNanos, boolean timedOut) {
+    }
+
+    /**
+     * A message arrived on a socket, whether or not a request was still waiting for it.
+     *
+     * @param bytes       the message's size
+     * @param decodeNanos time spent reading its envelope and routing it
+     */
+    default void onMessageReceived(int bytes, long decodeNanos) {
+    }
+
+    /**
+     * A socket is about to try to reconnect.
+     *
+     * @param attempt the attempt number since the connection was lost, starting at 1
+     */
+    default void onReconnectAttempt(int attempt) {
+    }
+}
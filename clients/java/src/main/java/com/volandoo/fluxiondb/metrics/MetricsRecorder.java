@@ -0,0 +1,114 @@
+package com.volandoo.fluxiondb.metrics;
+
+import com.volandoo.fluxiondb.protocol.MessageTypes;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Built-in {@link MetricsListener} that keeps a latency histogram per message type and client-wide
+ * counters, readable at any time with {@link #snapshot()}.
+ * <p>
+ * One recorder can be shared by every connection of a client. Recording uses only atomic updates on
+ * preallocated state.
+ */
+public final class MetricsRecorder implements MetricsListener {
+
+    // Index into the per-type arrays; anything else shares the last slot
+    private static final String[] TYPES = {
+            MessageTypes.INSERT, MessageTypes.QUERY_RECORDS, MessageTypes.QUERY_COLLECTIONS,
+            MessageTypes.QUERY_DOCUMENT, MessageTypes.DELETE_DOCUMENT, MessageTypes.DELETE_COLLECTION,
+            MessageTypes.DELETE_RECORD, MessageTypes.DELETE_MULTIPLE_RECORDS, MessageTypes.DELETE_RECORDS_RANGE,
+            MessageTypes.SET_VALUE, MessageTypes.GET_VALUE, MessageTypes.GET_VALUES, MessageTypes.REMOVE_VALUE,
+            MessageTypes.GET_ALL_VALUES, MessageTypes.GET_ALL_KEYS, MessageTypes.MANAGE_API_KEYS,
+            MessageTypes.CONNECTIONS
+    };
+    private static final String OTHER = "other";
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[TYPES.length + 1];
+    private final LatencyHistogram encodeTimes = new LatencyHistogram();
+    private final LatencyHistogram decodeTimes = new LatencyHistogram();
+
+    private final AtomicLong requestsSent = new AtomicLong();
+    private final AtomicLong responsesReceived = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong reconnectAttempts = new AtomicLong();
+    // Its own counter, so a snapshot never subtracts counters read at different moments
+    private final AtomicLong inflight = new AtomicLong();
+
+    public MetricsRecorder() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void onRequestSent(String type, int bytes, long encodeNanos) {
+        requestsSent.incrementAndGet();
+        inflight.incrementAndGet();
+        bytesSent.addAndGet(bytes);
+        encodeTimes.record(encodeNanos);
+    }
+
+    @Override
+    public void onResponseReceived(String type, long latencyNanos) {
+        responsesReceived.incrementAndGet();
+        inflight.decrementAndGet();
+        latencies[indexOf(type)].record(latencyNanos);
+    }
+
+    @Override
+    public void onRequestFailed(String type, long elapsedNanos, boolean timedOut) {
+        failures.incrementAndGet();
+        inflight.decrementAndGet();
+        if (timedOut) {
+            timeouts.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onMessageReceived(int bytes, long decodeNanos) {
+        bytesReceived.addAndGet(bytes);
+        decodeTimes.record(decodeNanos);
+    }
+
+    @Override
+    public void onReconnectAttempt(int attempt) {
+        reconnectAttempts.incrementAndGet();
+    }
+
+    /**
+     * Copies the current histograms and counters. Types without responses are left out.
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, HistogramSnapshot> byType = new LinkedHashMap<>();
+        for (int i = 0; i < latencies.length; i++) {
+            HistogramSnapshot histogram = latencies[i].snapshot();
+            if (histogram.getCount() > 0) {
+                byType.put(i < TYPES.length ? TYPES[i] : OTHER, histogram);
+            }
+        }
+        return new MetricsSnapshot(byType, encodeTimes.snapshot(), decodeTimes.snapshot(),
+                requestsSent.get(), responsesReceived.get(), failures.get(), timeouts.get(), Math.max(0, inflight.get()),
+                bytesSent.get(), bytesReceived.get(), reconnectAttempts.get());
+    }
+
+    private static int indexOf(String type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            // Callers pass the constants themselves, so identity almost always matches first
+            if (TYPES[i] == type) {
+                return i;
+            }
+        }
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) {
+                return i;
+            }
+        }
+        return TYPES.length;
+    }
+}
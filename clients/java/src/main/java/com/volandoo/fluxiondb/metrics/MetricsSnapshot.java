@@ -0,0 +1,121 @@
+package com.volandoo.fluxiondb.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Point-in-time copy of a {@link MetricsRecorder}'s histograms and counters. Times are in nanoseconds
+ * and sizes in UTF-8 bytes of the message text.
+ */
+public final class MetricsSnapshot {
+
+    private final Map<String, HistogramSnapshot> latencyByType;
+    private final HistogramSnapshot encodeTime;
+    private final HistogramSnapshot decodeTime;
+    private final long requestsSent;
+    private final long responsesReceived;
+    private final long failures;
+    private final long timeouts;
+    private final long inflight;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final long reconnectAttempts;
+
+    MetricsSnapshot(Map<String, HistogramSnapshot> latencyByType, HistogramSnapshot encodeTime,
+                    HistogramSnapshot decodeTime, long requestsSent, long responsesReceived, long failures,
+                    long timeouts, long inflight, long bytesSent, long bytesReceived, long reconnectAttempts) {
+        this.latencyByType = Collections.unmodifiableMap(latencyByType);
+        this.encodeTime = encodeTime;
+        this.decodeTime = decodeTime;
+        this.requestsSent = requestsSent;
+        this.responsesReceived = responsesReceived;
+        this.failures = failures;
+        this.timeouts = timeouts;
+        this.inflight = inflight;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.reconnectAttempts = reconnectAttempts;
+    }
+
+    /**
+     * Returns response latency per message type, keyed by the protocol's type code such as "qry".
+     * Types that have not been answered yet are absent.
+     */
+    public Map<String, HistogramSnapshot> getLatencyByType() {
+        return latencyByType;
+    }
+
+    /**
+     * Returns the response latency histogram for one message type, or null if it has none.
+     */
+    public HistogramSnapshot getLatency(String type) {
+        return latencyByType.get(type);
+    }
+
+    /**
+     * Returns the time spent framing each request.
+     */
+    public HistogramSnapshot getEncodeTime() {
+        return encodeTime;
+    }
+
+    /**
+     * Returns the time spent reading each incoming message's envelope and routing it.
+     */
+    public HistogramSnapshot getDecodeTime() {
+        return decodeTime;
+    }
+
+    public long getRequestsSent() {
+        return requestsSent;
+    }
+
+    public long getResponsesReceived() {
+        return responsesReceived;
+    }
+
+    /**
+     * Returns the number of requests that ended without a response, including timeouts.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Returns the number of requests sent and still waiting for a response.
+     */
+    public long getInflight() {
+        return inflight;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getReconnectAttempts() {
+        return reconnectAttempts;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "requestsSent=" + requestsSent +
+                ", responsesReceived=" + responsesReceived +
+                ", failures=" + failures +
+                ", timeouts=" + timeouts +
+                ", inflight=" + inflight +
+                ", bytesSent=" + bytesSent +
+                ", bytesReceived=" + bytesReceived +
+                ", reconnectAttempts=" + reconnectAttempts +
+                ", latencyByType=" + latencyByType +
+                '}';
+    }
+}
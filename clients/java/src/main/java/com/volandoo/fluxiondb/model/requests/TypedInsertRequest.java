@@ -0,0 +1,60 @@
+package com.volandoo.fluxiondb.model.requests;
+
+import java.util.Objects;
+
+/**
+ * Request to insert a single time series record whose data is written by a
+ * {@link com.volandoo.fluxiondb.codec.PayloadCodec}.
+ */
+public final class TypedInsertRequest<T> {
+    private final long ts;
+    private final String doc;
+    private final T data;
+    private final String col;
+
+    public TypedInsertRequest(long ts, String doc, T data, String col) {
+        this.ts = ts;
+        this.doc = Objects.requireNonNull(doc, "doc cannot be null");
+        this.data = Objects.requireNonNull(data, "data cannot be null");
+        this.col = Objects.requireNonNull(col, "col cannot be null");
+    }
+
+    public long getTs() {
+        return ts;
+    }
+
+    public String getDoc() {
+        return doc;
+    }
+
+    public T getData() {
+        return data;
+    }
+
+    public String getCol() {
+        return col;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TypedInsertRequest<?> that = (TypedInsertRequest<?>) o;
+        return ts == that.ts && doc.equals(that.doc) && data.equals(that.data) && col.equals(that.col);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ts, doc, data, col);
+    }
+
+    @Override
+    public String toString() {
+        return "TypedInsertRequest{" +
+                "ts=" + ts +
+                ", doc='" + doc + '\'' +
+                ", data=" + data +
+                ", col='" + col + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,39 @@
+package com.volandoo.fluxiondb.model.responses;
+
+import java.util.Objects;
+
+public final class TypedRecordResponse<T> {
+    private final long ts;
+    private final T data;
+
+    public TypedRecordResponse(long ts, T data) {
+        this.ts = ts;
+        this.data = data;
+    }
+
+    public long getTs() {
+        return ts;
+    }
+
+    public T getData() {
+        return data;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TypedRecordResponse<?> that = (TypedRecordResponse<?>) o;
+        return ts == that.ts && Objects.equals(data, that.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ts, data);
+    }
+
+    @Override
+    public String toString() {
+        return "TypedRecordResponse{ts=" + ts + ", data=" + data + "}";
+    }
+}
@@ -1,8 +1,10 @@
 package com.volandoo.fluxiondb.operations;
 
-import com.volandoo.fluxiondb.connection.WebSocketManager;
-import com.volandoo.fluxiondb.json.JsonBuilder;
+import com.volandoo.fluxiondb.cache.KeyValueCache;
+import com.volandoo.fluxiondb.cache.LatestRecordsCache;
+import com.volandoo.fluxiondb.connection.MessageSender;
 import com.volandoo.fluxiondb.json.JsonParser;
+import com.volandoo.fluxiondb.json.JsonWriter;
 import com.volandoo.fluxiondb.model.requests.DeleteCollectionParams;
 import com.volandoo.fluxiondb.protocol.MessageTypes;
 
@@ -16,14 +18,30 @@ import java.util.concurrent.CompletableFuture;
  */
 public class CollectionOperations {
 
-    private final WebSocketManager wsManager;
+    private final MessageSender transport;
+    private final KeyValueCache keyValueCache;
+    private final LatestRecordsCache latestCache;
+    private final SingleFlight singleFlight;
 
-    public CollectionOperations(WebSocketManager wsManager) {
-        this.wsManager = wsManager;
+    public CollectionOperations(MessageSender transport) {
+        this(transport, null, null, new SingleFlight());
+    }
+
+    /**
+     * @param keyValueCache key-value near-cache to invalidate when a collection is deleted, or null
+     * @param latestCache   fetchLatestRecords cache to invalidate when a collection is deleted, or null
+     * @param singleFlight  deduplication of identical reads, shared with the client's other operations
+     */
+    public CollectionOperations(MessageSender transport, KeyValueCache keyValueCache,
+                                LatestRecordsCache latestCache, SingleFlight singleFlight) {
+        this.transport = transport;
+        this.keyValueCache = keyValueCache;
+        this.latestCache = latestCache;
+        this.singleFlight = singleFlight;
     }
 
     public CompletableFuture<List<String>> fetchCollections() {
-        return wsManager.send(MessageTypes.QUERY_COLLECTIONS, "{}")
+        return singleFlight.execute(MessageTypes.QUERY_COLLECTIONS, "", "{}", () -> transport.send(MessageTypes.QUERY_COLLECTIONS, "{}")
                 .thenApply(response -> {
                     Map<String, Object> parsed = JsonParser.parseObject(response);
                     List<Object> collectionsList = JsonParser.getArray(parsed, "collections");
@@ -34,15 +52,32 @@ public class CollectionOperations {
                     }
 
                     return result;
-                });
+                }), ArrayList::new);
     }
 
     public CompletableFuture<Void> deleteCollection(DeleteCollectionParams params) {
-        String data = new JsonBuilder()
-                .add("col", params.getCol())
+        String data = JsonWriter.local().beginObject()
+                .name("col").value(params.getCol())
+                .endObject()
                 .build();
 
-        return wsManager.send(MessageTypes.DELETE_COLLECTION, data)
-                .thenApply(response -> null);
+        CompletableFuture<String> response = singleFlight.afterWrite(params.getCol(),
+                transport.send(MessageTypes.DELETE_COLLECTION, data));
+        if (keyValueCache == null && latestCache == null) {
+            return response.thenApply(r -> null);
+        }
+
+        invalidateCaches(params.getCol());
+        return response.whenComplete((r, error) -> invalidateCaches(params.getCol()))
+                .thenApply(r -> null);
+    }
+
+    private void invalidateCaches(String col) {
+        if (keyValueCache != null) {
+            keyValueCache.invalidateCollection(col);
+        }
+        if (latestCache != null) {
+            latestCache.invalidateCollection(col);
+        }
     }
 }
@@ -0,0 +1,72 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.exceptions.FluxionDBException;
+import com.volandoo.fluxiondb.model.requests.FetchRecordsParams;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Blocking iterator over a document's records, fetched page by page.
+ * <p>
+ * The next page is requested as soon as the current one arrives, so iteration only blocks when
+ * the caller consumes records faster than the server returns them. Not thread-safe.
+ */
+final class DocumentHistoryIterator implements Iterator<RecordResponse> {
+
+    private final DocumentPager pager;
+    private CompletableFuture<List<RecordResponse>> nextPage;
+    private List<RecordResponse> page = Collections.emptyList();
+    private int index;
+
+    DocumentHistoryIterator(TimeSeriesOperations operations, FetchRecordsParams params) {
+        this.pager = new DocumentPager(operations, params);
+        this.nextPage = pager.hasMorePages() ? pager.nextPage() : null;
+    }
+
+    /**
+     * Blocks until the next page arrives if the current one is used up.
+     *
+     * @throws FluxionDBException if fetching a page failed
+     */
+    @Override
+    public boolean hasNext() {
+        while (index >= page.size()) {
+            if (nextPage == null) {
+                return false;
+            }
+            // Pages may be shared with concurrent identical fetches, so the used-up one is released
+            // whole rather than cleared record by record
+            page = Collections.emptyList();
+            page = awaitPage(nextPage);
+            index = 0;
+            nextPage = pager.hasMorePages() ? pager.nextPage() : null;
+        }
+        return true;
+    }
+
+    @Override
+    public RecordResponse next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(index++);
+    }
+
+    private static List<RecordResponse> awaitPage(CompletableFuture<List<RecordResponse>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof FluxionDBException) {
+                throw (FluxionDBException) cause;
+            }
+            throw new FluxionDBException("Failed to fetch document page", cause != null ? cause : e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.model.requests.FetchRecordsParams;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a document's records page by page.
+ * <p>
+ * Each subscription pages independently. At most two pages are held at once: the one being
+ * delivered and the next one, which is fetched as soon as the current page arrives. Records are
+ * only emitted as the subscriber requests them.
+ */
+final class DocumentHistoryPublisher implements Flow.Publisher<RecordResponse> {
+
+    private final TimeSeriesOperations operations;
+    private final FetchRecordsParams params;
+
+    DocumentHistoryPublisher(TimeSeriesOperations operations, FetchRecordsParams params) {
+        this.operations = operations;
+        this.params = params;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super RecordResponse> subscriber) {
+        PageSubscription subscription = new PageSubscription(subscriber, new DocumentPager(operations, params));
+        subscription.fetchNext(); // Before onSubscribe, which may already request records
+        subscriber.onSubscribe(subscription);
+        subscription.subscribed = true;
+        subscription.drain();
+    }
+
+    private static final class PageSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super RecordResponse> subscriber;
+        private final DocumentPager pager;
+        private final AtomicLong demand = new AtomicLong();
+        // Serializes drain() so signals are never delivered concurrently
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean subscribed;
+        private volatile boolean cancelled;
+        private volatile CompletableFuture<List<RecordResponse>> nextPage;
+        private volatile Throwable pendingError;
+        private List<RecordResponse> page = Collections.emptyList();
+        private int index;
+        private boolean done;
+
+        PageSubscription(Flow.Subscriber<? super RecordResponse> subscriber, DocumentPager pager) {
+            this.subscriber = subscriber;
+            this.pager = pager;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                pendingError = new IllegalArgumentException("Subscription request must be positive, got " + n);
+            } else {
+                long current;
+                do {
+                    current = demand.get();
+                    if (current == Long.MAX_VALUE) {
+                        break;
+                    }
+                } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            CompletableFuture<List<RecordResponse>> pending = nextPage;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        private void fetchNext() {
+            if (!pager.hasMorePages()) {
+                nextPage = null;
+                return;
+            }
+            CompletableFuture<List<RecordResponse>> future = pager.nextPage();
+            nextPage = future;
+            future.whenComplete((records, error) -> drain());
+        }
+
+        private void drain() {
+            if (!subscribed) {
+                return; // No signals before onSubscribe has returned
+            }
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                emit();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            while (!done) {
+                if (cancelled) {
+                    done = true;
+                    page = Collections.emptyList();
+                    return;
+                }
+                if (pendingError != null) {
+                    fail(pendingError);
+                    return;
+                }
+
+                if (index < page.size()) {
+                    if (demand.get() == 0) {
+                        return;
+                    }
+                    RecordResponse record = page.get(index++);
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(record);
+                    continue;
+                }
+
+                // Pages may be shared with concurrent identical fetches, so the used-up one is
+                // released whole rather than cleared record by record
+                page = Collections.emptyList();
+                CompletableFuture<List<RecordResponse>> pending = nextPage;
+                if (pending == null) {
+                    done = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                if (!pending.isDone()) {
+                    return; // Its completion calls drain() again
+                }
+
+                try {
+                    page = pending.join();
+                } catch (CompletionException e) {
+                    fail(e.getCause() != null ? e.getCause() : e);
+                    return;
+                } catch (Exception e) {
+                    fail(e);
+                    return;
+                }
+                index = 0;
+                fetchNext();
+            }
+        }
+
+        private void fail(Throwable error) {
+            done = true;
+            page = Collections.emptyList();
+            cancel();
+            subscriber.onError(error);
+        }
+    }
+}
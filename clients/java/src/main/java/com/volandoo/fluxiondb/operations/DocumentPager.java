@@ -0,0 +1,89 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.model.requests.FetchRecordsParams;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Walks a document's [from, to] range one page at a time using a timestamp cursor.
+ * <p>
+ * Each page is a qdoc request with the page size as its limit. Going forward the next page
+ * starts after the last timestamp seen; in reverse it ends before it. A short page means the range
+ * is exhausted. Pages must be requested one after another: the cursor only moves once a page
+ * has arrived.
+ */
+final class DocumentPager {
+
+    static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private final TimeSeriesOperations operations;
+    private final FetchRecordsParams params;
+    private final int pageSize;
+    private final boolean reverse;
+
+    private volatile long from;
+    private volatile long to;
+    private volatile boolean exhausted;
+
+    DocumentPager(TimeSeriesOperations operations, FetchRecordsParams params) {
+        this.operations = operations;
+        this.params = params;
+        this.pageSize = params.getLimit() != null && params.getLimit() > 0 ? params.getLimit() : DEFAULT_PAGE_SIZE;
+        this.reverse = Boolean.TRUE.equals(params.getReverse());
+        this.from = params.getFrom();
+        this.to = params.getTo();
+        this.exhausted = from > to;
+    }
+
+    boolean hasMorePages() {
+        return !exhausted;
+    }
+
+    /**
+     * Fetches the page after the last one received and advances the cursor when it arrives. The page
+     * may be the list handed to concurrent identical fetches, so it must not be modified.
+     */
+    CompletableFuture<List<RecordResponse>> nextPage() {
+        FetchRecordsParams.Builder page = FetchRecordsParams.builder()
+                .col(params.getCol())
+                .doc(params.getDoc())
+                .from(from)
+                .to(to)
+                .limit(pageSize)
+                .reverse(reverse);
+        if (params.getWhere() != null) {
+            page.where(params.getWhere());
+        }
+        if (params.getFilter() != null) {
+            page.filter(params.getFilter());
+        }
+
+        return operations.fetchDocument(page.build()).thenApply(records -> {
+            advance(records);
+            return records;
+        });
+    }
+
+    private void advance(List<RecordResponse> records) {
+        if (records.size() < pageSize) {
+            exhausted = true;
+            return;
+        }
+        long last = records.get(records.size() - 1).getTs();
+        if (reverse) {
+            if (last == Long.MIN_VALUE || last - 1 < from) {
+                exhausted = true;
+            } else {
+                to = last - 1;
+            }
+        } else {
+            if (last == Long.MAX_VALUE || last + 1 > to) {
+                exhausted = true;
+            } else {
+                from = last + 1;
+            }
+        }
+    }
+}
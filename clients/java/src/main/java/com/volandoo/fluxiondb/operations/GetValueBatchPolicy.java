@@ -0,0 +1,37 @@
+package com.volandoo.fluxiondb.operations;
+
+/**
+ * Limits controlling how concurrent getValue calls on one collection are combined into a single
+ * "gvalues" request. A batch is sent when its first key has waited {@code lingerMs}, or as soon
+ * as it holds {@code maxKeys} distinct keys.
+ */
+public final class GetValueBatchPolicy {
+
+    private final long lingerMs;
+    private final int maxKeys;
+
+    public GetValueBatchPolicy(long lingerMs, int maxKeys) {
+        if (lingerMs < 0) {
+            throw new IllegalArgumentException("lingerMs must be non-negative");
+        }
+        if (maxKeys < 2) {
+            throw new IllegalArgumentException("maxKeys must be >= 2");
+        }
+
+        this.lingerMs = lingerMs;
+        this.maxKeys = maxKeys;
+    }
+
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    @Override
+    public String toString() {
+        return "GetValueBatchPolicy{lingerMs=" + lingerMs + ", maxKeys=" + maxKeys + "}";
+    }
+}
@@ -0,0 +1,202 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.connection.MessageSender;
+import com.volandoo.fluxiondb.exceptions.ConnectionException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Combines concurrent getValue calls on one collection into a single "gvalues" request.
+ * <p>
+ * The keys of a batch are sent as an anchored alternation, {@code /^(?:k1|k2)$/}, with regex
+ * metacharacters escaped, and the returned map is split back to the callers. Keys missing from the
+ * response resolve to "" as they do for "gval". A batch with one distinct key, a key too long to
+ * embed, and every key of a batch whose "gvalues" request fails are fetched individually instead.
+ */
+final class GetValueBatcher {
+
+    // Keeps the server's backtracking regex engine well away from deep recursion on long alternations
+    static final int MAX_PATTERN_CHARS = 2048;
+
+    private static final int PATTERN_OVERHEAD_CHARS = "/^(?:)$/".length();
+
+    private final MessageSender transport;
+    private final GetValueBatchPolicy policy;
+    private final BiFunction<String, String, CompletableFuture<String>> fetchOne;
+    private final BiFunction<String, String, CompletableFuture<Map<String, String>>> fetchMatching;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Batch> open = new HashMap<>();
+
+    /**
+     * @param fetchOne      sends "gval" for (col, key)
+     * @param fetchMatching sends "gvalues" for (col, pattern)
+     */
+    GetValueBatcher(MessageSender transport, GetValueBatchPolicy policy,
+                    BiFunction<String, String, CompletableFuture<String>> fetchOne,
+                    BiFunction<String, String, CompletableFuture<Map<String, String>>> fetchMatching) {
+        this.transport = transport;
+        this.policy = policy;
+        this.fetchOne = fetchOne;
+        this.fetchMatching = fetchMatching;
+    }
+
+    /**
+     * Adds a key to the collection's open batch.
+     *
+     * @return CompletableFuture that completes with the key's value, or fails at once if the
+     *         transport has shut down
+     */
+    CompletableFuture<String> get(String col, String key) {
+        String escaped = escape(key);
+        if (escaped.length() + PATTERN_OVERHEAD_CHARS > MAX_PATTERN_CHARS) {
+            return fetchOne.apply(col, key);
+        }
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        Batch overflowed = null;
+        Batch filled = null;
+        RejectedExecutionException rejected = null;
+
+        lock.lock();
+        try {
+            Batch batch = open.get(col);
+            boolean overflows = batch != null && !batch.waiters.containsKey(key)
+                    && batch.patternChars + 1 + escaped.length() > MAX_PATTERN_CHARS;
+            if (batch == null || overflows) {
+                // The linger flush is scheduled before the batch is published, so a shut-down
+                // transport leaves no batch behind for later callers to wait on forever
+                Batch next = new Batch(col);
+                try {
+                    transport.schedule(() -> flush(next), policy.getLingerMs(), TimeUnit.MILLISECONDS);
+                    overflowed = overflows ? batch : null;
+                    open.put(col, next);
+                    batch = next;
+                } catch (RejectedExecutionException e) {
+                    rejected = e;
+                }
+            }
+
+            if (rejected == null) {
+                List<CompletableFuture<String>> waiters = batch.waiters.get(key);
+                if (waiters == null) {
+                    waiters = new ArrayList<>(1);
+                    batch.waiters.put(key, waiters);
+                    batch.escapedKeys.add(escaped);
+                    batch.patternChars += (batch.escapedKeys.size() > 1 ? 1 : 0) + escaped.length();
+                }
+                waiters.add(future);
+
+                if (batch.waiters.size() >= policy.getMaxKeys()) {
+                    filled = batch;
+                    open.remove(col);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (rejected != null) {
+            future.completeExceptionally(new ConnectionException("Client is shut down", rejected));
+        }
+        if (overflowed != null) {
+            send(overflowed);
+        }
+        if (filled != null) {
+            send(filled);
+        }
+        return future;
+    }
+
+    private void flush(Batch expected) {
+        lock.lock();
+        try {
+            if (!open.remove(expected.col, expected)) {
+                return; // Already sent because it filled up
+            }
+        } finally {
+            lock.unlock();
+        }
+        send(expected);
+    }
+
+    private void send(Batch batch) {
+        if (batch.waiters.size() == 1) {
+            Map.Entry<String, List<CompletableFuture<String>>> only = batch.waiters.entrySet().iterator().next();
+            fetchOne.apply(batch.col, only.getKey()).whenComplete((value, error) -> complete(only.getValue(), value, error));
+            return;
+        }
+
+        StringBuilder pattern = new StringBuilder(batch.patternChars + PATTERN_OVERHEAD_CHARS);
+        pattern.append("/^(?:");
+        for (int i = 0; i < batch.escapedKeys.size(); i++) {
+            if (i > 0) {
+                pattern.append('|');
+            }
+            pattern.append(batch.escapedKeys.get(i));
+        }
+        pattern.append(")$/");
+
+        fetchMatching.apply(batch.col, pattern.toString()).whenComplete((values, error) -> {
+            for (Map.Entry<String, List<CompletableFuture<String>>> entry : batch.waiters.entrySet()) {
+                if (error != null) {
+                    // Fall back to one request per key so one bad batch does not fail every caller
+                    fetchOne.apply(batch.col, entry.getKey())
+                            .whenComplete((value, retryError) -> complete(entry.getValue(), value, retryError));
+                } else {
+                    complete(entry.getValue(), values.getOrDefault(entry.getKey(), ""), null);
+                }
+            }
+        });
+    }
+
+    private static void complete(List<CompletableFuture<String>> waiters, String value, Throwable error) {
+        for (CompletableFuture<String> waiter : waiters) {
+            if (error != null) {
+                waiter.completeExceptionally(error);
+            } else {
+                waiter.complete(value);
+            }
+        }
+    }
+
+    /**
+     * Escapes ECMAScript regex metacharacters, and '/' which would end the /pattern/ literal.
+     */
+    static String escape(String key) {
+        StringBuilder sb = null;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if ("\\^$.|?*+()[]{}/".indexOf(c) >= 0) {
+                if (sb == null) {
+                    sb = new StringBuilder(key.length() + 8);
+                    sb.append(key, 0, i);
+                }
+                sb.append('\\');
+            }
+            if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb != null ? sb.toString() : key;
+    }
+
+    private static final class Batch {
+        final String col;
+        final Map<String, List<CompletableFuture<String>>> waiters = new LinkedHashMap<>();
+        final List<String> escapedKeys = new ArrayList<>();
+        int patternChars;
+
+        Batch(String col) {
+            this.col = col;
+        }
+    }
+}
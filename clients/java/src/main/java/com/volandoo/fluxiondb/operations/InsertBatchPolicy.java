@@ -0,0 +1,46 @@
+package com.volandoo.fluxiondb.operations;
+
+/**
+ * Limits controlling how single-record inserts are coalesced into one "ins" request.
+ * A batch is sent when the oldest record has waited {@code lingerMs}, or as soon as it
+ * reaches {@code maxRecords} records or roughly {@code maxBytes} of payload.
+ */
+public final class InsertBatchPolicy {
+
+    private final long lingerMs;
+    private final int maxRecords;
+    private final int maxBytes;
+
+    public InsertBatchPolicy(long lingerMs, int maxRecords, int maxBytes) {
+        if (lingerMs < 0) {
+            throw new IllegalArgumentException("lingerMs must be non-negative");
+        }
+        if (maxRecords < 1) {
+            throw new IllegalArgumentException("maxRecords must be >= 1");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be >= 1");
+        }
+
+        this.lingerMs = lingerMs;
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+    }
+
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public int getMaxRecords() {
+        return maxRecords;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "InsertBatchPolicy{lingerMs=" + lingerMs + ", maxRecords=" + maxRecords + ", maxBytes=" + maxBytes + "}";
+    }
+}
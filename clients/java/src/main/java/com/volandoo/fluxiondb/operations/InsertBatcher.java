@@ -0,0 +1,174 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.connection.MessageSender;
+import com.volandoo.fluxiondb.exceptions.ConnectionException;
+import com.volandoo.fluxiondb.model.requests.InsertMessageRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces concurrent single-record inserts into one "ins" request.
+ * <p>
+ * Records with the same (col, doc, ts) inside one batch replace each other (last write wins).
+ * Every caller's future completes with the acknowledgement of the batch its record was sent in.
+ */
+public class InsertBatcher {
+
+    // Rough per-record envelope cost: {"ts":..,"doc":"","data":"","col":""}
+    private static final int RECORD_OVERHEAD_BYTES = 48;
+
+    private final TimeSeriesOperations timeSeries;
+    private final MessageSender transport;
+    private final InsertBatchPolicy policy;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Batch current;
+
+    public InsertBatcher(TimeSeriesOperations timeSeries, MessageSender transport, InsertBatchPolicy policy) {
+        this.timeSeries = timeSeries;
+        this.transport = transport;
+        this.policy = policy;
+    }
+
+    /**
+     * Adds a record to the open batch.
+     *
+     * @return CompletableFuture that completes when the batch containing the record is acknowledged,
+     *         or fails at once if the transport has shut down
+     */
+    public CompletableFuture<Void> add(InsertMessageRequest request) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        int size = estimateSize(request);
+        Batch overflowed = null;
+        Batch filled = null;
+        RejectedExecutionException rejected = null;
+
+        lock.lock();
+        try {
+            boolean overflows = current != null && current.bytes + size > policy.getMaxBytes()
+                    && !current.records.isEmpty();
+            if (current == null || overflows) {
+                // The linger flush is scheduled before anything changes, so a shut-down transport
+                // leaves no record behind in a batch that would never be sent
+                Batch next = new Batch();
+                try {
+                    transport.schedule(() -> flush(next), policy.getLingerMs(), TimeUnit.MILLISECONDS);
+                    overflowed = overflows ? current : null;
+                    current = next;
+                } catch (RejectedExecutionException e) {
+                    rejected = e;
+                }
+            }
+
+            if (rejected == null) {
+                InsertMessageRequest replaced = current.records.put(new RecordKey(request), request);
+                current.bytes += size - (replaced != null ? estimateSize(replaced) : 0);
+                current.waiters.add(future);
+
+                if (current.records.size() >= policy.getMaxRecords() || current.bytes >= policy.getMaxBytes()) {
+                    filled = current;
+                    current = null;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (rejected != null) {
+            future.completeExceptionally(new ConnectionException("Client is shut down", rejected));
+        }
+        if (overflowed != null) {
+            send(overflowed);
+        }
+        if (filled != null) {
+            send(filled);
+        }
+        return future;
+    }
+
+    /**
+     * Sends the open batch immediately, if any.
+     */
+    public void flush() {
+        Batch batch;
+        lock.lock();
+        try {
+            batch = current;
+            current = null;
+        } finally {
+            lock.unlock();
+        }
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    private void flush(Batch expected) {
+        lock.lock();
+        try {
+            if (current != expected) {
+                return; // Already sent because it filled up
+            }
+            current = null;
+        } finally {
+            lock.unlock();
+        }
+        send(expected);
+    }
+
+    private void send(Batch batch) {
+        List<InsertMessageRequest> records = new ArrayList<>(batch.records.values());
+        timeSeries.insertMultipleRecords(records).whenComplete((v, ex) -> {
+            for (CompletableFuture<Void> waiter : batch.waiters) {
+                if (ex != null) {
+                    waiter.completeExceptionally(ex);
+                } else {
+                    waiter.complete(null);
+                }
+            }
+        });
+    }
+
+    private static int estimateSize(InsertMessageRequest request) {
+        return request.getCol().length() + request.getDoc().length() + request.getData().length() + RECORD_OVERHEAD_BYTES;
+    }
+
+    private static final class Batch {
+        final Map<RecordKey, InsertMessageRequest> records = new LinkedHashMap<>();
+        final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        int bytes;
+    }
+
+    private static final class RecordKey {
+        private final String col;
+        private final String doc;
+        private final long ts;
+
+        RecordKey(InsertMessageRequest request) {
+            this.col = request.getCol();
+            this.doc = request.getDoc();
+            this.ts = request.getTs();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RecordKey that = (RecordKey) o;
+            return ts == that.ts && doc.equals(that.doc) && col.equals(that.col);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(col, doc, ts);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.volandoo.fluxiondb.operations;
 
-import com.volandoo.fluxiondb.connection.WebSocketManager;
-import com.volandoo.fluxiondb.json.JsonBuilder;
+import com.volandoo.fluxiondb.cache.KeyValueCache;
+import com.volandoo.fluxiondb.codec.PayloadCodec;
+import com.volandoo.fluxiondb.connection.MessageSender;
 import com.volandoo.fluxiondb.json.JsonParser;
+import com.volandoo.fluxiondb.json.JsonReader;
+import com.volandoo.fluxiondb.json.JsonWriter;
 import com.volandoo.fluxiondb.model.requests.*;
 import com.volandoo.fluxiondb.protocol.MessageTypes;
+import com.volandoo.fluxiondb.protocol.PayloadDecoder;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -17,49 +21,137 @@ import java.util.concurrent.CompletableFuture;
  */
 public class KeyValueOperations {
 
-    private final WebSocketManager wsManager;
+    private final MessageSender transport;
+    private final KeyValueCache cache;
+    private final SingleFlight singleFlight;
+    private final GetValueBatcher getValueBatcher;
 
-    public KeyValueOperations(WebSocketManager wsManager) {
-        this.wsManager = wsManager;
+    public KeyValueOperations(MessageSender transport) {
+        this(transport, null, new SingleFlight(), null);
+    }
+
+    /**
+     * @param cache              near-cache for getValue, or null to always ask the server
+     * @param singleFlight       deduplication of identical reads, shared with the client's other operations
+     * @param getValueBatchPolicy limits for combining concurrent getValue calls, or null to send each on its own
+     */
+    public KeyValueOperations(MessageSender transport, KeyValueCache cache, SingleFlight singleFlight,
+                              GetValueBatchPolicy getValueBatchPolicy) {
+        this.transport = transport;
+        this.cache = cache;
+        this.singleFlight = singleFlight;
+        // The batcher's fetches capture the transport and flights, not this, which is still being built
+        this.getValueBatcher = getValueBatchPolicy != null
+                ? new GetValueBatcher(transport, getValueBatchPolicy,
+                        (col, key) -> fetchValue(transport, singleFlight, col, key),
+                        (col, pattern) -> fetchValues(transport, singleFlight, new GetValuesParams(col, pattern)))
+                : null;
     }
 
     public CompletableFuture<Void> setValue(SetValueParams params) {
-        String data = new JsonBuilder()
-                .add("col", params.getCol())
-                .add("key", params.getKey())
-                .add("value", params.getValue())
+        String data = JsonWriter.local().beginObject()
+                .name("col").value(params.getCol())
+                .name("key").value(params.getKey())
+                .name("value").value(params.getValue())
+                .endObject()
                 .build();
 
-        return wsManager.send(MessageTypes.SET_VALUE, data)
-                .thenApply(response -> null);
+        CompletableFuture<String> response = singleFlight.afterWrite(params.getCol(),
+                transport.send(transport.partitionFor(params.getCol(), params.getKey()), MessageTypes.SET_VALUE, data));
+        if (cache == null) {
+            return response.thenApply(r -> null);
+        }
+
+        // Drop the old value now; cache the new one once the server has applied it
+        cache.invalidate(params.getCol(), params.getKey());
+        return response.whenComplete((r, error) -> {
+            if (error != null) {
+                cache.invalidate(params.getCol(), params.getKey());
+            } else {
+                cache.put(params.getCol(), params.getKey(), params.getValue());
+            }
+        }).thenApply(r -> null);
     }
 
     public CompletableFuture<String> getValue(GetValueParams params) {
-        String data = new JsonBuilder()
-                .add("col", params.getCol())
-                .add("key", params.getKey())
-                .build();
+        long generation = 0;
+        if (cache != null) {
+            String cached = cache.get(params.getCol(), params.getKey());
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            generation = cache.generation(params.getCol());
+        }
 
-        return wsManager.send(MessageTypes.GET_VALUE, data)
-                .thenApply(response -> {
-                    Map<String, Object> parsed = JsonParser.parseObject(response);
-                    return JsonParser.getString(parsed, "value");
-                });
+        CompletableFuture<String> value = getValueBatcher != null
+                ? getValueBatcher.get(params.getCol(), params.getKey())
+                : fetchValue(transport, singleFlight, params.getCol(), params.getKey());
+        if (cache == null) {
+            return value;
+        }
+
+        long loadGeneration = generation;
+        return value.thenApply(v -> {
+            if (v != null) {
+                cache.putIfCurrent(params.getCol(), params.getKey(), v, loadGeneration);
+            }
+            return v;
+        });
+    }
+
+    /**
+     * Gets a value decoded with {@code codec}, or null if the key has no value. Without a near-cache
+     * or batching the value is decoded straight from the response; otherwise the text they hold is.
+     */
+    public <T> CompletableFuture<T> getValue(GetValueParams params, PayloadCodec<T> codec) {
+        if (cache != null || getValueBatcher != null) {
+            return getValue(params).thenApply(v -> v == null || v.isEmpty() ? null : codec.decode(new JsonReader(v)));
+        }
+
+        String data = valueQuery(params.getCol(), params.getKey());
+        return singleFlight.executeRaw(MessageTypes.GET_VALUE, params.getCol(), data,
+                        () -> transport.send(MessageTypes.GET_VALUE, data))
+                .thenApply(response -> PayloadDecoder.decodeValue(response, codec));
+    }
+
+    private static CompletableFuture<String> fetchValue(MessageSender transport, SingleFlight singleFlight,
+                                                        String col, String key) {
+        String data = valueQuery(col, key);
+        return singleFlight.execute(MessageTypes.GET_VALUE, col, data,
+                () -> transport.send(MessageTypes.GET_VALUE, data)
+                        .thenApply(response -> {
+                            Map<String, Object> parsed = JsonParser.parseObject(response);
+                            return JsonParser.getString(parsed, "value");
+                        }),
+                v -> v);
+    }
+
+    private static String valueQuery(String col, String key) {
+        return JsonWriter.local().beginObject()
+                .name("col").value(col)
+                .name("key").value(key)
+                .endObject()
+                .build();
     }
 
     public CompletableFuture<Map<String, String>> getValues(GetValuesParams params) {
-        JsonBuilder builder = new JsonBuilder()
-                .add("col", params.getCol());
+        return fetchValues(transport, singleFlight, params);
+    }
+
+    private static CompletableFuture<Map<String, String>> fetchValues(MessageSender transport, SingleFlight singleFlight,
+                                                                      GetValuesParams params) {
+        JsonWriter json = JsonWriter.local().beginObject()
+                .name("col").value(params.getCol());
 
         if (params.getKey() != null) {
-            builder.add("key", params.getKey());
+            json.name("key").value(params.getKey());
         }
 
-        String data = builder.build();
+        String data = json.endObject().build();
 
         String messageType = params.getKey() != null ? MessageTypes.GET_VALUES : MessageTypes.GET_ALL_VALUES;
 
-        return wsManager.send(messageType, data)
+        return singleFlight.execute(messageType, params.getCol(), data, () -> transport.send(messageType, data)
                 .thenApply(response -> {
                     Map<String, Object> parsed = JsonParser.parseObject(response);
                     Map<String, Object> valuesMap = JsonParser.getObject(parsed, "values");
@@ -70,15 +162,16 @@ public class KeyValueOperations {
                     }
 
                     return result;
-                });
+                }), HashMap::new);
     }
 
     public CompletableFuture<List<String>> getKeys(CollectionParam params) {
-        String data = new JsonBuilder()
-                .add("col", params.getCol())
+        String data = JsonWriter.local().beginObject()
+                .name("col").value(params.getCol())
+                .endObject()
                 .build();
 
-        return wsManager.send(MessageTypes.GET_ALL_KEYS, data)
+        return singleFlight.execute(MessageTypes.GET_ALL_KEYS, params.getCol(), data, () -> transport.send(MessageTypes.GET_ALL_KEYS, data)
                 .thenApply(response -> {
                     Map<String, Object> parsed = JsonParser.parseObject(response);
                     List<Object> keysList = JsonParser.getArray(parsed, "keys");
@@ -89,16 +182,25 @@ public class KeyValueOperations {
                     }
 
                     return result;
-                });
+                }), ArrayList::new);
     }
 
     public CompletableFuture<Void> deleteValue(DeleteValueParams params) {
-        String data = new JsonBuilder()
-                .add("col", params.getCol())
-                .add("key", params.getKey())
+        String data = JsonWriter.local().beginObject()
+                .name("col").value(params.getCol())
+                .name("key").value(params.getKey())
+                .endObject()
                 .build();
 
-        return wsManager.send(MessageTypes.REMOVE_VALUE, data)
-                .thenApply(response -> null);
+        CompletableFuture<String> response = singleFlight.afterWrite(params.getCol(),
+                transport.send(transport.partitionFor(params.getCol(), params.getKey()), MessageTypes.REMOVE_VALUE, data));
+        if (cache == null) {
+            return response.thenApply(r -> null);
+        }
+
+        // Invalidate again on completion so loads that raced the delete are not cached
+        cache.invalidate(params.getCol(), params.getKey());
+        return response.whenComplete((r, error) -> cache.invalidate(params.getCol(), params.getKey()))
+                .thenApply(r -> null);
     }
 }
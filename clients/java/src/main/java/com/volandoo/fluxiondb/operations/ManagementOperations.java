@@ -1,8 +1,8 @@
 package com.volandoo.fluxiondb.operations;
 
-import com.volandoo.fluxiondb.connection.WebSocketManager;
-import com.volandoo.fluxiondb.json.JsonBuilder;
+import com.volandoo.fluxiondb.connection.MessageSender;
 import com.volandoo.fluxiondb.json.JsonParser;
+import com.volandoo.fluxiondb.json.JsonWriter;
 import com.volandoo.fluxiondb.model.enums.ApiKeyScope;
 import com.volandoo.fluxiondb.model.requests.ManageApiKeyParams;
 import com.volandoo.fluxiondb.model.responses.ApiKeyInfo;
@@ -19,14 +19,23 @@ import java.util.concurrent.CompletableFuture;
  */
 public class ManagementOperations {
 
-    private final WebSocketManager wsManager;
+    private final MessageSender transport;
+    private final SingleFlight singleFlight;
 
-    public ManagementOperations(WebSocketManager wsManager) {
-        this.wsManager = wsManager;
+    public ManagementOperations(MessageSender transport) {
+        this(transport, new SingleFlight());
+    }
+
+    /**
+     * @param singleFlight deduplication of identical reads, shared with the client's other operations
+     */
+    public ManagementOperations(MessageSender transport, SingleFlight singleFlight) {
+        this.transport = transport;
+        this.singleFlight = singleFlight;
     }
 
     public CompletableFuture<List<ConnectionInfo>> getConnections() {
-        return wsManager.send(MessageTypes.CONNECTIONS, "{}")
+        return singleFlight.execute(MessageTypes.CONNECTIONS, "", "{}", () -> transport.send(MessageTypes.CONNECTIONS, "{}")
                 .thenApply(response -> {
                     Map<String, Object> parsed = JsonParser.parseObject(response);
                     List<Object> connectionsList = JsonParser.getArray(parsed, "connections");
@@ -44,18 +53,19 @@ public class ManagementOperations {
                     }
 
                     return result;
-                });
+                }), ArrayList::new);
     }
 
     public CompletableFuture<String> addApiKey(String key, ApiKeyScope scope) {
         ManageApiKeyParams params = ManageApiKeyParams.add(key, scope);
-        String data = new JsonBuilder()
-                .add("action", params.getAction())
-                .add("key", params.getKey())
-                .add("scope", params.getScope())
+        String data = JsonWriter.local().beginObject()
+                .name("action").value(params.getAction())
+                .name("key").value(params.getKey())
+                .name("scope").value(params.getScope())
+                .endObject()
                 .build();
 
-        return wsManager.send(MessageTypes.MANAGE_API_KEYS, data)
+        return transport.send(MessageTypes.MANAGE_API_KEYS, data)
                 .thenApply(response -> {
                     Map<String, Object> parsed = JsonParser.parseObject(response);
                     String status = JsonParser.getString(parsed, "status");
@@ -72,12 +82,13 @@ public class ManagementOperations {
 
     public CompletableFuture<String> removeApiKey(String key) {
         ManageApiKeyParams params = ManageApiKeyParams.remove(key);
-        String data = new JsonBuilder()
-                .add("action", params.getAction())
-                .add("key", params.getKey())
+        String data = JsonWriter.local().beginObject()
+                .name("action").value(params.getAction())
+                .name("key").value(params.getKey())
+                .endObject()
                 .build();
 
-        return wsManager.send(MessageTypes.MANAGE_API_KEYS, data)
+        return transport.send(MessageTypes.MANAGE_API_KEYS, data)
                 .thenApply(response -> {
                     Map<String, Object> parsed = JsonParser.parseObject(response);
                     String status = JsonParser.getString(parsed, "status");
@@ -94,12 +105,13 @@ public class ManagementOperations {
 
     public CompletableFuture<List<ApiKeyInfo>> listApiKeys() {
         ManageApiKeyParams params = ManageApiKeyParams.list();
-        String data = new JsonBuilder()
-                .add("action", params.getAction())
-                .add("key", "")
+        String data = JsonWriter.local().beginObject()
+                .name("action").value(params.getAction())
+                .name("key").value("")
+                .endObject()
                 .build();
 
-        return wsManager.send(MessageTypes.MANAGE_API_KEYS, data)
+        return transport.send(MessageTypes.MANAGE_API_KEYS, data)
                 .thenApply(response -> {
                     Map<String, Object> parsed = JsonParser.parseObject(response);
                     List<Object> keysList = JsonParser.getArray(parsed, "keys");
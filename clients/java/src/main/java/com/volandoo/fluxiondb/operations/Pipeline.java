@@ -0,0 +1,270 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.cache.KeyValueCache;
+import com.volandoo.fluxiondb.cache.LatestRecordsCache;
+import com.volandoo.fluxiondb.codec.PayloadCodec;
+import com.volandoo.fluxiondb.connection.MessageSender;
+import com.volandoo.fluxiondb.connection.MessageTransport;
+import com.volandoo.fluxiondb.connection.QueuedRequest;
+import com.volandoo.fluxiondb.exceptions.FluxionDBException;
+import com.volandoo.fluxiondb.model.requests.*;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+import com.volandoo.fluxiondb.model.responses.TypedRecordResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Queues time series and key-value operations and sends them together on {@link #flush()}.
+ * <p>
+ * Each operation returns its own future straight away, but nothing is written until the pipeline is
+ * flushed. The queued requests are then serialized into one buffer per socket and handed to its
+ * writer in a single step. Writes keep their per-document socket routing, and a read goes out on the
+ * same socket as the operation queued just before it, so it observes that operation.
+ * <p>
+ * Reads in a pipeline always go to the server and are never shared with callers outside it: a
+ * cached getValue or fetchLatestRecords answer would complete at once, without the operations
+ * queued ahead of it. Writes keep the caches up to date as direct calls do. A pipeline can be
+ * flushed repeatedly and is safe to fill from several threads, but operations that are never
+ * flushed never complete.
+ */
+public final class Pipeline {
+
+    private final DeferredTransport deferred;
+    private final TimeSeriesOperations timeSeries;
+    private final KeyValueOperations keyValue;
+    private final TimeSeriesOperations timeSeriesReads;
+    private final KeyValueOperations keyValueReads;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private List<CompletableFuture<?>> pending = new ArrayList<>();
+
+    /**
+     * @param keyValueCache      the client's getValue near-cache, or null
+     * @param latestRecordsCache the client's fetchLatestRecords snapshot cache, or null
+     * @param singleFlight       the client's shared read deduplication
+     */
+    public Pipeline(MessageTransport transport, KeyValueCache keyValueCache, LatestRecordsCache latestRecordsCache,
+                    SingleFlight singleFlight) {
+        this.deferred = new DeferredTransport(transport);
+        SingleFlight pipelineFlights = singleFlight.deferred();
+        this.timeSeries = new TimeSeriesOperations(deferred, latestRecordsCache, pipelineFlights);
+        this.keyValue = new KeyValueOperations(deferred, keyValueCache, pipelineFlights, null);
+        this.timeSeriesReads = new TimeSeriesOperations(deferred, null, pipelineFlights);
+        this.keyValueReads = new KeyValueOperations(deferred, null, pipelineFlights, null);
+    }
+
+    // ==================== Time Series Operations ====================
+
+    public CompletableFuture<Void> insertSingleRecord(InsertMessageRequest request) {
+        return track(timeSeries.insertSingleRecord(request));
+    }
+
+    public CompletableFuture<Void> insertMultipleRecords(List<InsertMessageRequest> requests) {
+        return track(timeSeries.insertMultipleRecords(requests));
+    }
+
+    public <T> CompletableFuture<Void> insertMultipleRecords(List<TypedInsertRequest<T>> requests,
+                                                             PayloadCodec<T> codec) {
+        return track(timeSeries.insertMultipleRecords(requests, codec));
+    }
+
+    public CompletableFuture<Map<String, RecordResponse>> fetchLatestRecords(FetchLatestRecordsParams params) {
+        return track(timeSeriesReads.fetchLatestRecords(params));
+    }
+
+    public CompletableFuture<List<RecordResponse>> fetchDocument(FetchRecordsParams params) {
+        return track(timeSeriesReads.fetchDocument(params));
+    }
+
+    public <T> CompletableFuture<List<TypedRecordResponse<T>>> fetchDocument(FetchRecordsParams params,
+                                                                            PayloadCodec<T> codec) {
+        return track(timeSeriesReads.fetchDocument(params, codec));
+    }
+
+    public CompletableFuture<Void> deleteDocument(DeleteDocumentParams params) {
+        return track(timeSeries.deleteDocument(params));
+    }
+
+    public CompletableFuture<Void> deleteRecord(DeleteRecord params) {
+        return track(timeSeries.deleteRecord(params));
+    }
+
+    public CompletableFuture<Void> deleteMultipleRecords(List<DeleteRecord> records) {
+        return track(timeSeries.deleteMultipleRecords(records));
+    }
+
+    public CompletableFuture<Void> deleteRecordsRange(DeleteRecordsRange params) {
+        return track(timeSeries.deleteRecordsRange(params));
+    }
+
+    // ==================== Key-Value Operations ====================
+
+    public CompletableFuture<Void> setValue(SetValueParams params) {
+        return track(keyValue.setValue(params));
+    }
+
+    public CompletableFuture<String> getValue(GetValueParams params) {
+        return track(keyValueReads.getValue(params));
+    }
+
+    public <T> CompletableFuture<T> getValue(GetValueParams params, PayloadCodec<T> codec) {
+        return track(keyValueReads.getValue(params, codec));
+    }
+
+    public CompletableFuture<Map<String, String>> getValues(GetValuesParams params) {
+        return track(keyValueReads.getValues(params));
+    }
+
+    public CompletableFuture<List<String>> getKeys(CollectionParam params) {
+        return track(keyValueReads.getKeys(params));
+    }
+
+    public CompletableFuture<Void> deleteValue(DeleteValueParams params) {
+        return track(keyValue.deleteValue(params));
+    }
+
+    // ==================== Flushing ====================
+
+    /**
+     * Sends every queued request.
+     *
+     * @return CompletableFuture that completes when every operation queued before this call has
+     *         completed, or fails if any of them failed
+     */
+    public CompletableFuture<Void> flush() {
+        List<CompletableFuture<?>> flushed;
+        lock.lock();
+        try {
+            flushed = pending;
+            pending = new ArrayList<>();
+            // Under the lock so operations queued concurrently land in this flush or the next, never neither
+            deferred.flush();
+        } finally {
+            lock.unlock();
+        }
+        return CompletableFuture.allOf(flushed.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Sends every queued request and waits until all of them have completed.
+     *
+     * @throws FluxionDBException if any operation failed; the per-operation futures carry the details
+     */
+    public void sync() {
+        try {
+            flush().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new FluxionDBException(cause != null ? cause : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FluxionDBException("Interrupted while waiting for pipeline", e);
+        }
+    }
+
+    /**
+     * Returns the number of operations queued since the last flush.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> CompletableFuture<T> track(CompletableFuture<T> operation) {
+        lock.lock();
+        try {
+            pending.add(operation);
+        } finally {
+            lock.unlock();
+        }
+        return operation;
+    }
+
+    /**
+     * Sender that records requests per partition until flushed, instead of sending them.
+     */
+    private final class DeferredTransport implements MessageSender {
+
+        private final MessageTransport target;
+        private Map<Integer, List<QueuedRequest>> queued = new LinkedHashMap<>();
+        private int lastPartition;
+
+        DeferredTransport(MessageTransport target) {
+            this.target = target;
+        }
+
+        void flush() {
+            Map<Integer, List<QueuedRequest>> batches = queued;
+            queued = new LinkedHashMap<>();
+            for (Map.Entry<Integer, List<QueuedRequest>> batch : batches.entrySet()) {
+                target.sendAll(batch.getKey(), batch.getValue());
+            }
+        }
+
+        private CompletableFuture<String> enqueue(int partition, String type, String data, long timeoutMs) {
+            QueuedRequest request = new QueuedRequest(type, data, timeoutMs);
+            lock.lock();
+            try {
+                int p = partition >= 0 ? partition : lastPartition;
+                queued.computeIfAbsent(p, k -> new ArrayList<>()).add(request);
+                lastPartition = p;
+            } finally {
+                lock.unlock();
+            }
+            return request.response();
+        }
+
+        @Override
+        public CompletableFuture<String> send(String type, String data) {
+            return enqueue(-1, type, data, 0);
+        }
+
+        @Override
+        public CompletableFuture<String> send(String type, String data, long timeoutMs) {
+            return enqueue(-1, type, data, timeoutMs);
+        }
+
+        @Override
+        public CompletableFuture<String> send(int partition, String type, String data) {
+            return enqueue(partition, type, data, 0);
+        }
+
+        @Override
+        public CompletableFuture<String> send(int partition, String type, String data, long timeoutMs) {
+            return enqueue(partition, type, data, timeoutMs);
+        }
+
+        @Override
+        public int partitionCount() {
+            return target.partitionCount();
+        }
+
+        @Override
+        public int partitionFor(String col, String doc) {
+            return target.partitionFor(col, doc);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+            return target.schedule(task, delay, unit);
+        }
+    }
+}
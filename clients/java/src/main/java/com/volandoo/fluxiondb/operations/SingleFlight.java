@@ -0,0 +1,182 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.protocol.MessageTypes;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Collapses concurrent identical read requests into one round trip.
+ * <p>
+ * The first caller for a given type and payload sends the request; callers that arrive while it
+ * is in flight wait for the same decoded result. Each joiner receives its own shallow copy so
+ * callers cannot see each other's changes to a returned list or map. The flight ends when the
+ * response arrives, so later callers always send a fresh request. Write types are never shared.
+ * <p>
+ * Writes made through the client detach the flights of their collection, both when sent and when
+ * acknowledged, so a read issued after a write never joins a request that may predate it. Flights
+ * are grouped by collection, so a write only touches its own collection's and the cross-collection
+ * ones, however many others are in flight.
+ */
+public final class SingleFlight {
+
+    // Keyed by collection, then by request; "" holds reads across collections
+    private final ConcurrentHashMap<String, ConcurrentHashMap<FlightKey, CompletableFuture<?>>> flights =
+            new ConcurrentHashMap<>();
+    private final SingleFlight parent;
+
+    public SingleFlight() {
+        this(null);
+    }
+
+    private SingleFlight(SingleFlight parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Returns a view for requests that are held back before sending, such as a pipeline's.
+     * Its reads are shared only among themselves, so no other caller waits on a request that has not
+     * been sent yet, while its writes still detach this instance's flights.
+     */
+    SingleFlight deferred() {
+        return new SingleFlight(this);
+    }
+
+    /**
+     * Runs {@code call}, or joins an identical read already in flight.
+     *
+     * @param copy makes a caller's private copy of a shared result
+     */
+    <T> CompletableFuture<T> execute(String type, String col, String data, Supplier<CompletableFuture<T>> call,
+                                     UnaryOperator<T> copy) {
+        if (!MessageTypes.isReadOnly(type)) {
+            return call.get();
+        }
+        return join(new FlightKey(type, col, data, false), call, copy);
+    }
+
+    /**
+     * Like {@link #execute}, but shares the response text rather than a decoded result, for callers
+     * that each decode it their own way. These flights never join those of {@link #execute}.
+     */
+    CompletableFuture<String> executeRaw(String type, String col, String data,
+                                         Supplier<CompletableFuture<String>> call) {
+        if (!MessageTypes.isReadOnly(type)) {
+            return call.get();
+        }
+        return join(new FlightKey(type, col, data, true), call, response -> response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> join(FlightKey key, Supplier<CompletableFuture<T>> call, UnaryOperator<T> copy) {
+        CompletableFuture<T> flight = new CompletableFuture<>();
+        ConcurrentHashMap<FlightKey, CompletableFuture<?>> collection =
+                flights.computeIfAbsent(key.col, col -> new ConcurrentHashMap<>());
+        CompletableFuture<T> existing = (CompletableFuture<T>) collection.putIfAbsent(key, flight);
+        if (existing != null) {
+            return existing.thenApply(copy);
+        }
+
+        try {
+            call.get().whenComplete((result, error) -> {
+                land(collection, key, flight);
+                if (error != null) {
+                    flight.completeExceptionally(error);
+                } else {
+                    flight.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            land(collection, key, flight);
+            flight.completeExceptionally(e);
+        }
+        // A copy, so a caller cancelling its future does not cancel the joiners'
+        return flight.copy();
+    }
+
+    /**
+     * Ends a flight, dropping its collection's map once empty. A read that picked up the map just
+     * before then starts a flight nobody else can join, which costs only the sharing.
+     */
+    private void land(ConcurrentHashMap<FlightKey, CompletableFuture<?>> collection, FlightKey key,
+                      CompletableFuture<?> flight) {
+        collection.remove(key, flight);
+        if (collection.isEmpty()) {
+            flights.remove(key.col, collection);
+        }
+    }
+
+    /**
+     * Detaches reads of a collection from later callers, who will send their own request.
+     * Callers already waiting on them still get their result.
+     */
+    void forget(String col) {
+        if (!flights.isEmpty()) {
+            flights.remove(col);
+            // Reads across collections, such as listing them, are detached by every write
+            flights.remove("");
+        }
+        if (parent != null) {
+            parent.forget(col);
+        }
+    }
+
+    /**
+     * Detaches the collection's reads now and again once the write completes.
+     */
+    <T> CompletableFuture<T> afterWrite(String col, CompletableFuture<T> response) {
+        forget(col);
+        return response.whenComplete((r, error) -> forget(col));
+    }
+
+    /**
+     * Detaches the reads of every collection a multi-record write touches, now and once it completes.
+     */
+    <T> CompletableFuture<T> afterWrite(Collection<String> cols, CompletableFuture<T> response) {
+        cols.forEach(this::forget);
+        return response.whenComplete((r, error) -> cols.forEach(this::forget));
+    }
+
+    /**
+     * Returns the number of distinct reads currently in flight.
+     */
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<FlightKey, CompletableFuture<?>> collection : flights.values()) {
+            size += collection.size();
+        }
+        return size;
+    }
+
+    private static final class FlightKey {
+        final String type;
+        final String col;
+        final String data;
+        final boolean raw;
+        final int hash;
+
+        FlightKey(String type, String col, String data, boolean raw) {
+            this.type = type;
+            this.col = col;
+            this.data = data;
+            this.raw = raw;
+            this.hash = 31 * (31 * type.hashCode() + data.hashCode()) + Boolean.hashCode(raw);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FlightKey)) return false;
+            FlightKey that = (FlightKey) o;
+            return hash == that.hash && raw == that.raw && type.equals(that.type) && data.equals(that.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
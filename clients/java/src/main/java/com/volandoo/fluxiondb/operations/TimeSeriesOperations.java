@@ -1,24 +1,52 @@
 package com.volandoo.fluxiondb.operations;
 
-import com.volandoo.fluxiondb.connection.WebSocketManager;
-import com.volandoo.fluxiondb.json.JsonBuilder;
-import com.volandoo.fluxiondb.json.JsonParser;
+import com.volandoo.fluxiondb.cache.LatestRecordsCache;
+import com.volandoo.fluxiondb.codec.PayloadCodec;
+import com.volandoo.fluxiondb.connection.MessageSender;
+import com.volandoo.fluxiondb.json.JsonWriter;
 import com.volandoo.fluxiondb.model.requests.*;
 import com.volandoo.fluxiondb.model.responses.RecordResponse;
+import com.volandoo.fluxiondb.model.responses.TypedRecordResponse;
+import com.volandoo.fluxiondb.outbox.InsertOutbox;
 import com.volandoo.fluxiondb.protocol.MessageTypes;
+import com.volandoo.fluxiondb.protocol.RecordDecoder;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Handles time series data operations.
  */
 public class TimeSeriesOperations {
 
-    private final WebSocketManager wsManager;
+    private final MessageSender transport;
+    private final LatestRecordsCache latestCache;
+    private final SingleFlight singleFlight;
+    private final InsertOutbox outbox;
 
-    public TimeSeriesOperations(WebSocketManager wsManager) {
-        this.wsManager = wsManager;
+    public TimeSeriesOperations(MessageSender transport) {
+        this(transport, null, new SingleFlight(), null);
+    }
+
+    public TimeSeriesOperations(MessageSender transport, LatestRecordsCache latestCache,
+                                SingleFlight singleFlight) {
+        this(transport, latestCache, singleFlight, null);
+    }
+
+    /**
+     * @param latestCache  snapshot cache for fetchLatestRecords, or null to always ask the server
+     * @param singleFlight deduplication of identical reads, shared with the client's other operations
+     * @param outbox       disk log that insert batches go through, or null to send them directly
+     */
+    public TimeSeriesOperations(MessageSender transport, LatestRecordsCache latestCache,
+                                SingleFlight singleFlight, InsertOutbox outbox) {
+        this.transport = transport;
+        this.latestCache = latestCache;
+        this.singleFlight = singleFlight;
+        this.outbox = outbox;
     }
 
     public CompletableFuture<Void> insertSingleRecord(InsertMessageRequest request) {
@@ -26,150 +54,287 @@ public class TimeSeriesOperations {
     }
 
     public CompletableFuture<Void> insertMultipleRecords(List<InsertMessageRequest> requests) {
-        StringBuilder arrayJson = new StringBuilder("[");
+        if (transport.partitionCount() > 1) {
+            return sendByPartition(requests, InsertMessageRequest::getCol, InsertMessageRequest::getDoc,
+                    this::sendInsert);
+        }
+        return sendInsert(0, requests);
+    }
+
+    private CompletableFuture<Void> sendInsert(int partition, List<InsertMessageRequest> requests) {
+        JsonWriter json = JsonWriter.local().beginArray();
         for (int i = 0; i < requests.size(); i++) {
-            if (i > 0) arrayJson.append(",");
             InsertMessageRequest req = requests.get(i);
+            json.beginObject()
+                    .name("ts").value(req.getTs())
+                    .name("doc").value(req.getDoc())
+                    .name("data").value(req.getData())
+                    .name("col").value(req.getCol())
+                    .endObject();
+        }
+        String data = json.endArray().build();
+        CompletableFuture<String> response = singleFlight.afterWrite(colsOf(requests, InsertMessageRequest::getCol),
+                sendInsertData(partition, data));
+        if (latestCache == null) {
+            return response.thenApply(r -> null);
+        }
+        return response.thenApply(r -> {
+            latestCache.onInserted(requests);
+            return null;
+        });
+    }
 
-            arrayJson.append(new JsonBuilder()
-                    .add("ts", req.getTs())
-                    .add("doc", req.getDoc())
-                    .add("data", req.getData())
-                    .add("col", req.getCol())
-                    .build());
+    /**
+     * Inserts records whose data {@code codec} writes straight into the request.
+     */
+    public <T> CompletableFuture<Void> insertMultipleRecords(List<TypedInsertRequest<T>> requests,
+                                                             PayloadCodec<T> codec) {
+        if (transport.partitionCount() > 1) {
+            return sendByPartition(requests, TypedInsertRequest::getCol, TypedInsertRequest::getDoc,
+                    (partition, share) -> sendInsert(partition, share, codec));
         }
-        arrayJson.append("]");
+        return sendInsert(0, requests, codec);
+    }
 
-        return wsManager.send(MessageTypes.INSERT, arrayJson.toString())
-                .thenApply(response -> null);
+    private <T> CompletableFuture<Void> sendInsert(int partition, List<TypedInsertRequest<T>> requests,
+                                                   PayloadCodec<T> codec) {
+        JsonWriter json = JsonWriter.local().beginArray();
+        for (int i = 0; i < requests.size(); i++) {
+            TypedInsertRequest<T> req = requests.get(i);
+            json.beginObject()
+                    .name("ts").value(req.getTs())
+                    .name("doc").value(req.getDoc())
+                    .name("data");
+            codec.encode(req.getData(), json.beginEmbedded());
+            json.endEmbedded()
+                    .name("col").value(req.getCol())
+                    .endObject();
+        }
+        String data = json.endArray().build();
+        Collection<String> cols = colsOf(requests, TypedInsertRequest::getCol);
+        CompletableFuture<String> response = singleFlight.afterWrite(cols, sendInsertData(partition, data));
+        if (latestCache == null) {
+            return response.thenApply(r -> null);
+        }
+        // Snapshots hold data as text, which is never built here, so they are dropped rather than updated
+        return response.thenApply(r -> {
+            cols.forEach(latestCache::invalidateCollection);
+            return null;
+        });
+    }
+
+    private CompletableFuture<String> sendInsertData(int partition, String data) {
+        return outbox != null ? outbox.send(partition, data) : transport.send(partition, MessageTypes.INSERT, data);
     }
 
     public CompletableFuture<Map<String, RecordResponse>> fetchLatestRecords(FetchLatestRecordsParams params) {
-        JsonBuilder builder = new JsonBuilder()
-                .add("col", params.getCol())
-                .add("ts", params.getTs());
+        long generation = 0;
+        if (latestCache != null) {
+            Map<String, RecordResponse> cached = latestCache.get(params);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            generation = latestCache.generation(params.getCol());
+        }
+
+        JsonWriter json = JsonWriter.local().beginObject()
+                .name("col").value(params.getCol())
+                .name("ts").value(params.getTs());
 
         if (params.getDoc() != null) {
-            builder.add("doc", params.getDoc());
+            json.name("doc").value(params.getDoc());
         }
         if (params.getFrom() != null) {
-            builder.add("from", params.getFrom());
+            json.name("from").value(params.getFrom());
         }
         if (params.getWhere() != null) {
-            builder.add("where", params.getWhere());
+            json.name("where").value(params.getWhere());
         }
         if (params.getFilter() != null) {
-            builder.add("filter", params.getFilter());
+            json.name("filter").value(params.getFilter());
         }
 
-        String data = builder.build();
+        String data = json.endObject().build();
 
-        return wsManager.send(MessageTypes.QUERY_RECORDS, data)
-                .thenApply(response -> {
-                    Map<String, Object> parsed = JsonParser.parseObject(response);
-                    Map<String, Object> recordsMap = JsonParser.getObject(parsed, "records");
-
-                    Map<String, RecordResponse> result = new HashMap<>();
-                    for (Map.Entry<String, Object> entry : recordsMap.entrySet()) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> recordObj = (Map<String, Object>) entry.getValue();
-                        long ts = JsonParser.getLong(recordObj, "ts");
-                        String recordData = JsonParser.getString(recordObj, "data");
-                        result.put(entry.getKey(), new RecordResponse(ts, recordData));
-                    }
+        CompletableFuture<Map<String, RecordResponse>> records = singleFlight.execute(MessageTypes.QUERY_RECORDS, params.getCol(), data,
+                () -> transport.send(MessageTypes.QUERY_RECORDS, data).thenApply(RecordDecoder::decodeLatestRecords),
+                HashMap::new);
+        if (latestCache == null) {
+            return records;
+        }
 
-                    return result;
-                });
+        long queryGeneration = generation;
+        return records.thenApply(result -> {
+            latestCache.putIfCurrent(params, result, queryGeneration);
+            return result;
+        });
     }
 
     public CompletableFuture<List<RecordResponse>> fetchDocument(FetchRecordsParams params) {
-        JsonBuilder builder = new JsonBuilder()
-                .add("col", params.getCol())
-                .add("doc", params.getDoc())
-                .add("from", params.getFrom())
-                .add("to", params.getTo());
+        String data = documentQuery(params);
+        return singleFlight.execute(MessageTypes.QUERY_DOCUMENT, params.getCol(), data,
+                () -> transport.send(MessageTypes.QUERY_DOCUMENT, data)
+                        .thenApply(response -> RecordDecoder.decodeDocumentRecords(response, params.getLimit())),
+                ArrayList::new);
+    }
+
+    /**
+     * Fetches a document's records, decoding each record's data with {@code codec} straight from the
+     * response. Identical concurrent reads share the response and decode it separately.
+     */
+    public <T> CompletableFuture<List<TypedRecordResponse<T>>> fetchDocument(FetchRecordsParams params,
+                                                                            PayloadCodec<T> codec) {
+        String data = documentQuery(params);
+        return singleFlight.executeRaw(MessageTypes.QUERY_DOCUMENT, params.getCol(), data,
+                        () -> transport.send(MessageTypes.QUERY_DOCUMENT, data))
+                .thenApply(response -> RecordDecoder.decodeDocumentRecords(response, params.getLimit(), codec));
+    }
+
+    private static String documentQuery(FetchRecordsParams params) {
+        JsonWriter json = JsonWriter.local().beginObject()
+                .name("col").value(params.getCol())
+                .name("doc").value(params.getDoc())
+                .name("from").value(params.getFrom())
+                .name("to").value(params.getTo());
 
         if (params.getLimit() != null) {
-            builder.add("limit", params.getLimit());
+            json.name("limit").value(params.getLimit());
         }
         if (params.getReverse() != null) {
-            builder.add("reverse", params.getReverse());
+            json.name("reverse").value(params.getReverse());
         }
         if (params.getWhere() != null) {
-            builder.add("where", params.getWhere());
+            json.name("where").value(params.getWhere());
         }
         if (params.getFilter() != null) {
-            builder.add("filter", params.getFilter());
+            json.name("filter").value(params.getFilter());
         }
 
-        String data = builder.build();
-
-        return wsManager.send(MessageTypes.QUERY_DOCUMENT, data)
-                .thenApply(response -> {
-                    Map<String, Object> parsed = JsonParser.parseObject(response);
-                    List<Object> recordsList = JsonParser.getArray(parsed, "records");
+        return json.endObject().build();
+    }
 
-                    List<RecordResponse> result = new ArrayList<>();
-                    for (Object item : recordsList) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> recordObj = (Map<String, Object>) item;
-                        long ts = JsonParser.getLong(recordObj, "ts");
-                        String recordData = JsonParser.getString(recordObj, "data");
-                        result.add(new RecordResponse(ts, recordData));
-                    }
+    /**
+     * Pages through the document's range, using the params' limit as the page size.
+     */
+    public Flow.Publisher<RecordResponse> fetchDocumentStream(FetchRecordsParams params) {
+        return new DocumentHistoryPublisher(this, params);
+    }
 
-                    return result;
-                });
+    /**
+     * Blocking variant of {@link #fetchDocumentStream(FetchRecordsParams)}.
+     */
+    public Iterator<RecordResponse> fetchDocumentIterator(FetchRecordsParams params) {
+        return new DocumentHistoryIterator(this, params);
     }
 
     public CompletableFuture<Void> deleteDocument(DeleteDocumentParams params) {
-        String data = new JsonBuilder()
-                .add("col", params.getCol())
-                .add("doc", params.getDoc())
+        String data = JsonWriter.local().beginObject()
+                .name("col").value(params.getCol())
+                .name("doc").value(params.getDoc())
+                .endObject()
                 .build();
 
-        return wsManager.send(MessageTypes.DELETE_DOCUMENT, data)
-                .thenApply(response -> null);
+        return afterDelete(Collections.singleton(params.getCol()),
+                transport.send(transport.partitionFor(params.getCol(), params.getDoc()), MessageTypes.DELETE_DOCUMENT, data));
     }
 
     public CompletableFuture<Void> deleteRecord(DeleteRecord params) {
-        String data = new JsonBuilder()
-                .add("col", params.getCol())
-                .add("doc", params.getDoc())
-                .add("ts", params.getTs())
+        String data = JsonWriter.local().beginObject()
+                .name("col").value(params.getCol())
+                .name("doc").value(params.getDoc())
+                .name("ts").value(params.getTs())
+                .endObject()
                 .build();
 
-        return wsManager.send(MessageTypes.DELETE_RECORD, data)
-                .thenApply(response -> null);
+        return afterDelete(Collections.singleton(params.getCol()),
+                transport.send(transport.partitionFor(params.getCol(), params.getDoc()), MessageTypes.DELETE_RECORD, data));
     }
 
     public CompletableFuture<Void> deleteMultipleRecords(List<DeleteRecord> records) {
-        StringBuilder arrayJson = new StringBuilder("[");
+        if (transport.partitionCount() > 1) {
+            return sendByPartition(records, DeleteRecord::getCol, DeleteRecord::getDoc,
+                    this::sendDeleteMultipleRecords);
+        }
+        return sendDeleteMultipleRecords(0, records);
+    }
+
+    private CompletableFuture<Void> sendDeleteMultipleRecords(int partition, List<DeleteRecord> records) {
+        JsonWriter json = JsonWriter.local().beginArray();
         for (int i = 0; i < records.size(); i++) {
-            if (i > 0) arrayJson.append(",");
             DeleteRecord rec = records.get(i);
-
-            arrayJson.append(new JsonBuilder()
-                    .add("col", rec.getCol())
-                    .add("doc", rec.getDoc())
-                    .add("ts", rec.getTs())
-                    .build());
+            json.beginObject()
+                    .name("col").value(rec.getCol())
+                    .name("doc").value(rec.getDoc())
+                    .name("ts").value(rec.getTs())
+                    .endObject();
         }
-        arrayJson.append("]");
+        String data = json.endArray().build();
 
-        return wsManager.send(MessageTypes.DELETE_MULTIPLE_RECORDS, arrayJson.toString())
-                .thenApply(response -> null);
+        return afterDelete(colsOf(records, DeleteRecord::getCol),
+                transport.send(partition, MessageTypes.DELETE_MULTIPLE_RECORDS, data));
     }
 
     public CompletableFuture<Void> deleteRecordsRange(DeleteRecordsRange params) {
-        String data = new JsonBuilder()
-                .add("col", params.getCol())
-                .add("doc", params.getDoc())
-                .add("fromTs", params.getFromTs())
-                .add("toTs", params.getToTs())
+        String data = JsonWriter.local().beginObject()
+                .name("col").value(params.getCol())
+                .name("doc").value(params.getDoc())
+                .name("fromTs").value(params.getFromTs())
+                .name("toTs").value(params.getToTs())
+                .endObject()
                 .build();
 
-        return wsManager.send(MessageTypes.DELETE_RECORDS_RANGE, data)
-                .thenApply(response -> null);
+        return afterDelete(Collections.singleton(params.getCol()),
+                transport.send(transport.partitionFor(params.getCol(), params.getDoc()), MessageTypes.DELETE_RECORDS_RANGE, data));
+    }
+
+    /**
+     * Drops in-flight reads and cached snapshots of the collections a delete touches, both when it
+     * is sent and when it completes.
+     */
+    private CompletableFuture<Void> afterDelete(Collection<String> cols, CompletableFuture<String> response) {
+        response = singleFlight.afterWrite(cols, response);
+        if (latestCache == null) {
+            return response.thenApply(r -> null);
+        }
+        cols.forEach(latestCache::invalidateCollection);
+        return response.whenComplete((r, error) -> cols.forEach(latestCache::invalidateCollection))
+                .thenApply(r -> null);
+    }
+
+    private static <T> Collection<String> colsOf(List<T> items, Function<T, String> colOf) {
+        if (items.size() == 1) {
+            return Collections.singleton(colOf.apply(items.get(0)));
+        }
+        Set<String> cols = new HashSet<>();
+        for (T item : items) {
+            cols.add(colOf.apply(item));
+        }
+        return cols;
+    }
+
+    /**
+     * Splits a multi-document write so every record goes to the partition that owns its document,
+     * and completes once every partition has acknowledged its share.
+     */
+    private <T> CompletableFuture<Void> sendByPartition(List<T> items, Function<T, String> colOf,
+                                                        Function<T, String> docOf,
+                                                        BiFunction<Integer, List<T>, CompletableFuture<Void>> sender) {
+        Map<Integer, List<T>> byPartition = new LinkedHashMap<>();
+        for (T item : items) {
+            int partition = transport.partitionFor(colOf.apply(item), docOf.apply(item));
+            byPartition.computeIfAbsent(partition, p -> new ArrayList<>()).add(item);
+        }
+
+        if (byPartition.size() == 1) {
+            Map.Entry<Integer, List<T>> only = byPartition.entrySet().iterator().next();
+            return sender.apply(only.getKey(), only.getValue());
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[byPartition.size()];
+        int i = 0;
+        for (Map.Entry<Integer, List<T>> entry : byPartition.entrySet()) {
+            futures[i++] = sender.apply(entry.getKey(), entry.getValue());
+        }
+        return CompletableFuture.allOf(futures);
     }
 }
@@ -0,0 +1,19 @@
+package com.volandoo.fluxiondb.outbox;
+
+/**
+ * When the outbox forces appended batches from the page cache to the storage device.
+ */
+public enum FsyncPolicy {
+    /**
+     * After every append, before the batch is sent. Survives power loss; slowest.
+     */
+    ALWAYS,
+    /**
+     * Periodically, on the outbox policy's interval. A power loss can drop the batches of the last interval.
+     */
+    INTERVAL,
+    /**
+     * Left to the operating system. Survives a process crash but not a power loss.
+     */
+    NEVER
+}
@@ -0,0 +1,482 @@
+package com.volandoo.fluxiondb.outbox;
+
+import com.volandoo.fluxiondb.connection.ConnectionState;
+import com.volandoo.fluxiondb.connection.MessageTransport;
+import com.volandoo.fluxiondb.exceptions.ConnectionException;
+import com.volandoo.fluxiondb.exceptions.FluxionDBException;
+import com.volandoo.fluxiondb.exceptions.TimeoutException;
+import com.volandoo.fluxiondb.protocol.MessageTypes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Disk-backed log of "ins" batches that have not been acknowledged yet.
+ * <p>
+ * Every batch is appended to a memory-mapped segment before it is sent. If the send fails because
+ * the connection dropped, the batch stays in the log and waits for the partition's socket to be
+ * authenticated again; the waiting batches are then sent again in append order. A batch appended
+ * while its partition is reconnecting, or while older batches of it are waiting, is only logged and
+ * waits with them, so the reconnect does not send it twice. The caller's future therefore completes
+ * when the server finally acknowledges the batch, not when the connection fails. A batch the server
+ * rejects is dropped and its future fails.
+ * <p>
+ * A timed-out batch may still have been applied, and the server replaces a record written at an
+ * equal ts, so sending it again on its own could overwrite a newer write to the same document.
+ * It is therefore sent again after a backoff followed by every later unacknowledged batch of its
+ * partition, in append order; writes to a document all go to one partition. This cannot undo a
+ * later batch that was already acknowledged when the timeout fired, which happens only if the
+ * server answered the timed-out batch after its deadline: a resend then overwrites that batch's
+ * records at the same (col, doc, ts). A batch that times out more than
+ * {@link OutboxPolicy#getMaxResends()} times is dropped and its future fails with the timeout.
+ * <p>
+ * Acknowledged records are marked in place, and a segment file is deleted once every record in it
+ * is acknowledged and it is no longer being appended to. Segments left over from a previous process
+ * are replayed on the first connect. Delivery is at least once: a batch whose acknowledgement was
+ * lost is sent again, which rewrites the same (col, doc, ts) records.
+ */
+public final class InsertOutbox implements AutoCloseable {
+
+    private final OutboxPolicy policy;
+    private final MessageTransport transport;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Oldest first; the last one is appended to
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    // In append order, which is replay order
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>();
+    // Bumped each time a partition's socket becomes ready
+    private final long[] readyEpochs;
+    // Batches per partition waiting for its socket to become ready
+    private final int[] parkedCounts;
+
+    private long nextEntryId;
+    private long nextSegmentSequence;
+    private long diskBytes;
+    private boolean closed;
+    private ScheduledFuture<?> fsyncTask;
+
+    /**
+     * Opens the outbox, recovering unacknowledged batches left in {@code policy.getDirectory()}.
+     *
+     * @throws IOException if the directory or a segment cannot be opened
+     */
+    public InsertOutbox(OutboxPolicy policy, MessageTransport transport) throws IOException {
+        this.policy = policy;
+        this.transport = transport;
+        this.readyEpochs = new long[transport.partitionCount()];
+        this.parkedCounts = new int[readyEpochs.length];
+
+        Files.createDirectories(policy.getDirectory());
+        recover();
+        transport.addConnectionStateListener((partition, previous, current) -> {
+            if (current == ConnectionState.CONNECTED) {
+                replay(partition);
+            }
+        });
+        if (policy.getFsyncPolicy() == FsyncPolicy.INTERVAL) {
+            scheduleFsync();
+        }
+    }
+
+    /**
+     * Appends an "ins" batch to the log and sends it on the given partition, or leaves it for the
+     * replay if the partition is reconnecting.
+     *
+     * @param data the batch's JSON array
+     * @return CompletableFuture with the server's response, failed if the batch is rejected by the
+     *         server or does not fit in the disk budget
+     */
+    public CompletableFuture<String> send(int partition, String data) {
+        byte[] payload = data.getBytes(StandardCharsets.UTF_8);
+        Entry entry;
+        boolean parked;
+        lock.lock();
+        try {
+            if (closed) {
+                return CompletableFuture.failedFuture(new FluxionDBException("Outbox is closed"));
+            }
+            Segment segment = segmentFor(payload.length);
+            int offset = segment.append(partition, payload);
+            if (policy.getFsyncPolicy() == FsyncPolicy.ALWAYS) {
+                segment.force();
+            }
+            entry = new Entry(nextEntryId++, segment, offset, partition);
+            entry.epoch = readyEpochs[partition];
+            entries.put(entry.id, entry);
+            // The transport would hold it and write it after the replay has already sent it
+            parked = parkedCounts[partition] > 0
+                    || transport.getConnectionState(partition) == ConnectionState.RECONNECTING;
+            if (parked) {
+                park(entry);
+            }
+        } catch (FluxionDBException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new FluxionDBException("Failed to append to outbox", e));
+        } finally {
+            lock.unlock();
+        }
+
+        if (!parked) {
+            dispatch(entry, data, 0);
+        }
+        return entry.result;
+    }
+
+    /**
+     * Returns the number of batches waiting for an acknowledgement, including recovered ones.
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the size of the segment files currently on disk.
+     */
+    public long getDiskBytes() {
+        lock.lock();
+        try {
+            return diskBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the log to disk and stops sending. Unacknowledged batches stay on disk and are replayed
+     * by the next outbox opened on the same directory; their futures fail now.
+     */
+    @Override
+    public void close() {
+        List<Entry> abandoned;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (fsyncTask != null) {
+                fsyncTask.cancel(false);
+            }
+            if (policy.getFsyncPolicy() != FsyncPolicy.NEVER) {
+                segments.forEach(Segment::force);
+            }
+            abandoned = new ArrayList<>(entries.values());
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        ConnectionException error = new ConnectionException("Outbox closed before the batch was acknowledged; "
+                + "it will be replayed when the outbox is reopened");
+        abandoned.forEach(entry -> entry.result.completeExceptionally(error));
+    }
+
+    private void dispatch(Attempt attempt) {
+        dispatch(attempt.entry, attempt.data, attempt.number);
+    }
+
+    /**
+     * Sends one attempt of a batch. Only the outcome of the latest attempt decides what happens
+     * next; an acknowledgement of any attempt completes the batch.
+     */
+    private void dispatch(Entry entry, String data, int attempt) {
+        transport.send(entry.partition, MessageTypes.INSERT, data).whenComplete((response, error) -> {
+            if (error == null) {
+                acknowledge(entry);
+                entry.result.complete(response);
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof TimeoutException) {
+                resendAfterBackoff(entry, attempt, (TimeoutException) cause);
+            } else if (cause instanceof ConnectionException) {
+                resendIfReconnected(entry, attempt);
+            } else {
+                // Rejected by the server; sending it again would not help
+                acknowledge(entry);
+                entry.result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private void resendAfterBackoff(Entry entry, int attempt, TimeoutException cause) {
+        long delayMs;
+        lock.lock();
+        try {
+            if (!isLatestAttempt(entry, attempt)) {
+                return;
+            }
+            delayMs = ++entry.timeouts > policy.getMaxResends()
+                    ? -1 : policy.getResendBackoffMs() << Math.min(entry.timeouts - 1, 16);
+        } finally {
+            lock.unlock();
+        }
+        if (delayMs < 0) {
+            acknowledge(entry);
+            entry.result.completeExceptionally(cause);
+            return;
+        }
+
+        try {
+            transport.schedule(() -> {
+                List<Attempt> attempts;
+                lock.lock();
+                try {
+                    if (!isLatestAttempt(entry, attempt)) {
+                        return; // Replayed by a reconnect in the meantime
+                    }
+                    attempts = resendFrom(entry);
+                } finally {
+                    lock.unlock();
+                }
+                attempts.forEach(this::dispatch);
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Transport shut down; the batch stays on disk for the next outbox
+        }
+    }
+
+    /**
+     * Sends the batch and the later ones of its partition again if its socket has become ready
+     * since it was sent; otherwise leaves it to {@link #replay(int)} on the next ready.
+     */
+    private void resendIfReconnected(Entry entry, int attempt) {
+        List<Attempt> attempts;
+        lock.lock();
+        try {
+            if (!isLatestAttempt(entry, attempt)) {
+                return;
+            }
+            if (readyEpochs[entry.partition] == entry.epoch) {
+                park(entry);
+                return;
+            }
+            attempts = resendFrom(entry);
+        } finally {
+            lock.unlock();
+        }
+        attempts.forEach(this::dispatch);
+    }
+
+    /**
+     * Sends every batch of a partition that waits for its socket, in append order. Batches in
+     * flight on the new socket are left alone.
+     */
+    private void replay(int partition) {
+        List<Attempt> attempts = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            ++readyEpochs[partition];
+            if (parkedCounts[partition] == 0) {
+                return;
+            }
+            for (Entry entry : entries.values()) {
+                if (entry.partition == partition && entry.parked) {
+                    attempts.add(nextAttempt(entry));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        attempts.forEach(this::dispatch);
+    }
+
+    /**
+     * Starts a new attempt of a batch and of every later unacknowledged batch of its partition, so
+     * the resent batch cannot be applied after a newer write to the same document.
+     */
+    private List<Attempt> resendFrom(Entry first) {
+        List<Attempt> attempts = new ArrayList<>();
+        boolean found = false;
+        for (Entry entry : entries.values()) {
+            found |= entry == first;
+            if (found && entry.partition == first.partition) {
+                attempts.add(nextAttempt(entry));
+            }
+        }
+        return attempts;
+    }
+
+    private void park(Entry entry) {
+        if (!entry.parked) {
+            entry.parked = true;
+            parkedCounts[entry.partition]++;
+        }
+    }
+
+    private void unpark(Entry entry) {
+        if (entry.parked) {
+            entry.parked = false;
+            parkedCounts[entry.partition]--;
+        }
+    }
+
+    private Attempt nextAttempt(Entry entry) {
+        unpark(entry);
+        entry.epoch = readyEpochs[entry.partition];
+        return new Attempt(entry, entry.segment.read(entry.offset), ++entry.attempt);
+    }
+
+    private boolean isLatestAttempt(Entry entry, int attempt) {
+        return !closed && entry.attempt == attempt && entries.containsKey(entry.id);
+    }
+
+    private void acknowledge(Entry entry) {
+        lock.lock();
+        try {
+            if (closed || entries.remove(entry.id) == null) {
+                return;
+            }
+            unpark(entry);
+            entry.segment.acknowledge(entry.offset);
+            if (entry.segment.pending == 0 && entry.segment != segments.peekLast()) {
+                deleteSegment(entry.segment);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the segment to append a payload to, rolling to a new one when the current one is full.
+     */
+    private Segment segmentFor(int payloadBytes) throws IOException {
+        Segment active = segments.peekLast();
+        if (active != null && active.fits(payloadBytes)) {
+            return active;
+        }
+
+        long needed = (long) Segment.HEADER_BYTES + payloadBytes;
+        int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(policy.getSegmentBytes(), needed));
+        if (needed > capacity || diskBytes + capacity > policy.getMaxDiskBytes()) {
+            throw new FluxionDBException("Outbox disk budget of " + policy.getMaxDiskBytes()
+                    + " bytes exhausted; " + entries.size() + " batches are waiting for acknowledgement");
+        }
+
+        Segment segment = Segment.create(policy.getDirectory(), nextSegmentSequence++, capacity);
+        segments.addLast(segment);
+        diskBytes += capacity;
+        if (active != null) {
+            // Later appends go to the new segment even if they would fit, keeping the files in append order
+            active.seal();
+            if (active.pending == 0) {
+                deleteSegment(active);
+            }
+        }
+        return segment;
+    }
+
+    private void deleteSegment(Segment segment) {
+        segments.remove(segment);
+        diskBytes -= segment.capacity;
+        try {
+            segment.delete();
+        } catch (IOException e) {
+            System.err.println("Failed to delete outbox segment " + segment + ": " + e.getMessage());
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(policy.getDirectory())) {
+            paths = files.filter(Segment::isSegment)
+                    .sorted(Comparator.comparingLong(Segment::sequenceOf))
+                    .collect(Collectors.toList());
+        }
+
+        for (Path path : paths) {
+            Segment segment = Segment.open(path);
+            nextSegmentSequence = segment.sequence + 1;
+            segment.recover((offset, partition) -> {
+                // The pool may have been resized since the batch was written
+                Entry entry = new Entry(nextEntryId++, segment, offset, Math.floorMod(partition, readyEpochs.length));
+                entries.put(entry.id, entry);
+                park(entry);
+            });
+            if (segment.pending == 0) {
+                segment.delete();
+            } else {
+                segments.addLast(segment);
+                diskBytes += segment.capacity;
+            }
+        }
+    }
+
+    private void scheduleFsync() {
+        try {
+            fsyncTask = transport.schedule(() -> {
+                lock.lock();
+                try {
+                    if (closed) {
+                        return;
+                    }
+                    segments.forEach(Segment::force);
+                    scheduleFsync();
+                } finally {
+                    lock.unlock();
+                }
+            }, policy.getFsyncIntervalMs(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Transport shut down; close() forces what is left
+        }
+    }
+
+    private static final class Entry {
+        final long id;
+        final Segment segment;
+        final int offset;
+        final int partition;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        // Guarded by the outbox lock
+        long epoch;
+        int attempt;
+        int timeouts;
+        boolean parked;
+
+        Entry(long id, Segment segment, int offset, int partition) {
+            this.id = id;
+            this.segment = segment;
+            this.offset = offset;
+            this.partition = partition;
+        }
+    }
+
+    private static final class Attempt {
+        final Entry entry;
+        final String data;
+        final int number;
+
+        Attempt(Entry entry, String data, int number) {
+            this.entry = entry;
+            this.data = data;
+            this.number = number;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.volandoo.fluxiondb.outbox;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for the disk-backed insert outbox. Batches are appended to memory-mapped segment files
+ * of {@code segmentBytes} each in {@code directory}; appends are rejected once the live segments
+ * would exceed {@code maxDiskBytes}. A batch that times out is sent again up to {@code maxResends}
+ * times, waiting {@code resendBackoffMs} before the first resend and twice as long before each next.
+ */
+public final class OutboxPolicy {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 8L * 1024 * 1024;
+    public static final long DEFAULT_FSYNC_INTERVAL_MS = 1000;
+    public static final int DEFAULT_MAX_RESENDS = 5;
+    public static final long DEFAULT_RESEND_BACKOFF_MS = 500;
+
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final long segmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMs;
+    private final int maxResends;
+    private final long resendBackoffMs;
+
+    public OutboxPolicy(Path directory, long maxDiskBytes, FsyncPolicy fsyncPolicy) {
+        this(directory, maxDiskBytes, Math.min(DEFAULT_SEGMENT_BYTES, maxDiskBytes), fsyncPolicy, DEFAULT_FSYNC_INTERVAL_MS);
+    }
+
+    public OutboxPolicy(Path directory, long maxDiskBytes, long segmentBytes, FsyncPolicy fsyncPolicy,
+                        long fsyncIntervalMs) {
+        this(directory, maxDiskBytes, segmentBytes, fsyncPolicy, fsyncIntervalMs,
+                DEFAULT_MAX_RESENDS, DEFAULT_RESEND_BACKOFF_MS);
+    }
+
+    public OutboxPolicy(Path directory, long maxDiskBytes, long segmentBytes, FsyncPolicy fsyncPolicy,
+                        long fsyncIntervalMs, int maxResends, long resendBackoffMs) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory is required");
+        }
+        if (fsyncPolicy == null) {
+            throw new IllegalArgumentException("fsyncPolicy is required");
+        }
+        if (segmentBytes < 4096 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentBytes must be between 4096 and " + Integer.MAX_VALUE);
+        }
+        if (maxDiskBytes < segmentBytes) {
+            throw new IllegalArgumentException("maxDiskBytes must be >= segmentBytes");
+        }
+        if (fsyncIntervalMs < 1) {
+            throw new IllegalArgumentException("fsyncIntervalMs must be >= 1");
+        }
+        if (maxResends < 0) {
+            throw new IllegalArgumentException("maxResends must be >= 0");
+        }
+        if (resendBackoffMs < 1) {
+            throw new IllegalArgumentException("resendBackoffMs must be >= 1");
+        }
+
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.segmentBytes = segmentBytes;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.maxResends = maxResends;
+        this.resendBackoffMs = resendBackoffMs;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaxDiskBytes() {
+        return maxDiskBytes;
+    }
+
+    public long getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public long getFsyncIntervalMs() {
+        return fsyncIntervalMs;
+    }
+
+    public int getMaxResends() {
+        return maxResends;
+    }
+
+    public long getResendBackoffMs() {
+        return resendBackoffMs;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxPolicy{directory=" + directory + ", maxDiskBytes=" + maxDiskBytes
+                + ", segmentBytes=" + segmentBytes + ", fsyncPolicy=" + fsyncPolicy
+                + ", fsyncIntervalMs=" + fsyncIntervalMs + ", maxResends=" + maxResends
+                + ", resendBackoffMs=" + resendBackoffMs + "}";
+    }
+}
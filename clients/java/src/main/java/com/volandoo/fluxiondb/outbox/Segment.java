@@ -0,0 +1,187 @@
+package com.volandoo.fluxiondb.outbox;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * One memory-mapped, fixed-size file of the outbox log.
+ * <p>
+ * Records are laid out back to back as {@code [status:1][partition:4][length:4][crc32:4][payload]}.
+ * The status byte is written last, so a record torn by a crash reads as the end of the segment, and
+ * the checksum catches payload pages that reached the disk out of order. Acknowledging a record
+ * rewrites its status byte in place. Not thread-safe; the outbox guards every segment with its lock.
+ */
+final class Segment {
+
+    static final int HEADER_BYTES = 13;
+
+    private static final byte EMPTY = 0;
+    private static final byte PENDING = 1;
+    private static final byte ACKED = 2;
+    private static final String SUFFIX = ".seg";
+
+    /**
+     * Receives the pending records found when reopening a segment.
+     */
+    interface PendingRecordVisitor {
+        void visit(int offset, int partition);
+    }
+
+    final long sequence;
+    final int capacity;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+    private boolean dirty;
+
+    /** Records appended or recovered and not yet acknowledged. */
+    int pending;
+
+    private Segment(long sequence, Path path, MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+    }
+
+    static Segment create(Path directory, long sequence, int capacity) throws IOException {
+        Path path = directory.resolve(fileName(sequence));
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(capacity);
+            // The mapping stays valid after the channel is closed
+            return new Segment(sequence, path, file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        }
+    }
+
+    static Segment open(Path path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            long size = file.length();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not an outbox segment: " + path);
+            }
+            return new Segment(sequenceOf(path), path,
+                    file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(SUFFIX) && name.length() > SUFFIX.length()
+                && name.substring(0, name.length() - SUFFIX.length()).chars().allMatch(Character::isDigit);
+    }
+
+    static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static String fileName(long sequence) {
+        return String.format("%020d%s", sequence, SUFFIX);
+    }
+
+    boolean fits(int payloadBytes) {
+        return writePosition + HEADER_BYTES + payloadBytes <= capacity;
+    }
+
+    /**
+     * Stops further appends to this segment.
+     */
+    void seal() {
+        writePosition = capacity;
+    }
+
+    /**
+     * Appends a pending record; the caller checks {@link #fits(int)} first.
+     *
+     * @return the record's offset
+     */
+    int append(int partition, byte[] payload) {
+        int offset = writePosition;
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + 1);
+        view.putInt(partition).putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        buffer.put(offset, PENDING);
+
+        writePosition = offset + HEADER_BYTES + payload.length;
+        pending++;
+        dirty = true;
+        return offset;
+    }
+
+    void acknowledge(int offset) {
+        buffer.put(offset, ACKED);
+        pending--;
+        dirty = true;
+    }
+
+    String read(int offset) {
+        int length = buffer.getInt(offset + 5);
+        byte[] payload = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + HEADER_BYTES);
+        view.get(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Walks the records of a reopened segment, reporting the pending ones, and stops at the first
+     * empty or damaged record. Nothing more is appended to a reopened segment.
+     */
+    void recover(PendingRecordVisitor visitor) {
+        int position = 0;
+        while (position + HEADER_BYTES <= capacity) {
+            byte status = buffer.get(position);
+            if (status == EMPTY) {
+                break;
+            }
+            int partition = buffer.getInt(position + 1);
+            int length = buffer.getInt(position + 5);
+            int checksum = buffer.getInt(position + 9);
+            if (length < 0 || length > capacity - position - HEADER_BYTES) {
+                break;
+            }
+            if (status == PENDING) {
+                CRC32 crc = new CRC32();
+                ByteBuffer payload = buffer.duplicate();
+                payload.position(position + HEADER_BYTES).limit(position + HEADER_BYTES + length);
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                pending++;
+                visitor.visit(position, partition);
+            }
+            position += HEADER_BYTES + length;
+        }
+        seal();
+    }
+
+    /**
+     * Forces changes since the last call to the storage device.
+     */
+    void force() {
+        if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+}
@@ -28,4 +28,24 @@ public final class MessageTypes {
     public static final String CONNECTIONS = "conn";
 
     public static final String READY = "ready";
+
+    /**
+     * Returns true for message types that only read server state, so identical requests
+     * may share one response.
+     */
+    public static boolean isReadOnly(String type) {
+        switch (type) {
+            case QUERY_RECORDS:
+            case QUERY_COLLECTIONS:
+            case QUERY_DOCUMENT:
+            case GET_VALUE:
+            case GET_VALUES:
+            case GET_ALL_VALUES:
+            case GET_ALL_KEYS:
+            case CONNECTIONS:
+                return true;
+            default:
+                return false;
+        }
+    }
 }
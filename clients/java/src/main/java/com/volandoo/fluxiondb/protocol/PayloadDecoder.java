@@ -0,0 +1,66 @@
+package com.volandoo.fluxiondb.protocol;
+
+import com.volandoo.fluxiondb.codec.PayloadCodec;
+import com.volandoo.fluxiondb.json.JsonReader;
+
+/**
+ * Decodes payloads carried as JSON string values with a {@link PayloadCodec}.
+ * <p>
+ * A payload without escapes is read in place from the response; otherwise it is unescaped into a
+ * buffer that is reused for every payload of the response. Either way no String is created for it.
+ * Instances are not thread-safe and are meant to live for one response.
+ */
+public final class PayloadDecoder<T> {
+
+    private final PayloadCodec<T> codec;
+    private final JsonReader reader = new JsonReader("", 0, 0);
+    private StringBuilder unescaped;
+
+    public PayloadDecoder(PayloadCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Decodes the contents of a string value, {@code json[start, end)}, still escaped.
+     */
+    public T decode(CharSequence json, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (json.charAt(i) == '\\') {
+                if (unescaped == null) {
+                    unescaped = new StringBuilder(end - start);
+                }
+                unescaped.setLength(0);
+                JsonReader.unescape(json, start, end, unescaped);
+                return codec.decode(reader.reset(unescaped, 0, unescaped.length()));
+            }
+        }
+        return codec.decode(reader.reset(json, start, end));
+    }
+
+    /**
+     * Decodes the value of a "gval" response: {@code {"id":..,"value":".."}}.
+     * Returns null if the key has no value, which the server may also report as an empty string.
+     */
+    public static <T> T decodeValue(String response, PayloadCodec<T> codec) {
+        JsonReader reader = new JsonReader(response);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"value".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            switch (reader.peek()) {
+                case NULL:
+                    return null;
+                case STRING:
+                    int start = reader.skipStringValue();
+                    int end = reader.position() - 1;
+                    return start == end ? null : new PayloadDecoder<>(codec).decode(response, start, end);
+                default:
+                    // Not a string: the payload is the value itself
+                    return codec.decode(reader);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,169 @@
+package com.volandoo.fluxiondb.protocol;
+
+import com.volandoo.fluxiondb.codec.PayloadCodec;
+import com.volandoo.fluxiondb.json.JsonReader;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+import com.volandoo.fluxiondb.model.responses.TypedRecordResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes "qry" and "qdoc" responses straight into {@link RecordResponse} objects.
+ * <p>
+ * The response is walked once with a {@link JsonReader}: only {@code records} and the
+ * {@code ts}/{@code data} fields of each record are read, everything else is skipped, and no
+ * intermediate maps or boxed numbers are created.
+ */
+public final class RecordDecoder {
+
+    // Smallest possible record: {"ts":0,"data":""}
+    private static final int MIN_RECORD_CHARS = 19;
+    // Typical record size used to size result collections before decoding
+    private static final int ESTIMATED_RECORD_CHARS = 64;
+    private static final int MAX_PRESIZE = 1 << 16;
+
+    private RecordDecoder() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Decodes a "qry" response: {@code {"id":..,"records":{"doc":{"ts":..,"data":".."},..}}}.
+     */
+    public static Map<String, RecordResponse> decodeLatestRecords(String response) {
+        JsonReader reader = new JsonReader(response);
+        int expected = Math.min(response.length() / ESTIMATED_RECORD_CHARS, MAX_PRESIZE);
+        Map<String, RecordResponse> result = new HashMap<>(Math.max(16, (int) (expected / 0.75f) + 1));
+
+        if (!moveToRecords(reader)) {
+            throw new IllegalArgumentException("Expected object for key: records");
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String doc = reader.nextName();
+            result.put(doc, readRecord(reader));
+        }
+        reader.endObject();
+        return result;
+    }
+
+    /**
+     * Decodes a "qdoc" response: {@code {"id":..,"records":[{"ts":..,"data":".."},..]}}.
+     *
+     * @param limit the requested record limit, or null if unbounded; used to size the result list
+     */
+    public static List<RecordResponse> decodeDocumentRecords(String response, Integer limit) {
+        JsonReader reader = new JsonReader(response);
+        List<RecordResponse> result = new ArrayList<>(expectedRecords(response, limit));
+
+        if (!moveToRecords(reader)) {
+            throw new IllegalArgumentException("Expected array for key: records");
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            result.add(readRecord(reader));
+        }
+        reader.endArray();
+        return result;
+    }
+
+    /**
+     * Decodes a "qdoc" response like {@link #decodeDocumentRecords(String, Integer)}, reading each
+     * record's data with {@code codec} straight from the response.
+     */
+    public static <T> List<TypedRecordResponse<T>> decodeDocumentRecords(String response, Integer limit,
+                                                                       PayloadCodec<T> codec) {
+        JsonReader reader = new JsonReader(response);
+        PayloadDecoder<T> payloads = new PayloadDecoder<>(codec);
+        List<TypedRecordResponse<T>> result = new ArrayList<>(expectedRecords(response, limit));
+
+        if (!moveToRecords(reader)) {
+            throw new IllegalArgumentException("Expected array for key: records");
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            result.add(readRecord(reader, response, payloads));
+        }
+        reader.endArray();
+        return result;
+    }
+
+    /**
+     * Estimates the record count of a "qdoc" response, to size the result list.
+     */
+    private static int expectedRecords(String response, Integer limit) {
+        int expected = response.length() / ESTIMATED_RECORD_CHARS;
+        if (limit != null && limit > 0) {
+            expected = Math.min(limit, response.length() / MIN_RECORD_CHARS);
+        }
+        return Math.max(10, Math.min(expected, MAX_PRESIZE));
+    }
+
+    /**
+     * Positions the reader at the value of the top-level "records" key.
+     */
+    private static boolean moveToRecords(JsonReader reader) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("records".equals(reader.nextName())) {
+                return true;
+            }
+            reader.skipValue();
+        }
+        return false;
+    }
+
+    private static RecordResponse readRecord(JsonReader reader) {
+        long ts = 0;
+        boolean hasTs = false;
+        String data = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("ts".equals(name)) {
+                ts = reader.nextLong();
+                hasTs = true;
+            } else if ("data".equals(name) && reader.peek() == JsonReader.Token.STRING) {
+                data = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!hasTs) {
+            throw new IllegalArgumentException("Expected number for key: ts");
+        }
+        return new RecordResponse(ts, data);
+    }
+
+    private static <T> TypedRecordResponse<T> readRecord(JsonReader reader, String response,
+                                                         PayloadDecoder<T> payloads) {
+        long ts = 0;
+        boolean hasTs = false;
+        T data = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("ts".equals(name)) {
+                ts = reader.nextLong();
+                hasTs = true;
+            } else if ("data".equals(name) && reader.peek() == JsonReader.Token.STRING) {
+                int start = reader.skipStringValue();
+                data = payloads.decode(response, start, reader.position() - 1);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!hasTs) {
+            throw new IllegalArgumentException("Expected number for key: ts");
+        }
+        return new TypedRecordResponse<>(ts, data);
+    }
+}
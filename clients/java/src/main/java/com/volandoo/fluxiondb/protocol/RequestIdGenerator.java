@@ -1,39 +1,70 @@
 package com.volandoo.fluxiondb.protocol;
 
-import java.security.SecureRandom;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Generates unique request IDs for WebSocket messages.
+ * Generates request IDs for WebSocket messages.
+ * <p>
+ * Each connection owns its own generator, so IDs are small, strictly increasing numbers that only
+ * need to be unique among the requests in flight on that connection. The server treats the ID as an
+ * opaque string and echoes it back, so it is written into the envelope as decimal digits.
  */
 public final class RequestIdGenerator {
 
-    private static final AtomicLong counter = new AtomicLong(0);
-    private static final SecureRandom random = new SecureRandom();
-    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final RequestIdGenerator SHARED = new RequestIdGenerator();
 
-    private RequestIdGenerator() {
-        // Utility class, prevent instantiation
+    private final AtomicLong counter = new AtomicLong(0);
+
+    public RequestIdGenerator() {
     }
 
     /**
-     * Generates a unique request ID combining timestamp, counter, and random characters.
+     * Returns the next ID for this connection. IDs start at 1 and are never negative.
+     *
+     * @return the next request ID
+     */
+    public long next() {
+        return counter.incrementAndGet();
+    }
+
+    /**
+     * Generates a request ID from a process-wide counter.
      *
      * @return a unique request ID string
+     * @deprecated connections use their own {@link #next()} counter; kept for source compatibility
      */
+    @Deprecated
     public static String generate() {
-        long timestamp = System.currentTimeMillis();
-        long count = counter.incrementAndGet();
-        String randomPart = generateRandomString(8);
+        return Long.toString(SHARED.next());
+    }
 
-        return timestamp + "-" + count + "-" + randomPart;
+    /**
+     * Parses an ID echoed back by the server without allocating.
+     *
+     * @param id the ID text
+     * @return the numeric ID, or -1 if the text is not an ID issued by a generator
+     */
+    public static long parse(CharSequence id) {
+        return parse(id, 0, id != null ? id.length() : 0);
     }
 
-    private static String generateRandomString(int length) {
-        StringBuilder sb = new StringBuilder(length);
-        for (int i = 0; i < length; i++) {
-            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    /**
+     * Parses an ID from a region of a character sequence without allocating.
+     *
+     * @return the numeric ID, or -1 if the region is not an ID issued by a generator
+     */
+    public static long parse(CharSequence text, int start, int end) {
+        if (text == null || start >= end || end - start > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
         }
-        return sb.toString();
+        return value;
     }
 }
@@ -0,0 +1,75 @@
+package com.volandoo.fluxiondb.protocol;
+
+import com.volandoo.fluxiondb.json.JsonReader;
+
+/**
+ * Top-level routing fields of a server message: {@code type}, {@code id} and {@code error}.
+ * <p>
+ * Scanning reads only the top-level keys and skips every other value with a character scan, so a
+ * multi-megabyte response is routed without building its object tree. The payload is decoded once,
+ * later, by the operation that issued the request.
+ */
+public final class ResponseEnvelope {
+
+    private final String type;
+    private final long id;
+    private final String error;
+
+    private ResponseEnvelope(String type, long id, String error) {
+        this.type = type;
+        this.id = id;
+        this.error = error;
+    }
+
+    /**
+     * Scans the top-level fields of a server message.
+     *
+     * @param message the complete message text
+     * @return the routing fields
+     * @throws IllegalArgumentException if the message is not a JSON object
+     */
+    public static ResponseEnvelope scan(CharSequence message) {
+        JsonReader reader = new JsonReader(message);
+        String type = null;
+        long id = -1;
+        String error = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("id".equals(name) && reader.peek() == JsonReader.Token.STRING) {
+                int start = reader.skipStringValue();
+                id = RequestIdGenerator.parse(message, start, reader.position() - 1);
+            } else if ("type".equals(name) && reader.peek() == JsonReader.Token.STRING) {
+                type = reader.nextString();
+            } else if ("error".equals(name) && reader.peek() == JsonReader.Token.STRING) {
+                error = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+
+        return new ResponseEnvelope(type, id, error);
+    }
+
+    /**
+     * Returns the message type, or null for responses (only server-initiated messages carry one).
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the numeric request ID, or -1 if the message has no ID issued by this client.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the server error message, or null if the request succeeded.
+     */
+    public String getError() {
+        return error;
+    }
+}
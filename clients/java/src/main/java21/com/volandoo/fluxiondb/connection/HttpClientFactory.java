@@ -0,0 +1,30 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the HttpClient that carries a manager's WebSocket connections.
+ * <p>
+ * Java 21 version: listener callbacks and response handling run on virtual threads instead of
+ * the client's default cached pool of platform threads.
+ */
+final class HttpClientFactory {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    HttpClient newHttpClient() {
+        return HttpClient.newBuilder()
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Stops the virtual thread executor. Callbacks already running finish on their own; waiting for
+     * them with close() would hang when shutdown is called from one.
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+}
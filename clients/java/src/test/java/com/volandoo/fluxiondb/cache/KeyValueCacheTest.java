@@ -0,0 +1,72 @@
+package com.volandoo.fluxiondb.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class KeyValueCacheTest {
+
+    // Each two-character key with a one-character value costs 102 bytes, so three fit
+    private final KeyValueCache cache = new KeyValueCache(new KeyValueCachePolicy(60_000, 310));
+
+    @Test
+    void evictionSparesKeysReadSinceTheyWereStored() {
+        cache.put("c", "k1", "a");
+        cache.put("c", "k2", "b");
+        cache.put("c", "k3", "c");
+        assertEquals("a", cache.get("c", "k1"));
+
+        cache.put("c", "k4", "d");
+
+        assertEquals("a", cache.get("c", "k1"));
+        assertNull(cache.get("c", "k2"));
+        assertEquals("c", cache.get("c", "k3"));
+        assertEquals("d", cache.get("c", "k4"));
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    void collectionsHaveSeparateBudgets() {
+        cache.put("a", "k1", "a");
+        cache.put("a", "k2", "b");
+        cache.put("b", "k1", "c");
+        cache.put("b", "k2", "d");
+
+        assertEquals(4, cache.stats().getEntryCount());
+        assertEquals(0, cache.stats().getEvictions());
+    }
+
+    @Test
+    void replacedValuesAreCountedOnce() {
+        for (int i = 0; i < 1000; i++) {
+            cache.put("c", "k1", Integer.toString(i % 10));
+        }
+
+        assertEquals("9", cache.get("c", "k1"));
+        assertEquals(1, cache.stats().getEntryCount());
+        assertEquals(102, cache.stats().getSizeBytes());
+        assertEquals(0, cache.stats().getEvictions());
+    }
+
+    @Test
+    void fillFromALoadThatRacedAWriteIsDropped() {
+        long generation = cache.generation("c");
+        cache.put("c", "k1", "new");
+
+        cache.putIfCurrent("c", "k1", "old", generation);
+
+        assertEquals("new", cache.get("c", "k1"));
+    }
+
+    @Test
+    void invalidatedKeysMissUntilLoadedAgain() {
+        cache.put("c", "k1", "a");
+        cache.invalidate("c", "k1");
+        assertNull(cache.get("c", "k1"));
+
+        cache.putIfCurrent("c", "k1", "b", cache.generation("c"));
+        assertEquals("b", cache.get("c", "k1"));
+        assertEquals(102, cache.stats().getSizeBytes());
+    }
+}
@@ -0,0 +1,64 @@
+package com.volandoo.fluxiondb.cache;
+
+import com.volandoo.fluxiondb.model.requests.FetchLatestRecordsParams;
+import com.volandoo.fluxiondb.model.requests.InsertMessageRequest;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LatestRecordsCacheTest {
+
+    private final LatestRecordsCache cache = new LatestRecordsCache(new LatestRecordsCachePolicy(60_000, 16));
+
+    @Test
+    void laterPollIsAnsweredFromSnapshot() {
+        store(100, new RecordResponse(90, "a"));
+
+        assertEquals(new RecordResponse(90, "a"), cache.get(query(150)).get("d1"));
+    }
+
+    @Test
+    void earlierPollIsAnsweredOnlyWhenNoRecordIsNewer() {
+        store(100, new RecordResponse(90, "a"));
+
+        assertEquals(new RecordResponse(90, "a"), cache.get(query(95)).get("d1"));
+        assertNull(cache.get(query(80)));
+    }
+
+    @Test
+    void insertAfterQueryTsIsNotReturnedForEarlierPolls() {
+        store(100, new RecordResponse(90, "a"));
+        cache.onInserted(Collections.singletonList(new InsertMessageRequest(150, "d1", "b", "c")));
+
+        // The server would return the record at 90 for these
+        assertNull(cache.get(query(100)));
+        assertNull(cache.get(query(120)));
+        assertEquals(new RecordResponse(150, "b"), cache.get(query(150)).get("d1"));
+        assertEquals(new RecordResponse(150, "b"), cache.get(query(200)).get("d1"));
+    }
+
+    @Test
+    void insertBeforeQueryTsKeepsAnsweringLaterPolls() {
+        store(100, new RecordResponse(90, "a"));
+        cache.onInserted(Collections.singletonList(new InsertMessageRequest(95, "d1", "b", "c")));
+
+        assertEquals(new RecordResponse(95, "b"), cache.get(query(100)).get("d1"));
+        assertNull(cache.get(query(92)));
+    }
+
+    private void store(long ts, RecordResponse record) {
+        FetchLatestRecordsParams params = query(ts);
+        long generation = cache.generation(params.getCol());
+        Map<String, RecordResponse> records = Collections.singletonMap("d1", record);
+        cache.putIfCurrent(params, records, generation);
+    }
+
+    private static FetchLatestRecordsParams query(long ts) {
+        return FetchLatestRecordsParams.builder().col("c").ts(ts).build();
+    }
+}
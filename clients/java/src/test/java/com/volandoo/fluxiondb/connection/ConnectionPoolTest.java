@@ -0,0 +1,118 @@
+package com.volandoo.fluxiondb.connection;
+
+import com.volandoo.fluxiondb.exceptions.ConnectionException;
+import com.volandoo.fluxiondb.protocol.MessageTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+
+    private final ScriptedTransport[] sockets = {
+            new ScriptedTransport(1), new ScriptedTransport(1), new ScriptedTransport(1), new ScriptedTransport(1)
+    };
+    private final ConnectionPool pool = new ConnectionPool(sockets);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void writesForOneDocumentAlwaysUseTheSameSocket() {
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            int partition = pool.partitionFor("metrics", "doc-" + i);
+            assertEquals(partition, pool.partitionFor("metrics", "doc-" + i));
+            assertTrue(partition >= 0 && partition < sockets.length);
+            used.add(partition);
+        }
+        assertEquals(sockets.length, used.size());
+    }
+
+    @Test
+    void routedWriteReachesOnlyItsSocket() {
+        int partition = pool.partitionFor("metrics", "doc-1");
+
+        pool.send(partition, MessageTypes.INSERT, "[]");
+
+        for (int i = 0; i < sockets.length; i++) {
+            assertEquals(i == partition ? 1 : 0, sockets[i].sent.size());
+        }
+    }
+
+    @Test
+    void readsGoToTheLeastLoadedConnectedSocket() {
+        sockets[0].send(MessageTypes.QUERY_RECORDS, "{}");
+        sockets[0].send(MessageTypes.QUERY_RECORDS, "{}");
+        sockets[1].send(MessageTypes.QUERY_RECORDS, "{}");
+        sockets[2].reconnecting(0);
+        sockets[3].send(MessageTypes.QUERY_RECORDS, "{}");
+        sockets[3].send(MessageTypes.QUERY_RECORDS, "{}");
+
+        pool.send(MessageTypes.GET_VALUE, "{}");
+
+        assertEquals(2, sockets[1].sent.size());
+        assertTrue(sockets[2].sent.isEmpty());
+    }
+
+    @Test
+    void readsFallBackToTheFirstSocketWhenNoneIsConnected() {
+        for (ScriptedTransport socket : sockets) {
+            socket.reconnecting(0);
+        }
+
+        pool.send(MessageTypes.GET_VALUE, "{}");
+
+        assertEquals(1, sockets[0].sent.size());
+    }
+
+    @Test
+    void connectCompletesOnceOneSocketIsReadyAndTheOthersRetry() {
+        CompletableFuture<Void> failed = CompletableFuture.failedFuture(new ConnectionException("refused"));
+        sockets[0].connectResult = failed;
+        sockets[2].connectResult = failed;
+        sockets[3].connectResult = new CompletableFuture<>();
+
+        CompletableFuture<Void> connected = pool.connect();
+
+        assertTrue(connected.isDone() && !connected.isCompletedExceptionally());
+        assertEquals(1, sockets[0].connectRetries);
+        assertEquals(0, sockets[1].connectRetries);
+        assertEquals(1, sockets[2].connectRetries);
+        assertEquals(0, sockets[3].connectRetries);
+    }
+
+    @Test
+    void connectFailsOnlyWhenEverySocketFails() {
+        CompletableFuture<Void> failed = CompletableFuture.failedFuture(new ConnectionException("refused"));
+        for (ScriptedTransport socket : sockets) {
+            socket.connectResult = failed;
+        }
+
+        CompletableFuture<Void> connected = pool.connect();
+
+        assertTrue(connected.isCompletedExceptionally());
+        for (ScriptedTransport socket : sockets) {
+            assertEquals(0, socket.connectRetries);
+        }
+    }
+
+    @Test
+    void scheduledTasksRunOnTheSharedScheduler() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+
+        pool.schedule(ran::countDown, 1, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(sockets[0].tasks.isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package com.volandoo.fluxiondb.connection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedWheelTimerTest {
+
+    private static final long TICK_MS = 200;
+
+    private final ManualScheduler scheduler = new ManualScheduler();
+    private final HashedWheelTimer timer = new HashedWheelTimer(scheduler, TICK_MS, 512);
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void expiredTimeoutFiresOnNextTickAfterTwoTicksInOnePeriod() throws InterruptedException {
+        // A fixed-rate task that fell behind runs its ticks back to back, within one tick period
+        scheduler.tick();
+        AtomicInteger fired = new AtomicInteger();
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(fired::incrementAndGet, 0, TimeUnit.MILLISECONDS);
+        scheduler.tick();
+
+        Thread.sleep(2 * TICK_MS);
+        scheduler.tick();
+
+        assertEquals(1, fired.get());
+        assertTrue(timeout.isExpired());
+        assertEquals(0, timer.activeCount());
+    }
+
+    @Test
+    void timeoutFiresOnceItsDeadlineHasPassed() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        timer.newTimeout(fired::incrementAndGet, 3 * TICK_MS, TimeUnit.MILLISECONDS);
+
+        scheduler.tick();
+        assertEquals(0, fired.get());
+
+        Thread.sleep(4 * TICK_MS);
+        scheduler.tick();
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(fired::incrementAndGet, TICK_MS, TimeUnit.MILLISECONDS);
+        scheduler.tick();
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(0, timer.activeCount());
+
+        Thread.sleep(3 * TICK_MS);
+        scheduler.tick();
+        assertEquals(0, fired.get());
+        assertTrue(timeout.isCancelled());
+    }
+
+    /**
+     * Keeps the timer's periodic tick instead of running it, so tests decide when ticks happen.
+     */
+    private static final class ManualScheduler extends ScheduledThreadPoolExecutor {
+
+        private Runnable tick;
+
+        ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            tick = command;
+            return schedule(() -> { }, 1, TimeUnit.DAYS);
+        }
+
+        void tick() {
+            tick.run();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.volandoo.fluxiondb.connection;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageAssemblerTest {
+
+    private final List<String> messages = new ArrayList<>();
+    private final List<long[]> oversized = new ArrayList<>();
+    private final MessageAssembler.Handler handler = new MessageAssembler.Handler() {
+        @Override
+        public void onMessage(String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void onOversizedMessage(long requestId, long length) {
+            oversized.add(new long[]{requestId, length});
+        }
+    };
+
+    @Test
+    void singleFrameMessageIsPassedThrough() {
+        MessageAssembler assembler = new MessageAssembler(1024, handler);
+        String frame = "{\"id\":\"1\",\"data\":[]}";
+
+        assembler.onFrame(frame, true);
+
+        assertSame(frame, messages.get(0));
+        assertEquals(0, assembler.retainedChars());
+    }
+
+    @Test
+    void fragmentsAreJoinedInOrder() {
+        MessageAssembler assembler = new MessageAssembler(1024, handler);
+
+        assembler.onFrame("{\"id\":\"1\",", false);
+        assembler.onFrame(CharBuffer.wrap("\"data\":"), false);
+        assembler.onFrame(new StringBuilder("[1,2]}"), true);
+        assembler.onFrame("{\"id\":\"2\"}", true);
+
+        assertEquals(List.of("{\"id\":\"1\",\"data\":[1,2]}", "{\"id\":\"2\"}"), messages);
+        assertTrue(oversized.isEmpty());
+    }
+
+    @Test
+    void oversizedMessageIsDiscardedAndReportedWithItsRequestId() {
+        MessageAssembler assembler = new MessageAssembler(32, handler);
+
+        assembler.onFrame("{\"id\":\"42\",\"data\":\"", false);
+        assembler.onFrame("x".repeat(40), false);
+        assembler.onFrame("\"}", true);
+        assembler.onFrame("{\"id\":\"43\"}", true);
+
+        assertEquals(1, oversized.size());
+        assertEquals(42, oversized.get(0)[0]);
+        assertEquals(19 + 40 + 2, oversized.get(0)[1]);
+        assertEquals(List.of("{\"id\":\"43\"}"), messages);
+    }
+
+    @Test
+    void oversizedSingleFrameIsReportedAtOnce() {
+        MessageAssembler assembler = new MessageAssembler(16, handler);
+
+        assembler.onFrame("{\"id\":\"7\",\"data\":\"too long\"}", true);
+
+        assertTrue(messages.isEmpty());
+        assertEquals(7, oversized.get(0)[0]);
+    }
+
+    @Test
+    void oversizedMessageWithoutALeadingIdIsReportedAsUnknown() {
+        MessageAssembler assembler = new MessageAssembler(16, handler);
+
+        assembler.onFrame("{\"type\":\"ready\",", false);
+        assembler.onFrame("\"padding\":\"....\"}", true);
+
+        assertEquals(-1, oversized.get(0)[0]);
+    }
+
+    @Test
+    void bufferIsKeptForNormalMessagesAndReleasedAfterAHugeOne() {
+        MessageAssembler assembler = new MessageAssembler(1 << 20, 16 * 1024, handler);
+
+        assembler.onFrame("{\"id\":\"1\",", false);
+        assembler.onFrame("\"data\":[]}", true);
+        int normal = assembler.retainedChars();
+        assertTrue(normal > 0 && normal <= 16 * 1024);
+
+        assembler.onFrame("{\"id\":\"2\",\"data\":\"", false);
+        assembler.onFrame("x".repeat(100_000), false);
+        assembler.onFrame("\"}", true);
+
+        assertEquals(0, assembler.retainedChars());
+        assertEquals(100_000 + 20, messages.get(1).length());
+    }
+}
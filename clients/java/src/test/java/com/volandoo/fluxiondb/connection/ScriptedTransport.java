@@ -0,0 +1,187 @@
+package com.volandoo.fluxiondb.connection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Transport whose responses, reconnects and scheduled tasks are driven by the test. Writes go to
+ * partition 0 unless a test routes them with {@link #route}.
+ */
+public final class ScriptedTransport implements MessageTransport, ConnectionPool.Member {
+
+    /**
+     * A request handed to the transport, completed by the test.
+     */
+    public static final class Sent {
+        public final int partition;
+        public final String type;
+        public final String data;
+        public final CompletableFuture<String> response;
+
+        Sent(int partition, String type, String data, CompletableFuture<String> response) {
+            this.partition = partition;
+            this.type = type;
+            this.data = data;
+            this.response = response;
+        }
+    }
+
+    public final List<Sent> sent = new ArrayList<>();
+    public final List<Runnable> tasks = new ArrayList<>();
+    public final List<Long> delaysMs = new ArrayList<>();
+    public CompletableFuture<Void> connectResult = CompletableFuture.completedFuture(null);
+    public int connectRetries;
+    private final List<ConnectionStateListener> listeners = new ArrayList<>();
+    private final int partitions;
+    private final ConnectionState[] states;
+    private PartitionRoute route = (col, doc) -> 0;
+    private boolean shutDown;
+
+    /**
+     * Picks a partition for a write.
+     */
+    public interface PartitionRoute {
+        int partitionFor(String col, String doc);
+    }
+
+    public ScriptedTransport(int partitions) {
+        this.partitions = partitions;
+        this.states = new ConnectionState[partitions];
+        Arrays.fill(states, ConnectionState.CONNECTED);
+    }
+
+    public void route(PartitionRoute route) {
+        this.route = route;
+    }
+
+    public List<String> payloads() {
+        return sent.stream().map(request -> request.data).collect(Collectors.toList());
+    }
+
+    public void runTasks() {
+        List<Runnable> due = new ArrayList<>(tasks);
+        tasks.clear();
+        due.forEach(Runnable::run);
+    }
+
+    public void connected(int partition) {
+        changeState(partition, ConnectionState.CONNECTED);
+    }
+
+    public void reconnecting(int partition) {
+        changeState(partition, ConnectionState.RECONNECTING);
+    }
+
+    private void changeState(int partition, ConnectionState next) {
+        ConnectionState previous = states[partition] != next ? states[partition] : ConnectionState.RECONNECTING;
+        states[partition] = next;
+        listeners.forEach(listener -> listener.onStateChanged(partition, previous, next));
+    }
+
+    @Override
+    public CompletableFuture<String> send(String type, String data) {
+        return send(0, type, data);
+    }
+
+    @Override
+    public CompletableFuture<String> send(String type, String data, long timeoutMs) {
+        return send(0, type, data);
+    }
+
+    @Override
+    public CompletableFuture<String> send(int partition, String type, String data) {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        sent.add(new Sent(partition, type, data, response));
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<String> send(int partition, String type, String data, long timeoutMs) {
+        return send(partition, type, data);
+    }
+
+    @Override
+    public void sendAll(int partition, List<QueuedRequest> requests) {
+        for (QueuedRequest request : requests) {
+            sent.add(new Sent(partition, request.getType(), request.getData(), request.response()));
+        }
+    }
+
+    @Override
+    public int partitionCount() {
+        return partitions;
+    }
+
+    @Override
+    public int partitionFor(String col, String doc) {
+        return route.partitionFor(col, doc);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        if (shutDown) {
+            throw new RejectedExecutionException("Scheduler is shut down");
+        }
+        tasks.add(task);
+        delaysMs.add(unit.toMillis(delay));
+        return null; // Nothing under test cancels a scheduled task
+    }
+
+    @Override
+    public void addConnectionStateListener(ConnectionStateListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public ConnectionState getConnectionState(int partition) {
+        return states[partition];
+    }
+
+    @Override
+    public long getRoundTripTimeNanos(int partition) {
+        return 0;
+    }
+
+    @Override
+    public CompletableFuture<Void> connect() {
+        return connectResult;
+    }
+
+    @Override
+    public void retryConnect() {
+        connectRetries++;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return states[0] == ConnectionState.CONNECTED;
+    }
+
+    /**
+     * Returns the number of requests the test has not answered yet.
+     */
+    @Override
+    public int getLoad() {
+        return (int) sent.stream().filter(request -> !request.response.isDone()).count();
+    }
+
+    @Override
+    public CompletableFuture<Void> close() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void shutdown() {
+        shutDown = true;
+    }
+
+    @Override
+    public void setConnectionName(String name) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.volandoo.fluxiondb.connection;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WebSocketManagerTest {
+
+    @Test
+    void utf8LengthMatchesTheEncoder() {
+        String[] samples = {"", "ascii only", "café", "€100", "😀 emoji", "ÿ߿ࠀ￿"};
+        for (String sample : samples) {
+            assertEquals(sample.getBytes(StandardCharsets.UTF_8).length,
+                    WebSocketManager.utf8Length(sample, 0, sample.length()), sample);
+        }
+    }
+
+    @Test
+    void utf8LengthCountsOnlyTheRegion() {
+        StringBuilder text = new StringBuilder("prefixé{\"data\":\"€\"}");
+
+        assertEquals(14, WebSocketManager.utf8Length(text, 7, text.length()));
+    }
+}
@@ -0,0 +1,373 @@
+package com.volandoo.fluxiondb.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Differential fuzzing of {@link JsonParser} against {@link ReferenceJsonParser}.
+ * <p>
+ * Each round generates a random document (nested objects and arrays, strings with every kind of
+ * escape including unicode escapes and surrogate pairs, integers up to and past the long range,
+ * decimals, exponents, booleans, null and random whitespace), checks that both parsers return equal
+ * trees with equal number types, then corrupts the text at random and checks that the parser either
+ * rejects it with an IllegalArgumentException or agrees with the reference.
+ * <p>
+ * The seeds are fixed so every build runs the same inputs. For a longer run, pass more rounds and
+ * an extra seed: {@code mvn test -Dtest=JsonParserFuzzTest -Dfuzz.rounds=200000 -Dfuzz.seed=42}.
+ */
+class JsonParserFuzzTest {
+
+    private static final long[] SEEDS = {1, 2, 3, 5, 8, 13, 21, 34};
+    private static final int ROUNDS = Integer.getInteger("fuzz.rounds", 2_500);
+
+    private static final String[] SAMPLES = {
+            "", "a", "ts", "data", "doc", "plant-7", "caf\u00e9", "\u65e5\u672c", "\ud83d\ude00", "\ud83d",
+            "\"quoted\"", "back\\slash", "line\nbreak", "tab\tbed", "\u0000\u001f", "/path/", " "
+    };
+
+    @Test
+    void agreesWithReferenceOnRandomDocuments() {
+        for (long seed : SEEDS) {
+            run(seed, ROUNDS);
+        }
+        Long extraSeed = Long.getLong("fuzz.seed");
+        if (extraSeed != null) {
+            run(extraSeed, ROUNDS);
+        }
+    }
+
+    @Test
+    void agreesWithReferenceOnRecordResponses() {
+        Generator fuzz = new Generator(42);
+        for (int records : new int[]{1, 100, 1000}) {
+            check(fuzz.recordsResponse(records, false), true, 42);
+            check(fuzz.recordsResponse(records, true), true, 42);
+        }
+    }
+
+    private static void run(long seed, int rounds) {
+        Generator fuzz = new Generator(seed);
+        for (int i = 0; i < rounds; i++) {
+            String json = fuzz.document();
+            check(json, true, seed);
+            check(fuzz.corrupt(json), false, seed);
+        }
+    }
+
+    /**
+     * Parses {@code json} with both parsers and fails unless they agree. Valid input must parse;
+     * corrupted input may be rejected, but only with an IllegalArgumentException.
+     */
+    private static void check(String json, boolean valid, long seed) {
+        Object expected;
+        try {
+            expected = parse(json, true, true);
+        } catch (IllegalArgumentException e) {
+            if (valid) {
+                mismatch(json, seed, "reference parser rejected generated input: " + e);
+            }
+            expected = e;
+        }
+
+        for (boolean deduplicateKeys : new boolean[]{true, false}) {
+            Object actual;
+            try {
+                actual = parse(json, false, deduplicateKeys);
+            } catch (IllegalArgumentException e) {
+                actual = e;
+            } catch (RuntimeException e) {
+                mismatch(json, seed, "unexpected " + e);
+                return;
+            }
+            if (expected instanceof IllegalArgumentException) {
+                if (!(actual instanceof IllegalArgumentException)) {
+                    mismatch(json, seed, "accepted input the reference rejects: " + actual);
+                }
+            } else if (actual instanceof IllegalArgumentException) {
+                // Stricter than the reference only outside JSON: unicode whitespace and digits, bad hex
+                if (valid) {
+                    mismatch(json, seed, "rejected valid input: " + actual);
+                }
+            } else if (!sameTree(expected, actual)) {
+                mismatch(json, seed, "different result\n  expected: " + expected + "\n  actual:   " + actual);
+            }
+        }
+    }
+
+    private static Object parse(String json, boolean reference, boolean deduplicateKeys) {
+        boolean array = json.trim().startsWith("[");
+        if (reference) {
+            return array ? ReferenceJsonParser.parseArray(json) : ReferenceJsonParser.parseObject(json);
+        }
+        return array ? JsonParser.parseArray(json, deduplicateKeys) : JsonParser.parseObject(json, deduplicateKeys);
+    }
+
+    /**
+     * Structural equality that also requires matching number types, which {@link Object#equals}
+     * across Long and Double would not report.
+     */
+    private static boolean sameTree(Object expected, Object actual) {
+        if (expected == null || actual == null) {
+            return expected == actual;
+        }
+        if (expected.getClass() != actual.getClass()) {
+            return false;
+        }
+        if (expected instanceof Map) {
+            Map<?, ?> e = (Map<?, ?>) expected;
+            Map<?, ?> a = (Map<?, ?>) actual;
+            if (e.size() != a.size()) {
+                return false;
+            }
+            for (Map.Entry<?, ?> entry : e.entrySet()) {
+                if (!a.containsKey(entry.getKey()) || !sameTree(entry.getValue(), a.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (expected instanceof List) {
+            List<?> e = (List<?>) expected;
+            List<?> a = (List<?>) actual;
+            if (e.size() != a.size()) {
+                return false;
+            }
+            for (int i = 0; i < e.size(); i++) {
+                if (!sameTree(e.get(i), a.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Objects.equals(expected, actual);
+    }
+
+    private static void mismatch(String json, long seed, String message) {
+        String shown = json.length() > 2000 ? json.substring(0, 2000) + "..." : json;
+        fail("seed " + seed + ": " + message + "\n  input: " + shown);
+    }
+
+    /**
+     * Seeded generator of random documents and corruptions of them.
+     */
+    private static final class Generator {
+
+        private final Random random;
+
+        Generator(long seed) {
+            this.random = new Random(seed);
+        }
+
+        /**
+         * Builds a "qry" or "qdoc" response whose record data is a generated document, escaped as the
+         * server sends it.
+         */
+        private String recordsResponse(int records, boolean latest) {
+            StringBuilder sb = new StringBuilder("{\"id\":\"1\",\"records\":").append(latest ? '{' : '[');
+            for (int i = 0; i < records; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                if (latest) {
+                    JsonWriter.appendString(sb, "device-" + i);
+                    sb.append(':');
+                }
+                sb.append("{\"ts\":").append(1_700_000_000_000L + i).append(",\"data\":");
+                JsonWriter.appendString(sb, document());
+                sb.append('}');
+            }
+            return sb.append(latest ? '}' : ']').append('}').toString();
+        }
+
+        private String document() {
+            StringBuilder sb = new StringBuilder();
+            whitespace(sb);
+            if (random.nextInt(4) == 0) {
+                array(sb, 0);
+            } else {
+                object(sb, 0);
+            }
+            whitespace(sb);
+            return sb.toString();
+        }
+
+        private void value(StringBuilder sb, int depth) {
+            int kind = random.nextInt(depth > 4 ? 6 : 8);
+            switch (kind) {
+                case 0:
+                case 1:
+                    string(sb);
+                    break;
+                case 2:
+                    integer(sb);
+                    break;
+                case 3:
+                    decimal(sb);
+                    break;
+                case 4:
+                    sb.append(random.nextBoolean() ? "true" : "false");
+                    break;
+                case 5:
+                    sb.append("null");
+                    break;
+                case 6:
+                    object(sb, depth + 1);
+                    break;
+                default:
+                    array(sb, depth + 1);
+            }
+        }
+
+        private void object(StringBuilder sb, int depth) {
+            int entries = random.nextInt(random.nextInt(10) == 0 ? 40 : 6);
+            sb.append('{');
+            for (int i = 0; i < entries; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                whitespace(sb);
+                // Mostly recurring keys, which the deduplication table serves, sometimes duplicated
+                if (random.nextInt(3) == 0) {
+                    string(sb);
+                } else {
+                    JsonWriter.appendString(sb, SAMPLES[random.nextInt(SAMPLES.length)]);
+                }
+                whitespace(sb);
+                sb.append(':');
+                whitespace(sb);
+                value(sb, depth);
+                whitespace(sb);
+            }
+            if (entries == 0) {
+                whitespace(sb);
+            }
+            sb.append('}');
+        }
+
+        private void array(StringBuilder sb, int depth) {
+            int elements = random.nextInt(random.nextInt(10) == 0 ? 40 : 6);
+            sb.append('[');
+            for (int i = 0; i < elements; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                whitespace(sb);
+                value(sb, depth);
+                whitespace(sb);
+            }
+            if (elements == 0) {
+                whitespace(sb);
+            }
+            sb.append(']');
+        }
+
+        private void string(StringBuilder sb) {
+            sb.append('"');
+            int parts = random.nextInt(5);
+            for (int i = 0; i < parts; i++) {
+                switch (random.nextInt(6)) {
+                    case 0:
+                        // Escaped exactly as the client writes it
+                        JsonWriter.appendEscaped(sb, SAMPLES[random.nextInt(SAMPLES.length)]);
+                        break;
+                    case 1:
+                        sb.append("\\/\\b\\f\\n\\r\\t\\\"\\\\".substring(random.nextInt(8) * 2));
+                        break;
+                    case 2:
+                        // Unicode escapes, upper or lower case hex, including both halves of a pair
+                        String unit = random.nextBoolean() ? "D83D" : Integer.toHexString(random.nextInt(0x10000));
+                        String escape = String.format("\\u%4s", unit).replace(' ', '0');
+                        sb.append(random.nextBoolean() ? escape.toUpperCase().replace("\\U", "\\u") : escape);
+                        if (unit.equals("D83D") && random.nextBoolean()) {
+                            sb.append("\\uDE00");
+                        }
+                        break;
+                    default:
+                        int length = random.nextInt(random.nextInt(20) == 0 ? 400 : 12);
+                        for (int j = 0; j < length; j++) {
+                            sb.append((char) ('a' + random.nextInt(26)));
+                        }
+                }
+            }
+            sb.append('"');
+        }
+
+        private void integer(StringBuilder sb) {
+            if (random.nextBoolean()) {
+                sb.append('-');
+            }
+            switch (random.nextInt(4)) {
+                case 0:
+                    sb.append(random.nextInt(10));
+                    break;
+                case 1:
+                    sb.append(Math.abs(random.nextLong() >>> random.nextInt(64)));
+                    break;
+                case 2:
+                    // Around the long range: 18 to 21 digits
+                    sb.append(random.nextBoolean() ? "9223372036854775807" : "9223372036854775808");
+                    break;
+                default:
+                    sb.append(1 + random.nextInt(9));
+                    int digits = 17 + random.nextInt(4);
+                    for (int i = 0; i < digits; i++) {
+                        sb.append(random.nextInt(10));
+                    }
+            }
+        }
+
+        private void decimal(StringBuilder sb) {
+            integer(sb);
+            boolean fraction = random.nextBoolean();
+            if (fraction) {
+                sb.append('.').append(random.nextInt(100000));
+            }
+            if (!fraction || random.nextBoolean()) {
+                sb.append(random.nextBoolean() ? 'e' : 'E');
+                int sign = random.nextInt(3);
+                if (sign > 0) {
+                    sb.append(sign == 1 ? '+' : '-');
+                }
+                sb.append(random.nextInt(400));
+            }
+        }
+
+        private void whitespace(StringBuilder sb) {
+            while (random.nextInt(4) == 0) {
+                sb.append(" \t\n\r".charAt(random.nextInt(4)));
+            }
+        }
+
+        /**
+         * Deletes, duplicates, replaces or truncates at a random position.
+         */
+        private String corrupt(String json) {
+            if (json.isEmpty()) {
+                return json;
+            }
+            int at = random.nextInt(json.length());
+            String junk = String.valueOf("{}[]\",:\\-0.eE tfnu9".charAt(random.nextInt(19)));
+            String corrupted;
+            switch (random.nextInt(4)) {
+                case 0:
+                    corrupted = json.substring(0, at) + json.substring(at + 1);
+                    break;
+                case 1:
+                    corrupted = json.substring(0, at) + json.charAt(at) + json.substring(at);
+                    break;
+                case 2:
+                    corrupted = json.substring(0, at) + junk + json.substring(at + 1);
+                    break;
+                default:
+                    corrupted = json.substring(0, at);
+            }
+            return corrupted;
+        }
+    }
+}
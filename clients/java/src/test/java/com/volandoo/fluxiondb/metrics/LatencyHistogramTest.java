@@ -0,0 +1,60 @@
+package com.volandoo.fluxiondb.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void smallValuesHaveABucketEach() {
+        for (int value = 0; value < 8; value++) {
+            assertEquals(value, LatencyHistogram.bucketOf(value));
+            assertEquals(value, LatencyHistogram.highestValueIn(value));
+        }
+        assertEquals(8, LatencyHistogram.bucketOf(8));
+    }
+
+    @Test
+    void bucketsAreContiguousAndCoverTheLongRange() {
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT - 1; bucket++) {
+            long highest = LatencyHistogram.highestValueIn(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+            assertEquals(bucket + 1, LatencyHistogram.bucketOf(highest + 1));
+        }
+        int last = LatencyHistogram.BUCKET_COUNT - 1;
+        assertEquals(last, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueIn(last));
+    }
+
+    @Test
+    void bucketBoundsAreWithinAnEighthOfTheValue() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            long highest = LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(value));
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / 8, () -> value + " -> " + highest);
+        }
+    }
+
+    @Test
+    void percentilesComeFromTheRecordedBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+        histogram.record(-5);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1001, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(0, snapshot.getPercentile(0));
+        long p50 = snapshot.getPercentile(50);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 9 / 8, () -> "p50 " + p50);
+        assertEquals(1_000_000, snapshot.getPercentile(100));
+    }
+}
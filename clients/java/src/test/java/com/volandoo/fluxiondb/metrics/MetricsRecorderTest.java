@@ -0,0 +1,53 @@
+package com.volandoo.fluxiondb.metrics;
+
+import com.volandoo.fluxiondb.protocol.MessageTypes;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MetricsRecorderTest {
+
+    private final MetricsRecorder recorder = new MetricsRecorder();
+
+    @Test
+    void readFailedAndSentAgainLeavesNothingInflight() {
+        recorder.onRequestSent(MessageTypes.GET_VALUE, 40, 100);
+        recorder.onRequestSent(MessageTypes.GET_VALUE, 40, 100);
+        // Connection lost: both fail, one is sent again and answered
+        recorder.onRequestFailed(MessageTypes.GET_VALUE, 1_000, false);
+        recorder.onRequestFailed(MessageTypes.GET_VALUE, 1_000, false);
+        recorder.onRequestSent(MessageTypes.GET_VALUE, 40, 100);
+        assertEquals(1, recorder.snapshot().getInflight());
+
+        recorder.onResponseReceived(MessageTypes.GET_VALUE, 2_000);
+
+        MetricsSnapshot snapshot = recorder.snapshot();
+        assertEquals(0, snapshot.getInflight());
+        assertEquals(3, snapshot.getRequestsSent());
+        assertEquals(2, snapshot.getFailures());
+        assertEquals(1, snapshot.getLatency(MessageTypes.GET_VALUE).getCount());
+    }
+
+    @Test
+    void sizesAreSummed() {
+        recorder.onRequestSent(MessageTypes.INSERT, 100, 10);
+        recorder.onRequestSent("custom", 50, 10);
+        recorder.onMessageReceived(300, 20);
+
+        MetricsSnapshot snapshot = recorder.snapshot();
+        assertEquals(150, snapshot.getBytesSent());
+        assertEquals(300, snapshot.getBytesReceived());
+        assertEquals(2, snapshot.getEncodeTime().getCount());
+    }
+
+    @Test
+    void unknownTypesShareOneHistogram() {
+        recorder.onResponseReceived("a", 1);
+        recorder.onResponseReceived(new String(MessageTypes.QUERY_RECORDS.toCharArray()), 1);
+        recorder.onResponseReceived("b", 1);
+
+        MetricsSnapshot snapshot = recorder.snapshot();
+        assertEquals(2, snapshot.getLatency("other").getCount());
+        assertEquals(1, snapshot.getLatency(MessageTypes.QUERY_RECORDS).getCount());
+    }
+}
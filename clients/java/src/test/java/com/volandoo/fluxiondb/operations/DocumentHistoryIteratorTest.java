@@ -0,0 +1,48 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.connection.ScriptedTransport;
+import com.volandoo.fluxiondb.model.requests.FetchRecordsParams;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DocumentHistoryIteratorTest {
+
+    private final List<Long> pageStarts = new ArrayList<>();
+
+    // Serves ts 1..5 as unmodifiable pages, like a page shared with concurrent identical fetches
+    private final TimeSeriesOperations operations = new TimeSeriesOperations(new ScriptedTransport(1)) {
+        @Override
+        public CompletableFuture<List<RecordResponse>> fetchDocument(FetchRecordsParams params) {
+            pageStarts.add(params.getFrom());
+            return CompletableFuture.completedFuture(LongStream.rangeClosed(1, 5)
+                    .filter(ts -> ts >= params.getFrom() && ts <= params.getTo())
+                    .limit(params.getLimit())
+                    .mapToObj(ts -> new RecordResponse(ts, "{}"))
+                    .collect(Collectors.toUnmodifiableList()));
+        }
+    };
+
+    @Test
+    void pagesThroughTheRangeWithoutModifyingPages() {
+        Iterator<RecordResponse> records = operations.fetchDocumentIterator(params());
+
+        List<Long> timestamps = new ArrayList<>();
+        records.forEachRemaining(record -> timestamps.add(record.getTs()));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), timestamps);
+        assertEquals(List.of(0L, 3L, 5L), pageStarts);
+    }
+
+    static FetchRecordsParams params() {
+        return FetchRecordsParams.builder().col("c").doc("d").from(0).to(100).limit(2).build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.connection.ScriptedTransport;
+import com.volandoo.fluxiondb.model.requests.FetchRecordsParams;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentHistoryPublisherTest {
+
+    // Serves ts 1..5 as unmodifiable pages, like a page shared with concurrent identical fetches
+    private final TimeSeriesOperations operations = new TimeSeriesOperations(new ScriptedTransport(1)) {
+        @Override
+        public CompletableFuture<List<RecordResponse>> fetchDocument(FetchRecordsParams params) {
+            return CompletableFuture.completedFuture(LongStream.rangeClosed(1, 5)
+                    .filter(ts -> ts >= params.getFrom() && ts <= params.getTo())
+                    .limit(params.getLimit())
+                    .mapToObj(ts -> new RecordResponse(ts, "{}"))
+                    .collect(Collectors.toUnmodifiableList()));
+        }
+    };
+
+    private final List<Long> timestamps = new ArrayList<>();
+    private Flow.Subscription subscription;
+    private Throwable error;
+    private boolean completed;
+
+    private final Flow.Subscriber<RecordResponse> subscriber = new Flow.Subscriber<>() {
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(RecordResponse record) {
+            timestamps.add(record.getTs());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    };
+
+    @Test
+    void emitsOnlyWhatIsRequestedWithoutModifyingPages() {
+        operations.fetchDocumentStream(DocumentHistoryIteratorTest.params()).subscribe(subscriber);
+
+        subscription.request(3);
+        assertEquals(List.of(1L, 2L, 3L), timestamps);
+
+        subscription.request(Long.MAX_VALUE);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), timestamps);
+        assertNull(error);
+        assertTrue(completed);
+    }
+}
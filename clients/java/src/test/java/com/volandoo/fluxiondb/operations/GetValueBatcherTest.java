@@ -0,0 +1,130 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.connection.ScriptedTransport;
+import com.volandoo.fluxiondb.exceptions.ConnectionException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GetValueBatcherTest {
+
+    private final ScriptedTransport transport = new ScriptedTransport(1);
+    private final List<String> singleKeys = new ArrayList<>();
+    private final List<String> patterns = new ArrayList<>();
+    private final Map<String, CompletableFuture<String>> singleResponses = new HashMap<>();
+    private final List<CompletableFuture<Map<String, String>>> patternResponses = new ArrayList<>();
+    private final GetValueBatcher batcher = new GetValueBatcher(transport, new GetValueBatchPolicy(5, 3),
+            (col, key) -> {
+                singleKeys.add(key);
+                return singleResponses.computeIfAbsent(key, k -> new CompletableFuture<>());
+            },
+            (col, pattern) -> {
+                patterns.add(pattern);
+                CompletableFuture<Map<String, String>> response = new CompletableFuture<>();
+                patternResponses.add(response);
+                return response;
+            });
+
+    @Test
+    void batchedValuesAreSplitBackToEachCaller() {
+        CompletableFuture<String> a = batcher.get("c", "a");
+        CompletableFuture<String> b = batcher.get("c", "b");
+        CompletableFuture<String> again = batcher.get("c", "a");
+        transport.runTasks();
+
+        assertEquals(Collections.singletonList("/^(?:a|b)$/"), patterns);
+        Map<String, String> values = new HashMap<>();
+        values.put("a", "1");
+        patternResponses.get(0).complete(values);
+        assertEquals("1", a.join());
+        assertEquals("1", again.join());
+        assertEquals("", b.join());
+        assertTrue(singleKeys.isEmpty());
+    }
+
+    @Test
+    void metacharactersInKeysMatchOnlyThemselves() {
+        batcher.get("c", "a.b");
+        batcher.get("c", "x|y");
+        transport.runTasks();
+
+        assertEquals("/^(?:a\\.b|x\\|y)$/", patterns.get(0));
+        String regex = patterns.get(0).substring(1, patterns.get(0).length() - 1);
+        assertTrue(Pattern.matches(regex, "a.b"));
+        assertTrue(Pattern.matches(regex, "x|y"));
+        assertFalse(Pattern.matches(regex, "axb"));
+        assertFalse(Pattern.matches(regex, "x"));
+        assertEquals("a\\/b\\\\c", GetValueBatcher.escape("a/b\\c"));
+    }
+
+    @Test
+    void keysTooLongForThePatternAreFetchedAlone() {
+        String longKey = repeat('k', GetValueBatcher.MAX_PATTERN_CHARS);
+        CompletableFuture<String> value = batcher.get("c", longKey);
+
+        assertEquals(Collections.singletonList(longKey), singleKeys);
+        singleResponses.get(longKey).complete("v");
+        assertEquals("v", value.join());
+        assertTrue(transport.tasks.isEmpty());
+    }
+
+    @Test
+    void keyThatWouldOverflowThePatternStartsANewBatch() {
+        String half = repeat('h', GetValueBatcher.MAX_PATTERN_CHARS / 2);
+        batcher.get("c", "a");
+        batcher.get("c", half);
+        batcher.get("c", half + "x");
+
+        assertEquals(1, patterns.size());
+        assertEquals("/^(?:a|" + half + ")$/", patterns.get(0));
+        transport.runTasks();
+        assertEquals(Collections.singletonList(half + "x"), singleKeys);
+    }
+
+    @Test
+    void failedBatchFallsBackToOneRequestPerKey() {
+        CompletableFuture<String> a = batcher.get("c", "a");
+        CompletableFuture<String> b = batcher.get("c", "b");
+        transport.runTasks();
+
+        patternResponses.get(0).completeExceptionally(new IllegalStateException("bad pattern"));
+        assertEquals(List.of("a", "b"), singleKeys);
+        singleResponses.get("a").complete("1");
+        singleResponses.get("b").complete("2");
+        assertEquals("1", a.join());
+        assertEquals("2", b.join());
+    }
+
+    @Test
+    void getAfterShutdownFailsItsFutureAndLeavesNoBatchBehind() {
+        transport.shutdown();
+
+        CompletableFuture<String> first = batcher.get("c", "a");
+        CompletableFuture<String> second = batcher.get("c", "a");
+
+        ExecutionException error = assertThrows(ExecutionException.class, first::get);
+        assertInstanceOf(ConnectionException.class, error.getCause());
+        assertTrue(second.isCompletedExceptionally());
+        assertTrue(patterns.isEmpty() && singleKeys.isEmpty());
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
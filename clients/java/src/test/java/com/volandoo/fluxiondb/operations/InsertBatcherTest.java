@@ -0,0 +1,73 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.connection.ScriptedTransport;
+import com.volandoo.fluxiondb.exceptions.ConnectionException;
+import com.volandoo.fluxiondb.model.requests.InsertMessageRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InsertBatcherTest {
+
+    private final ScriptedTransport transport = new ScriptedTransport(1);
+    private final InsertBatcher batcher = new InsertBatcher(new TimeSeriesOperations(transport), transport,
+            new InsertBatchPolicy(5, 3, 1 << 20));
+
+    @Test
+    void recordsWithinLingerAreSentTogether() {
+        CompletableFuture<Void> first = batcher.add(record(1));
+        CompletableFuture<Void> second = batcher.add(record(2));
+
+        assertTrue(transport.sent.isEmpty());
+        transport.runTasks();
+        assertEquals(1, transport.sent.size());
+        transport.sent.get(0).response.complete("{}");
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForLinger() {
+        batcher.add(record(1));
+        batcher.add(record(2));
+        batcher.add(record(3));
+
+        assertEquals(1, transport.sent.size());
+        transport.runTasks();
+        assertEquals(1, transport.sent.size());
+    }
+
+    @Test
+    void addAfterShutdownFailsItsFutureAndKeepsNothing() {
+        transport.shutdown();
+
+        CompletableFuture<Void> future = batcher.add(record(1));
+
+        ExecutionException error = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(ConnectionException.class, error.getCause());
+        batcher.flush();
+        assertTrue(transport.sent.isEmpty());
+    }
+
+    @Test
+    void openBatchStillFlushesAfterShutdown() {
+        CompletableFuture<Void> queued = batcher.add(record(1));
+        transport.shutdown();
+
+        batcher.flush();
+
+        assertEquals(1, transport.sent.size());
+        assertFalse(queued.isDone());
+    }
+
+    private static InsertMessageRequest record(long ts) {
+        return new InsertMessageRequest(ts, "d", "{}", "c");
+    }
+}
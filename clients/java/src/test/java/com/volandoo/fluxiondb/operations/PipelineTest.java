@@ -0,0 +1,84 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.cache.KeyValueCache;
+import com.volandoo.fluxiondb.cache.KeyValueCachePolicy;
+import com.volandoo.fluxiondb.cache.LatestRecordsCache;
+import com.volandoo.fluxiondb.cache.LatestRecordsCachePolicy;
+import com.volandoo.fluxiondb.connection.ScriptedTransport;
+import com.volandoo.fluxiondb.model.requests.FetchLatestRecordsParams;
+import com.volandoo.fluxiondb.model.requests.GetValueParams;
+import com.volandoo.fluxiondb.model.requests.InsertMessageRequest;
+import com.volandoo.fluxiondb.model.requests.SetValueParams;
+import com.volandoo.fluxiondb.model.responses.RecordResponse;
+import com.volandoo.fluxiondb.protocol.MessageTypes;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PipelineTest {
+
+    private final ScriptedTransport transport = new ScriptedTransport(1);
+    private final KeyValueCache keyValueCache = new KeyValueCache(new KeyValueCachePolicy(60_000, 1 << 20));
+    private final LatestRecordsCache latestCache = new LatestRecordsCache(new LatestRecordsCachePolicy(60_000, 16));
+    private final Pipeline pipeline = new Pipeline(transport, keyValueCache, latestCache, new SingleFlight());
+
+    @Test
+    void nothingIsSentBeforeFlush() {
+        pipeline.setValue(new SetValueParams("c", "k", "v"));
+        pipeline.insertSingleRecord(new InsertMessageRequest(1, "d", "{}", "c"));
+
+        assertTrue(transport.sent.isEmpty());
+        assertEquals(2, pipeline.size());
+        pipeline.flush();
+        assertEquals(List.of(MessageTypes.SET_VALUE, MessageTypes.INSERT), types());
+        assertEquals(0, pipeline.size());
+    }
+
+    @Test
+    void getValueGoesToServerBehindQueuedWrites() {
+        keyValueCache.put("c", "k", "cached");
+        pipeline.setValue(new SetValueParams("c", "other", "v"));
+        CompletableFuture<String> value = pipeline.getValue(new GetValueParams("c", "k"));
+
+        assertFalse(value.isDone());
+        pipeline.flush();
+        assertEquals(List.of(MessageTypes.SET_VALUE, MessageTypes.GET_VALUE), types());
+        transport.sent.get(0).response.complete("{}");
+        transport.sent.get(1).response.complete("{\"value\":\"fresh\"}");
+        assertEquals("fresh", value.join());
+    }
+
+    @Test
+    void fetchLatestRecordsGoesToServerBehindQueuedInserts() {
+        FetchLatestRecordsParams params = FetchLatestRecordsParams.builder().col("c").ts(100).build();
+        latestCache.putIfCurrent(params, Collections.singletonMap("d", new RecordResponse(50, "old")),
+                latestCache.generation("c"));
+        pipeline.insertSingleRecord(new InsertMessageRequest(90, "d", "new", "c"));
+        CompletableFuture<Map<String, RecordResponse>> latest = pipeline.fetchLatestRecords(params);
+
+        assertFalse(latest.isDone());
+        pipeline.flush();
+        assertEquals(List.of(MessageTypes.INSERT, MessageTypes.QUERY_RECORDS), types());
+    }
+
+    @Test
+    void writesStillUpdateTheCaches() {
+        pipeline.setValue(new SetValueParams("c", "k", "v"));
+        pipeline.flush();
+        transport.sent.get(0).response.complete("{}");
+
+        assertEquals("v", keyValueCache.get("c", "k"));
+    }
+
+    private List<String> types() {
+        return transport.sent.stream().map(request -> request.type).collect(Collectors.toList());
+    }
+}
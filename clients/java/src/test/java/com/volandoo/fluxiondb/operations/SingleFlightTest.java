@@ -0,0 +1,62 @@
+package com.volandoo.fluxiondb.operations;
+
+import com.volandoo.fluxiondb.protocol.MessageTypes;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+
+    private final SingleFlight flights = new SingleFlight();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CompletableFuture<String> response = new CompletableFuture<>();
+
+    private CompletableFuture<String> read(SingleFlight flight, String type, String col, String data) {
+        return flight.execute(type, col, data, () -> {
+            calls.incrementAndGet();
+            return response;
+        }, value -> value);
+    }
+
+    @Test
+    void identicalReadsShareOneRequest() {
+        CompletableFuture<String> first = read(flights, MessageTypes.GET_VALUE, "a", "k");
+        CompletableFuture<String> second = read(flights, MessageTypes.GET_VALUE, "a", "k");
+
+        assertEquals(1, calls.get());
+        response.complete("v");
+        assertEquals("v", first.join());
+        assertEquals("v", second.join());
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void writeDetachesOnlyItsCollectionAndCrossCollectionReads() {
+        read(flights, MessageTypes.GET_VALUE, "a", "k");
+        read(flights, MessageTypes.GET_VALUE, "b", "k");
+        read(flights, MessageTypes.QUERY_COLLECTIONS, "", "{}");
+        assertEquals(3, flights.size());
+
+        flights.forget("a");
+
+        assertEquals(1, flights.size());
+        read(flights, MessageTypes.GET_VALUE, "b", "k");
+        assertEquals(3, calls.get());
+        read(flights, MessageTypes.GET_VALUE, "a", "k");
+        read(flights, MessageTypes.QUERY_COLLECTIONS, "", "{}");
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    void deferredWritesDetachTheParentsReads() {
+        read(flights, MessageTypes.GET_VALUE, "a", "k");
+
+        flights.deferred().forget("a");
+
+        read(flights, MessageTypes.GET_VALUE, "a", "k");
+        assertEquals(2, calls.get());
+    }
+}
@@ -0,0 +1,213 @@
+package com.volandoo.fluxiondb.outbox;
+
+import com.volandoo.fluxiondb.connection.ScriptedTransport;
+import com.volandoo.fluxiondb.exceptions.ConnectionException;
+import com.volandoo.fluxiondb.exceptions.FluxionDBException;
+import com.volandoo.fluxiondb.exceptions.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InsertOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    private final ScriptedTransport transport = new ScriptedTransport(2);
+    private InsertOutbox outbox;
+
+    @AfterEach
+    void tearDown() {
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    @Test
+    void timedOutBatchIsResentAheadOfLaterBatchesOfItsPartition() throws IOException {
+        outbox = open(3);
+        CompletableFuture<String> a = outbox.send(0, "[\"a\"]");
+        outbox.send(0, "[\"b\"]");
+        outbox.send(1, "[\"c\"]");
+
+        transport.sent.get(0).response.completeExceptionally(new TimeoutException("a timed out"));
+        assertEquals(1, transport.tasks.size());
+        transport.runTasks();
+
+        assertEquals(List.of("[\"a\"]", "[\"b\"]", "[\"c\"]", "[\"a\"]", "[\"b\"]"), transport.payloads());
+        transport.sent.get(3).response.complete("ok");
+        assertEquals("ok", a.join());
+    }
+
+    @Test
+    void outcomeOfSupersededAttemptIsIgnored() throws IOException {
+        outbox = open(3);
+        outbox.send(0, "[\"a\"]");
+        CompletableFuture<String> b = outbox.send(0, "[\"b\"]");
+
+        transport.sent.get(0).response.completeExceptionally(new TimeoutException("a timed out"));
+        transport.runTasks();
+        // b's first attempt was superseded by the resend behind a
+        transport.sent.get(1).response.completeExceptionally(new TimeoutException("b timed out"));
+
+        assertTrue(transport.tasks.isEmpty());
+        assertEquals(4, transport.sent.size());
+        transport.sent.get(3).response.complete("ok");
+        assertEquals("ok", b.join());
+        assertEquals(1, outbox.getPendingCount());
+    }
+
+    @Test
+    void batchIsDroppedOnceItRunsOutOfResends() throws IOException {
+        outbox = open(1);
+        CompletableFuture<String> a = outbox.send(0, "[\"a\"]");
+
+        transport.sent.get(0).response.completeExceptionally(new TimeoutException("a timed out"));
+        transport.runTasks();
+        transport.sent.get(1).response.completeExceptionally(new TimeoutException("a timed out again"));
+
+        assertTrue(transport.tasks.isEmpty());
+        ExecutionException error = assertThrows(ExecutionException.class, a::get);
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertEquals(0, outbox.getPendingCount());
+    }
+
+    @Test
+    void resendBackoffDoubles() throws IOException {
+        outbox = open(3);
+        outbox.send(0, "[\"a\"]");
+
+        transport.sent.get(0).response.completeExceptionally(new TimeoutException("a timed out"));
+        transport.runTasks();
+        transport.sent.get(1).response.completeExceptionally(new TimeoutException("a timed out again"));
+
+        assertEquals(List.of(10L, 20L), transport.delaysMs);
+    }
+
+    @Test
+    void partitionIsReplayedInAppendOrderOnReconnect() throws IOException {
+        outbox = open(3);
+        CompletableFuture<String> a = outbox.send(0, "[\"a\"]");
+        CompletableFuture<String> b = outbox.send(0, "[\"b\"]");
+        outbox.send(1, "[\"c\"]");
+
+        transport.sent.get(1).response.completeExceptionally(new ConnectionException("lost"));
+        transport.sent.get(0).response.completeExceptionally(new ConnectionException("lost"));
+        assertEquals(3, transport.sent.size());
+        transport.connected(0);
+
+        assertEquals(List.of("[\"a\"]", "[\"b\"]"), transport.payloads().subList(3, 5));
+        transport.sent.get(3).response.complete("ok a");
+        transport.sent.get(4).response.complete("ok b");
+        assertEquals("ok a", a.join());
+        assertEquals("ok b", b.join());
+    }
+
+    @Test
+    void batchAppendedWhileReconnectingIsSentOnlyByTheReplay() throws IOException {
+        outbox = open(3);
+        outbox.send(0, "[\"a\"]");
+        transport.sent.get(0).response.completeExceptionally(new ConnectionException("lost"));
+        transport.reconnecting(0);
+
+        CompletableFuture<String> b = outbox.send(0, "[\"b\"]");
+
+        assertEquals(1, transport.sent.size());
+        transport.connected(0);
+        assertEquals(List.of("[\"a\"]", "[\"a\"]", "[\"b\"]"), transport.payloads());
+        transport.sent.get(2).response.complete("ok b");
+        assertEquals("ok b", b.join());
+    }
+
+    @Test
+    void batchAppendedBehindWaitingOnesWaitsWithThem() throws IOException {
+        outbox = open(3);
+        outbox.send(0, "[\"a\"]");
+        transport.sent.get(0).response.completeExceptionally(new ConnectionException("lost"));
+
+        outbox.send(0, "[\"b\"]");
+        outbox.send(1, "[\"c\"]");
+
+        assertEquals(List.of("[\"a\"]", "[\"c\"]"), transport.payloads());
+        transport.connected(0);
+        assertEquals(List.of("[\"a\"]", "[\"b\"]"), transport.payloads().subList(2, 4));
+    }
+
+    @Test
+    void batchInFlightOnTheNewSocketIsNotReplayed() throws IOException {
+        outbox = open(3);
+        outbox.send(0, "[\"a\"]");
+
+        transport.connected(0);
+
+        assertEquals(1, transport.sent.size());
+        assertEquals(1, outbox.getPendingCount());
+    }
+
+    @Test
+    void rejectedBatchIsDropped() throws IOException {
+        outbox = open(3);
+        CompletableFuture<String> a = outbox.send(0, "[\"a\"]");
+
+        transport.sent.get(0).response.completeExceptionally(new FluxionDBException("bad batch"));
+
+        assertTrue(a.isCompletedExceptionally());
+        assertEquals(0, outbox.getPendingCount());
+        transport.connected(0);
+        assertEquals(1, transport.sent.size());
+    }
+
+    @Test
+    void unacknowledgedBatchesSurviveReopen() throws IOException {
+        outbox = open(3);
+        outbox.send(0, "[\"a\"]");
+        outbox.send(0, "[\"b\"]");
+        outbox.send(1, "[\"c\"]");
+        transport.sent.get(0).response.complete("ok");
+        outbox.close();
+
+        ScriptedTransport restarted = new ScriptedTransport(2);
+        outbox = new InsertOutbox(policy(3), restarted);
+        assertEquals(2, outbox.getPendingCount());
+        assertTrue(restarted.sent.isEmpty());
+
+        restarted.connected(0);
+        restarted.connected(1);
+        assertEquals(List.of("[\"b\"]", "[\"c\"]"), restarted.payloads());
+        restarted.sent.forEach(request -> request.response.complete("ok"));
+        assertEquals(0, outbox.getPendingCount());
+    }
+
+    @Test
+    void fullyAcknowledgedSegmentsAreDeleted() throws IOException {
+        outbox = open(3);
+        String batch = "[\"" + "x".repeat(3000) + "\"]";
+        outbox.send(0, batch);
+        outbox.send(0, batch);
+        long twoSegments = outbox.getDiskBytes();
+
+        transport.sent.get(0).response.complete("ok");
+
+        assertTrue(outbox.getDiskBytes() < twoSegments);
+        assertEquals(1, outbox.getPendingCount());
+    }
+
+    private InsertOutbox open(int maxResends) throws IOException {
+        return new InsertOutbox(policy(maxResends), transport);
+    }
+
+    private OutboxPolicy policy(int maxResends) {
+        return new OutboxPolicy(directory, 1024 * 1024, 4096, FsyncPolicy.NEVER, 1000, maxResends, 10);
+    }
+}
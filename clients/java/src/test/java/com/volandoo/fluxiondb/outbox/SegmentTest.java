@@ -0,0 +1,100 @@
+package com.volandoo.fluxiondb.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SegmentTest {
+
+    private static final int CAPACITY = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoverReportsPendingRecordsOnly() throws IOException {
+        Segment written = Segment.create(directory, 7, CAPACITY);
+        int a = written.append(0, bytes("[\"a\"]"));
+        int b = written.append(1, bytes("[\"b\"]"));
+        int c = written.append(2, bytes("[\"c\"]"));
+        written.acknowledge(b);
+        written.force();
+
+        Segment reopened = Segment.open(directory.resolve(segmentName(7)));
+        List<String> recovered = recover(reopened);
+
+        assertEquals(7, reopened.sequence);
+        assertEquals(List.of(a + "@0=[\"a\"]", c + "@2=[\"c\"]"), recovered);
+        assertEquals(2, reopened.pending);
+        assertFalse(reopened.fits(0), "a reopened segment takes no more appends");
+    }
+
+    @Test
+    void recoverStopsAtRecordTornByCrash() throws IOException {
+        Segment written = Segment.create(directory, 1, CAPACITY);
+        written.append(0, bytes("[\"a\"]"));
+        int torn = written.append(0, bytes("[\"b\"]"));
+        written.append(0, bytes("[\"c\"]"));
+        written.force();
+        // A payload page that never reached the disk
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(segmentName(1)).toFile(), "rw")) {
+            file.seek(torn + Segment.HEADER_BYTES + 2);
+            file.write('x');
+        }
+
+        List<String> recovered = recover(Segment.open(directory.resolve(segmentName(1))));
+
+        assertEquals(List.of("0@0=[\"a\"]"), recovered);
+    }
+
+    @Test
+    void recoverStopsAtRecordWhoseStatusWasNeverWritten() throws IOException {
+        Segment written = Segment.create(directory, 1, CAPACITY);
+        written.append(0, bytes("[\"a\"]"));
+        int unfinished = written.append(0, bytes("[\"b\"]"));
+        written.force();
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(segmentName(1)).toFile(), "rw")) {
+            file.seek(unfinished);
+            file.write(0);
+        }
+
+        List<String> recovered = recover(Segment.open(directory.resolve(segmentName(1))));
+
+        assertEquals(List.of("0@0=[\"a\"]"), recovered);
+    }
+
+    @Test
+    void recoverOfFullSegmentStopsAtItsEnd() throws IOException {
+        Segment written = Segment.create(directory, 1, CAPACITY);
+        byte[] payload = bytes("x".repeat(CAPACITY - Segment.HEADER_BYTES));
+        written.append(3, payload);
+        written.force();
+
+        List<String> recovered = recover(Segment.open(directory.resolve(segmentName(1))));
+
+        assertEquals(1, recovered.size());
+    }
+
+    private static List<String> recover(Segment segment) {
+        List<String> recovered = new ArrayList<>();
+        segment.recover((offset, partition) -> recovered.add(offset + "@" + partition + "=" + segment.read(offset)));
+        return recovered;
+    }
+
+    private static String segmentName(long sequence) {
+        return String.format("%020d.seg", sequence);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}